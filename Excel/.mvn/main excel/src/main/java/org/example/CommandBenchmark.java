@@ -0,0 +1,84 @@
+package org.example;
+
+import org.example.model.Spreadsheet;
+import org.example.view.Command;
+import org.example.view.CommandParser;
+import org.example.view.ParsedCommand;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+// سنجش سرعت تجزیه و اجرای دستورها (دستور در ثانیه)
+// استفاده: CommandBenchmark [تعداد خط، پیش‌فرض 1000000]
+public class CommandBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] lines = generate(count);
+
+        CommandParser parser = new CommandParser();
+        long checksum = 0;
+        for (int warmup = 0; warmup < 3; warmup++) {
+            for (String line : lines) {
+                checksum += parser.parse(line).getKind().ordinal();
+            }
+        }
+
+        long begin = System.nanoTime();
+        for (String line : lines) {
+            ParsedCommand parsed = parser.parse(line);
+            checksum += parsed.getValueKind().ordinal();
+        }
+        report("parse", count, System.nanoTime() - begin);
+
+        PrintStream console = System.out;
+        Spreadsheet spreadsheet = new Spreadsheet(26, 26);
+        Command command = new Command(spreadsheet);
+        command.setAutoDisplay(false);
+        int executed = Math.min(count, 10_000);
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        begin = System.nanoTime();
+        try {
+            for (int i = 0; i < executed; i++) {
+                command.processCommand(lines[i]);
+            }
+        } finally {
+            System.setOut(console);
+        }
+        report("execute", executed, System.nanoTime() - begin);
+        System.out.println("(checksum " + checksum + ")");
+    }
+
+    // ترکیبی از عدد، متن، فرمول صریح و فرمول ضمنی، شبیه اسکریپت‌های دسته‌ای
+    private static String[] generate(int count) {
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            char col = (char) ('A' + i % 26);
+            int row = i / 26 % 26 + 1;
+            switch (i % 5) {
+                case 0:
+                    lines[i] = col + "" + row + "=" + (i % 1000);
+                    break;
+                case 1:
+                    lines[i] = col + "" + row + "=\"label" + (i % 100) + "\"";
+                    break;
+                case 2:
+                    lines[i] = col + "" + row + "=A1+" + (i % 10);
+                    break;
+                case 3:
+                    lines[i] = col + "" + row + " = SUM(A1:A" + (row) + ")";
+                    break;
+                default:
+                    lines[i] = col + "" + row + "=" + (i % 7) + ".5";
+            }
+        }
+        return lines;
+    }
+
+    private static void report(String phase, int commands, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("%-8s %,d commands in %.1f ms - %,.0f commands/sec%n",
+                phase, commands, nanos / 1_000_000.0, commands / seconds);
+    }
+}
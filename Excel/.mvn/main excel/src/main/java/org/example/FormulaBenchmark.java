@@ -0,0 +1,56 @@
+package org.example;
+
+import org.example.controller.Calculate;
+import org.example.controller.FormulaLexer;
+import org.example.model.FormulaToken;
+
+import java.util.List;
+
+// سنجش سرعت توکن‌سازی و کامپایل فرمول‌ها (فرمول در ثانیه و توکن در ثانیه)
+// استفاده: FormulaBenchmark [تعداد فرمول، پیش‌فرض 1000000]
+public class FormulaBenchmark {
+    private static final String[] SAMPLES = {
+            "A1+B2*C3",
+            "SUM(A1:A20)/COUNT(A1:A20)",
+            "(A1-B1)^2+(A2-B2)^2",
+            "-A5*3.75+PI",
+            "MAX(B1:B10)-MIN(B1:B10)+4!",
+            "1.5e3/(C7+0.25)",
+    };
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        char[][] formulas = new char[SAMPLES.length][];
+        for (int i = 0; i < SAMPLES.length; i++) {
+            formulas[i] = SAMPLES[i].toCharArray();
+        }
+
+        long tokens = 0;
+        for (int i = 0; i < count; i++) {
+            char[] formula = formulas[i % formulas.length];
+            tokens += FormulaLexer.tokenize(formula, 0, formula.length).size();
+        }
+
+        tokens = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            char[] formula = formulas[i % formulas.length];
+            List<FormulaToken> result = FormulaLexer.tokenize(formula, 0, formula.length);
+            tokens += result.size();
+        }
+        long elapsed = System.nanoTime() - begin;
+        double seconds = elapsed / 1_000_000_000.0;
+        System.out.printf("tokenize %,d formulas in %.1f ms - %,.0f formulas/sec, %,.0f tokens/sec%n",
+                count, elapsed / 1_000_000.0, count / seconds, tokens / seconds);
+
+        begin = System.nanoTime();
+        long postfixTokens = 0;
+        for (int i = 0; i < count; i++) {
+            postfixTokens += Calculate.compile(SAMPLES[i % SAMPLES.length]).getPostfix().size();
+        }
+        elapsed = System.nanoTime() - begin;
+        seconds = elapsed / 1_000_000_000.0;
+        System.out.printf("compile  %,d formulas in %.1f ms - %,.0f formulas/sec (%d postfix tokens)%n",
+                count, elapsed / 1_000_000.0, count / seconds, postfixTokens);
+    }
+}
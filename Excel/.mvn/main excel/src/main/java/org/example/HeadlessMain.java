@@ -0,0 +1,81 @@
+package org.example;
+
+import org.example.model.Spreadsheet;
+import org.example.view.Command;
+import org.example.view.CommandParser;
+import org.example.view.ParsedCommand;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// اجرای دسته‌ای یک فایل دستور (یا ورودی استاندارد) بدون JavaFX؛
+// فقط خروجی SHOW و EXPORT چاپ می‌شود و در پایان سرعت اجرا گزارش می‌شود
+// استفاده: HeadlessMain [--rows N] [--cols N] [script | -]
+public class HeadlessMain {
+    private static final CommandParser PARSER = new CommandParser();
+
+    public static void main(String[] args) throws IOException {
+        int rows = 26;
+        int cols = 26;
+        String script = "-";
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--rows") && i + 1 < args.length) {
+                rows = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cols") && i + 1 < args.length) {
+                cols = Integer.parseInt(args[++i]);
+            } else {
+                script = args[i];
+            }
+        }
+
+        PrintStream console = System.out;
+        PrintStream silent = new PrintStream(OutputStream.nullOutputStream());
+
+        Spreadsheet spreadsheet = new Spreadsheet(rows, cols);
+        Command command = new Command(spreadsheet);
+        command.setAutoDisplay(false);
+
+        long executed = 0;
+        long begin = System.nanoTime();
+
+        try (BufferedReader reader = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            String line;
+            boolean running = true;
+            while (running && (line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+
+                System.setOut(isVisible(trimmed) ? console : silent);
+                try {
+                    running = command.processCommand(trimmed);
+                } finally {
+                    System.setOut(console);
+                }
+                executed++;
+            }
+        }
+
+        long elapsed = System.nanoTime() - begin;
+        double seconds = elapsed / 1_000_000_000.0;
+        System.err.printf("%d commands in %.1f ms - %.0f commands/sec%n",
+                executed, elapsed / 1_000_000.0, seconds > 0 ? executed / seconds : 0);
+        console.flush();
+    }
+
+    // همان تشخیص کلمه‌ی کلیدی Command؛ SHOW با محدوده هم دیده می‌شود
+    private static boolean isVisible(String command) {
+        ParsedCommand.Kind kind = PARSER.parse(command).getKind();
+        return kind == ParsedCommand.Kind.SHOW || kind == ParsedCommand.Kind.EXPORT;
+    }
+}
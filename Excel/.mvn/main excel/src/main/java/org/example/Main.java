@@ -8,6 +8,7 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.TextInputDialog;
 import javafx.stage.Stage;
 import org.example.model.Spreadsheet;
+import org.example.utils.CellConverter;
 import org.example.view.Command;
 import org.example.controller.SpreadsheetGUIController;
 
@@ -20,8 +21,8 @@ public class Main extends Application {
 
     @Override
     public void start(Stage primaryStage) throws Exception {
-        int cols = getGridDimension("Enter number of columns:", "0");
-        int rows = getGridDimension("Enter number of rows:", "0");
+        int cols = getGridDimension("Enter number of columns:", "0", CellConverter.MAX_COLUMNS);
+        int rows = getGridDimension("Enter number of rows:", "0", CellConverter.MAX_ROWS);
 
         this.spreadsheet = new Spreadsheet(rows, cols);
         this.commandProcessor = new Command(spreadsheet);
@@ -37,7 +38,8 @@ public class Main extends Application {
         primaryStage.show();
     }
 
-    private int getGridDimension(String message, String defaultValue) {
+    // جدول سطرها را با اولین نوشتن می‌سازد و جدول مجازی فقط سطرهای دیده‌شده را، پس سقف همان سقف مختصات است
+    private int getGridDimension(String message, String defaultValue, int max) {
         TextInputDialog dialog = new TextInputDialog(defaultValue);
         dialog.setTitle("Spreadsheet Configuration");
         dialog.setHeaderText("Set Spreadsheet Dimensions");
@@ -48,15 +50,15 @@ public class Main extends Application {
         if (result.isPresent()) {
             try {
                 int value = Integer.parseInt(result.get());
-                if (value > 0 && value <= 26) {
+                if (value > 0 && value <= max) {
                     return value;
                 } else {
-                    showErrorDialog("Invalid dimension! Please enter a number between 1 and 26.");
-                    return getGridDimension(message, defaultValue); // تلاش مجدد
+                    showErrorDialog("Invalid dimension! Please enter a number between 1 and " + max + ".");
+                    return getGridDimension(message, defaultValue, max); // تلاش مجدد
                 }
             } catch (NumberFormatException e) {
                 showErrorDialog("Invalid number format! Please enter a valid integer.");
-                return getGridDimension(message, defaultValue);
+                return getGridDimension(message, defaultValue, max);
             }
         } else {
             System.exit(0);
@@ -0,0 +1,138 @@
+package org.example;
+
+import org.example.controller.SpreadsheetServer;
+import org.example.model.Spreadsheet;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// سنجش بار حالت سرویس: چند کلاینت هم‌زمان روی نخ‌های مجازی ترکیبی از خواندن محدوده و نوشتن سلول
+// می‌فرستند و در پایان p50 و p99 تأخیر و درخواست در ثانیه گزارش می‌شود. بدون --url یک سرویس داخلی
+// روی درگاه آزاد بالا می‌آید
+// استفاده: ServerLoadTest [--url http://localhost:8080] [--clients N] [--seconds N] [--writes PERCENT]
+public class ServerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int clients = 32;
+        int seconds = 10;
+        int writePercent = 20;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--url") && i + 1 < args.length) {
+                url = args[++i];
+            } else if (args[i].equals("--clients") && i + 1 < args.length) {
+                clients = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seconds") && i + 1 < args.length) {
+                seconds = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--writes") && i + 1 < args.length) {
+                writePercent = Integer.parseInt(args[++i]);
+            }
+        }
+
+        SpreadsheetServer embedded = null;
+        if (url == null) {
+            embedded = new SpreadsheetServer(new Spreadsheet(1000, 26), 0);
+            embedded.start();
+            url = "http://localhost:" + embedded.getPort();
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String base = url;
+        // ستون B به ستون A وابسته است تا نوشتن‌ها محاسبه‌ی دوباره هم داشته باشند
+        for (int row = 1; row <= 100; row++) {
+            send(client, HttpRequest.newBuilder(URI.create(base + "/cells"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"A" + row + "\": \"" + row + "\", \"B" + row
+                            + "\": \"=A" + row + "*2\"}")).build());
+        }
+        send(client, HttpRequest.newBuilder(URI.create(base + "/cells/C1"))
+                .POST(HttpRequest.BodyPublishers.ofString("=SUM(B1:B100)")).build());
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        int writes = writePercent;
+        long begin = System.nanoTime();
+        long[][] latencies = new long[clients][];
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?>[] futures = new Future<?>[clients];
+            for (int c = 0; c < clients; c++) {
+                int id = c;
+                futures[c] = workers.submit(() -> {
+                    latencies[id] = runClient(client, base, deadline, writes);
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        int total = 0;
+        for (long[] clientLatencies : latencies) {
+            total += clientLatencies.length;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] clientLatencies : latencies) {
+            System.arraycopy(clientLatencies, 0, all, offset, clientLatencies.length);
+            offset += clientLatencies.length;
+        }
+        Arrays.sort(all);
+
+        System.out.printf("%d clients, %d%% writes: %,d requests in %.1f s - %,.0f requests/sec%n",
+                clients, writePercent, total, elapsed / 1_000_000_000.0, total / (elapsed / 1_000_000_000.0));
+        System.out.printf("latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(all, 0.50) / 1_000_000.0, percentile(all, 0.99) / 1_000_000.0,
+                total > 0 ? all[total - 1] / 1_000_000.0 : 0);
+
+        if (embedded != null) {
+            embedded.stop();
+        }
+    }
+
+    private static long[] runClient(HttpClient client, String base, long deadline, int writePercent) throws Exception {
+        long[] latencies = new long[1024];
+        int count = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest read = HttpRequest.newBuilder(URI.create(base + "/cells?range=A1:C100")).GET().build();
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = read;
+            if (random.nextInt(100) < writePercent) {
+                request = HttpRequest.newBuilder(URI.create(base + "/cells/A" + (1 + random.nextInt(100))))
+                        .POST(HttpRequest.BodyPublishers.ofString(Integer.toString(random.nextInt(1000)))).build();
+            }
+            long start = System.nanoTime();
+            send(client, request);
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static void send(HttpClient client, HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " -> " + response.statusCode() + " " + response.body());
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+}
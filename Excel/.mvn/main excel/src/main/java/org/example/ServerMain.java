@@ -0,0 +1,37 @@
+package org.example;
+
+import org.example.controller.SpreadsheetServer;
+import org.example.model.Spreadsheet;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+// اجرای موتور جدول به صورت سرویس HTTP/JSON روی localhost، بدون JavaFX
+// استفاده: ServerMain [--port N] [--rows N] [--cols N]
+public class ServerMain {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 8080;
+        int rows = 1000;
+        int cols = 26;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--rows") && i + 1 < args.length) {
+                rows = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cols") && i + 1 < args.length) {
+                cols = Integer.parseInt(args[++i]);
+            }
+        }
+
+        SpreadsheetServer server = new SpreadsheetServer(new Spreadsheet(rows, cols), port);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }));
+        server.start();
+        stopped.await();
+    }
+}
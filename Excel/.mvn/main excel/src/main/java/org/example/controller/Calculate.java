@@ -2,190 +2,190 @@ package org.example.controller;
 
 import org.example.exceptions.InvalidFormulaException;
 import org.example.model.Cell;
-import org.example.model.Operator;
+import org.example.model.CompiledFormula;
+import org.example.model.FormulaTemplate;
+import org.example.model.FormulaToken;
+import org.example.model.FormulaToken.Type;
 import org.example.model.Spreadsheet;
 import org.example.model.Stack;
-import org.example.utils.MathHelper;
 import org.example.utils.Validationformula;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class Calculate {
 
     public static List<String> tokenize(String expression) {
-        List<String> tokens = new ArrayList<>();
-        StringBuilder currentToken = new StringBuilder();
-        boolean lastWasOperator = true;
-        boolean inText = false;
-        boolean inFunction = false;
-        int parenCount = 0;
-
-        for (int i = 0; i < expression.length(); i++) {
-            char c = expression.charAt(i);
-
-            if (Character.isWhitespace(c)) continue;
-
-            if (c == '"') {
-                inText = !inText;
-                currentToken.append(c);
-                continue;
-            }
+        return toText(FormulaLexer.tokenize(expression));
+    }
 
-            if (inText) {
-                currentToken.append(c);
-                continue;
-            }
+    public static List<String> infixToPostfix(String infixExpression) {
+        Validationformula.validateFormula(infixExpression);
+        return toText(toPostfix(FormulaLexer.tokenize(infixExpression)));
+    }
 
-            // شناسایی توابع تجمعی
-            if (!inFunction && currentToken.length() == 0 && Character.isLetter(c)) {
-                currentToken.append(c);
-                continue;
+    public static List<FormulaToken> toPostfix(List<FormulaToken> tokens) {
+        List<FormulaToken> postfix = new ArrayList<>(tokens.size());
+        Stack<FormulaToken> operatorStack = new Stack<>(Math.max(1, tokens.size()));
+
+        for (FormulaToken token : tokens) {
+            switch (token.getType()) {
+                case LEFT_PAREN:
+                    operatorStack.push(token);
+                    break;
+                case RIGHT_PAREN:
+                    while (!operatorStack.isEmpty() && operatorStack.peek().getType() != Type.LEFT_PAREN) {
+                        postfix.add(operatorStack.pop());
+                    }
+                    if (operatorStack.isEmpty()) {
+                        throw new InvalidFormulaException("Mismatched parentheses");
+                    }
+                    operatorStack.pop(); // حذف '('
+                    break;
+                case UNARY_OPERATOR:
+                    // عملگرهای یوناری اولویت بالایی دارند
+                    operatorStack.push(token);
+                    break;
+                case POSTFIX_OPERATOR:
+                    // فاکتوریل به نزدیک‌ترین عملوند قبل از خودش می‌چسبد
+                    postfix.add(token);
+                    break;
+                case BINARY_OPERATOR:
+                    while (!operatorStack.isEmpty() &&
+                            operatorStack.peek().getType() != Type.LEFT_PAREN &&
+                            hasHigherPrecedence(operatorStack.peek(), token)) {
+                        postfix.add(operatorStack.pop());
+                    }
+                    operatorStack.push(token);
+                    break;
+                case COMMA:
+                    throw new InvalidFormulaException("Unexpected ',' in formula");
+                default:
+                    postfix.add(token);
             }
+        }
 
-            if (!inFunction && currentToken.length() > 0 && Character.isLetter(c)) {
-                currentToken.append(c);
-                String potentialFunction = currentToken.toString().toUpperCase();
-                if (potentialFunction.matches("(SUM|AVG|MAX|MIN|COUNT)")) {
-                    inFunction = true;
-                }
-                continue;
+        while (!operatorStack.isEmpty()) {
+            if (operatorStack.peek().getType() == Type.LEFT_PAREN) {
+                throw new InvalidFormulaException("Mismatched parentheses");
             }
+            postfix.add(operatorStack.pop());
+        }
 
-            if (inFunction) {
-                currentToken.append(c);
-                if (c == '(') parenCount++;
-                else if (c == ')') parenCount--;
-
-                if (parenCount == 0) {
-                    tokens.add(currentToken.toString());
-                    currentToken.setLength(0);
-                    inFunction = false;
-                    lastWasOperator = false;
-                }
-                continue;
-            }
+        return postfix;
+    }
 
-            if (Operator.isOperator(c) || c == '(' || c == ')' || c == ',') {
-                if (currentToken.length() > 0) {
-                    tokens.add(currentToken.toString());
-                    currentToken.setLength(0);
-                }
+    public static CompiledFormula compile(String formula) {
+        Validationformula.validateFormula(formula);
+        List<FormulaToken> tokens = FormulaLexer.tokenize(formula);
+        List<FormulaToken> postfix = toPostfix(tokens);
+        validatePostfix(postfix);
+        return new CompiledFormula(formula, postfix, referencesOf(tokens));
+    }
 
-                if (c == '(') {
-                    tokens.add("(");
-                    lastWasOperator = true;
-                } else if (c == ')') {
-                    tokens.add(")");
-                    lastWasOperator = false;
-                } else if (c == ',') {
-                    tokens.add(",");
-                    lastWasOperator = true;
-                } else if ((c == '+' || c == '-') && (lastWasOperator || i == 0)) {
-                    // عملگر یوناری
-                    tokens.add("U" + c);
-                    lastWasOperator = true;
-                } else {
-                    // عملگر باینری
-                    tokens.add(String.valueOf(c));
-                    lastWasOperator = true;
-                }
-            } else {
-                currentToken.append(c);
-                lastWasOperator = false;
-            }
+    // شکل نسبی فرمول سلول (anchorRow, anchorCol) برای اشتراک بین سلول‌های پرشده با FILL
+    public static FormulaTemplate compileTemplate(String formula, int anchorRow, int anchorCol) {
+        Validationformula.validateFormula(formula);
+        List<FormulaToken> tokens = FormulaLexer.tokenize(formula);
+        List<FormulaToken> postfix = toPostfix(tokens);
+        validatePostfix(postfix);
+
+        Set<String> references = referencesOf(tokens);
+        int[] referenceRows = new int[references.size()];
+        int[] referenceCols = new int[references.size()];
+        int i = 0;
+        for (String reference : references) {
+            referenceRows[i] = Integer.parseInt(reference.substring(1)) - 1 - anchorRow;
+            referenceCols[i] = Character.toUpperCase(reference.charAt(0)) - 'A' - anchorCol;
+            i++;
         }
-
-        if (currentToken.length() > 0) tokens.add(currentToken.toString());
-        return tokens;
+        return new FormulaTemplate(relativeTo(tokens, anchorRow, anchorCol), relativeTo(postfix, anchorRow, anchorCol),
+                referenceRows, referenceCols);
     }
 
-    public static List<String> infixToPostfix(String infixExpression) {
-        Validationformula.validateFormula(infixExpression);
-        List<String> tokens = tokenize(infixExpression);
-        List<String> postfix = new ArrayList<>();
-        Stack<String> operatorStack = new Stack<>();
-
-        for (String token : tokens) {
-            if (isOperand(token)) {
-                postfix.add(token);
-            } else if (token.equals("(")) {
-                operatorStack.push(token);
-            } else if (token.equals(")")) {
-                while (!operatorStack.isEmpty() && !operatorStack.peek().equals("(")) {
-                    postfix.add(operatorStack.pop());
-                }
-                if (operatorStack.isEmpty() || !operatorStack.peek().equals("(")) {
-                    throw new InvalidFormulaException("Mismatched parentheses");
-                }
-                operatorStack.pop(); // حذف '('
-            } else if (token.startsWith("U")) {
-                // عملگرهای یوناری اولویت بالایی دارند
-                operatorStack.push(token);
-            } else {
-                // عملگرهای باینری
-                while (!operatorStack.isEmpty() &&
-                        !operatorStack.peek().equals("(") &&
-                        hasHigherPrecedence(operatorStack.peek(), token)) {
-                    postfix.add(operatorStack.pop());
-                }
-                operatorStack.push(token);
-            }
+    private static List<FormulaToken> relativeTo(List<FormulaToken> tokens, int anchorRow, int anchorCol) {
+        List<FormulaToken> relative = new ArrayList<>(tokens.size());
+        for (FormulaToken token : tokens) {
+            relative.add(token.relativeTo(anchorRow, anchorCol));
         }
+        return relative;
+    }
 
-        while (!operatorStack.isEmpty()) {
-            if (operatorStack.peek().equals("(")) {
-                throw new InvalidFormulaException("Mismatched parentheses");
+    // ساختار postfix یک بار اینجا بررسی می‌شود تا ارزیابی فقط با مقدارها (و مقدارهای خطا) سروکار داشته باشد
+    public static void validatePostfix(List<FormulaToken> postfix) {
+        int depth = 0;
+        for (FormulaToken token : postfix) {
+            switch (token.getType()) {
+                case NUMBER:
+                case TEXT:
+                case CELL:
+                case FUNCTION:
+                    depth++;
+                    break;
+                case UNARY_OPERATOR:
+                case POSTFIX_OPERATOR:
+                    if (depth < 1) {
+                        throw new InvalidFormulaException("Insufficient operands for operator: " + token.getText());
+                    }
+                    break;
+                case BINARY_OPERATOR:
+                    if (depth < 2) {
+                        throw new InvalidFormulaException("Insufficient operands for operator: " + token.getText());
+                    }
+                    depth--;
+                    break;
+                case RANGE:
+                    throw new InvalidFormulaException("Range " + token.getText() + " can only be used inside a function");
+                default:
+                    throw new InvalidFormulaException("Unexpected token: " + token.getText());
             }
-            postfix.add(operatorStack.pop());
         }
+        if (depth != 1) {
+            throw new InvalidFormulaException("Invalid expression evaluation - stack has " + depth + " items");
+        }
+    }
 
-        return postfix;
+    private static List<String> toText(List<FormulaToken> tokens) {
+        List<String> text = new ArrayList<>(tokens.size());
+        for (FormulaToken token : tokens) {
+            text.add(token.getText());
+        }
+        return text;
     }
 
-    private static boolean hasHigherPrecedence(String op1, String op2) {
+    private static boolean hasHigherPrecedence(FormulaToken op1, FormulaToken op2) {
         int prec1 = getPrecedence(op1);
         int prec2 = getPrecedence(op2);
 
         return prec1 > prec2 || (prec1 == prec2 && isLeftAssociative(op1));
     }
 
-    private static int getPrecedence(String op) {
-        if (op.startsWith("U")) {
+    private static int getPrecedence(FormulaToken op) {
+        if (op.getType() == Type.UNARY_OPERATOR) {
             return 4; // بالاترین اولویت برای عملگرهای یوناری
         }
 
-        switch (op) {
-            case "^": return 3;
-            case "*": case "/": return 2;
-            case "+": case "-": return 1;
+        switch (op.getOperator()) {
+            case '^': return 3;
+            case '*': case '/': return 2;
+            case '+': case '-': return 1;
             default: return 0;
         }
     }
 
-    private static boolean isLeftAssociative(String op) {
-        return !op.equals("^"); // توان از راست به چپ است
-    }
-
-    private static boolean isOperand(String token) {
-        return MathHelper.isNumber(token) ||
-                MathHelper.isConstant(token) ||
-                isCellReference(token) ||
-                isRangeReference(token) ||
-                isAggregateFunction(token) ||
-                ((token.startsWith("\"") && token.endsWith("\"")) || (token.startsWith("”") && token.endsWith("”")) );
+    private static boolean isLeftAssociative(FormulaToken op) {
+        return op.getOperator() != '^'; // توان از راست به چپ است
     }
 
     public static boolean isCellReference(String token) {
-        return token.matches("[A-Za-z]\\d+");
+        return token.length() >= 2 && isAsciiLetter(token.charAt(0)) && isDigits(token, 1, token.length());
     }
 
     public static boolean isRangeReference(String token) {
-        return token.matches("[A-Za-z]\\d+:[A-Za-z]\\d+");
+        int colon = token.indexOf(':');
+        return colon > 0 && isCellReference(token.substring(0, colon)) && isCellReference(token.substring(colon + 1));
     }
 
     public static boolean isAggregateFunction(String token) {
@@ -199,47 +199,38 @@ public class Calculate {
     }
 
     public static Set<String> extractCellReferences(String formula) {
-        Set<String> references = new HashSet<>();
-
-        // الگو برای شناسایی سلول‌های منفرد (A1, B2, etc.)
-        Pattern singleCellPattern = Pattern.compile("[A-Za-z]\\d+");
-        Matcher singleMatcher = singleCellPattern.matcher(formula);
-
-        while (singleMatcher.find()) {
-            references.add(singleMatcher.group().toUpperCase());
-        }
-
-        // الگو برای شناسایی محدوده‌ها در توابع تجمعی (A1:B5)
-        Pattern rangePattern = Pattern.compile("([A-Za-z]\\d+):([A-Za-z]\\d+)");
-        Matcher rangeMatcher = rangePattern.matcher(formula);
-
-        while (rangeMatcher.find()) {
-            String startCell = rangeMatcher.group(1).toUpperCase();
-            String endCell = rangeMatcher.group(2).toUpperCase();
+        return referencesOf(FormulaLexer.tokenize(formula));
+    }
 
-            // استخراج تمام سلول‌های موجود در محدوده
-            references.addAll(extractCellsInRange(startCell, endCell));
+    // سلول‌های منفرد و همه‌ی سلول‌های داخل محدوده‌ها (شامل دو سر محدوده)
+    private static Set<String> referencesOf(List<FormulaToken> tokens) {
+        Set<String> references = new HashSet<>();
+        for (FormulaToken token : tokens) {
+            if (token.getType() == Type.CELL) {
+                references.add(token.getText());
+            } else if (token.getType() == Type.RANGE || token.getType() == Type.FUNCTION) {
+                references.add(FormulaToken.cell(token.getRow(), token.getCol()).getText());
+                references.add(FormulaToken.cell(token.getLastRow(), token.getLastCol()).getText());
+                for (int row = token.getRow(); row <= token.getLastRow(); row++) {
+                    for (int col = token.getCol(); col <= token.getLastCol(); col++) {
+                        references.add("" + (char) ('A' + col) + (row + 1));
+                    }
+                }
+            }
         }
-
         return references;
     }
 
-    private static Set<String> extractCellsInRange(String startCell, String endCell) {
-        Set<String> cells = new HashSet<>();
-
-        int startCol = startCell.charAt(0) - 'A';
-        int startRow = Integer.parseInt(startCell.substring(1)) - 1;
-        int endCol = endCell.charAt(0) - 'A';
-        int endRow = Integer.parseInt(endCell.substring(1)) - 1;
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
 
-        for (int row = startRow; row <= endRow; row++) {
-            for (int col = startCol; col <= endCol; col++) {
-                String cellRef = "" + (char)('A' + col) + (row + 1);
-                cells.add(cellRef);
-            }
+    private static boolean isDigits(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return false;
         }
-
-        return cells;
+        return true;
     }
 
     public static List<Double> getValuesFromRange(String range, Spreadsheet spreadsheet) {
@@ -0,0 +1,197 @@
+package org.example.controller;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.ListView;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// کنسول خروجی رابط کاربری: فقط آخرین maxLines خط در یک بافر حلقوی می‌ماند و ListView فقط خط‌های
+// دیدنی را رسم می‌کند، پس هزینه‌ی هر پیام به طول جلسه بستگی ندارد. append از هر نخی صدا زده می‌شود؛
+// خط‌ها صف می‌شوند و همه‌ی خط‌های بین دو فریم با یک Platform.runLater و یک تغییر فهرست اضافه می‌شوند
+public final class ConsoleLog {
+    public static final int DEFAULT_MAX_LINES = 2000;
+
+    private final ListView<String> view;
+    private final LineBuffer lines;
+
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final Object scheduleLock = new Object();
+    private boolean flushScheduled;
+
+    public ConsoleLog(ListView<String> view, int maxLines) {
+        this.view = view;
+        this.lines = new LineBuffer(Math.max(1, maxLines));
+        view.setItems(lines);
+        view.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
+        MenuItem copy = new MenuItem("Copy");
+        copy.setOnAction(e -> copySelection());
+        MenuItem clear = new MenuItem("Clear");
+        clear.setOnAction(e -> clear());
+        view.setContextMenu(new ContextMenu(copy, clear));
+    }
+
+    // سقف خط‌ها از -Dexcel.console.lines، مثل سطح لاگ در Log
+    public static int configuredMaxLines() {
+        return Integer.getInteger("excel.console.lines", DEFAULT_MAX_LINES);
+    }
+
+    // هر \n یک خط را می‌بندد؛ متنی که با \n تمام نشده هم یک خط حساب می‌شود
+    public void append(String text) {
+        int start = 0;
+        int length = text.length();
+        while (start < length) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
+            }
+            pending.add(text.substring(start, end));
+            start = end + 1;
+        }
+
+        synchronized (scheduleLock) {
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        Platform.runLater(this::flush);
+    }
+
+    // فقط روی نخ JavaFX
+    public void clear() {
+        pending.clear();
+        lines.clear();
+    }
+
+    public int getMaxLines() {
+        return lines.capacity();
+    }
+
+    // فقط روی نخ JavaFX؛ اگر سقف کم شود قدیمی‌ترین خط‌ها حذف می‌شوند
+    public void setMaxLines(int maxLines) {
+        lines.resize(Math.max(1, maxLines));
+    }
+
+    private void flush() {
+        synchronized (scheduleLock) {
+            flushScheduled = false;
+        }
+        List<String> batch = new ArrayList<>();
+        String line;
+        while ((line = pending.poll()) != null) {
+            batch.add(line);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        lines.addLines(batch);
+        view.scrollTo(lines.size() - 1);
+    }
+
+    private void copySelection() {
+        StringBuilder text = new StringBuilder();
+        for (String selected : view.getSelectionModel().getSelectedItems()) {
+            text.append(selected).append('\n');
+        }
+        ClipboardContent content = new ClipboardContent();
+        content.putString(text.toString());
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
+    // فهرست حلقوی با ظرفیت ثابت؛ افزودن دسته‌ای یک تغییر می‌فرستد: حذف از سر و افزودن به ته
+    private static final class LineBuffer extends ObservableListBase<String> {
+        private String[] items;
+        private int head;
+        private int size;
+
+        LineBuffer(int capacity) {
+            this.items = new String[capacity];
+        }
+
+        int capacity() {
+            return items.length;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Line " + index + " out of bounds for " + size + " lines");
+            }
+            return items[(head + index) % items.length];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        void addLines(List<String> added) {
+            int capacity = items.length;
+            // از دسته‌ای بزرگ‌تر از ظرفیت فقط آخرین خط‌ها به بافر می‌رسند
+            int skip = Math.max(0, added.size() - capacity);
+            int count = added.size() - skip;
+
+            beginChange();
+            int overflow = size + count - capacity;
+            if (overflow > 0) {
+                nextRemove(0, takeFirst(overflow));
+            }
+            int from = size;
+            for (int i = skip; i < added.size(); i++) {
+                items[(head + size) % capacity] = added.get(i);
+                size++;
+            }
+            nextAdd(from, size);
+            endChange();
+        }
+
+        @Override
+        public void clear() {
+            if (size == 0) {
+                return;
+            }
+            beginChange();
+            nextRemove(0, takeFirst(size));
+            endChange();
+            head = 0;
+        }
+
+        void resize(int capacity) {
+            if (capacity == items.length) {
+                return;
+            }
+            beginChange();
+            if (size > capacity) {
+                nextRemove(0, takeFirst(size - capacity));
+            }
+            String[] resized = new String[capacity];
+            for (int i = 0; i < size; i++) {
+                resized[i] = items[(head + i) % items.length];
+            }
+            items = resized;
+            head = 0;
+            endChange();
+        }
+
+        // برداشتن count خط قدیمی از سر بافر؛ فهرست برداشته‌ها برای رویداد تغییر لازم است
+        private List<String> takeFirst(int count) {
+            List<String> removed = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                removed.add(items[head]);
+                items[head] = null;
+                head = (head + 1) % items.length;
+            }
+            size -= count;
+            return removed;
+        }
+    }
+}
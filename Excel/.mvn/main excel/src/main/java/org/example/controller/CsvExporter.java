@@ -0,0 +1,176 @@
+package org.example.controller;
+
+import org.example.model.SheetSnapshot;
+import org.example.model.Spreadsheet;
+import org.example.utils.DoubleFormatter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+public class CsvExporter {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] ERROR_TEXT = {'#', 'E', 'R', 'R', '!'};
+
+    private final Spreadsheet spreadsheet;
+    private final ByteBuffer buffer;
+    private final byte[] numberScratch;
+    private byte delimiter;
+    private int fractionDigits;
+    private FileChannel channel;
+    private long bytesWritten;
+
+    public CsvExporter(Spreadsheet spreadsheet) {
+        this.spreadsheet = spreadsheet;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.numberScratch = new byte[DoubleFormatter.MAX_LENGTH];
+        this.delimiter = ',';
+        this.fractionDigits = 10;
+    }
+
+    public void setDelimiter(char delimiter) {
+        if (delimiter == '"' || delimiter == '\n' || delimiter == '\r' || delimiter > 127) {
+            throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+        }
+        this.delimiter = (byte) delimiter;
+    }
+
+    public void setFractionDigits(int fractionDigits) {
+        if (fractionDigits < 0 || fractionDigits > DoubleFormatter.MAX_FRACTION_DIGITS) {
+            throw new IllegalArgumentException("Fraction digits must be between 0 and "
+                    + DoubleFormatter.MAX_FRACTION_DIGITS);
+        }
+        this.fractionDigits = fractionDigits;
+    }
+
+    public ExportStats export(Path path) throws IOException {
+        return export(spreadsheet.snapshot(), path);
+    }
+
+    public ExportStats export(Path path, int firstRow, int firstCol, int lastRow, int lastCol) throws IOException {
+        return export(spreadsheet.snapshot(firstRow, firstCol, lastRow, lastCol), path);
+    }
+
+    // اسنپ‌شات همین الان گرفته می‌شود و نوشتن فایل در پس‌زمینه انجام می‌شود تا ویرایش ادامه پیدا کند
+    public CompletableFuture<ExportStats> exportAsync(Path path, int firstRow, int firstCol, int lastRow, int lastCol) {
+        SheetSnapshot snapshot = spreadsheet.snapshot(firstRow, firstCol, lastRow, lastCol);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return export(snapshot, path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public synchronized ExportStats export(SheetSnapshot snapshot, Path path) throws IOException {
+        long begin = System.nanoTime();
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            this.channel = out;
+            this.bytesWritten = 0;
+            buffer.clear();
+
+            for (int row = 0; row < snapshot.getRows(); row++) {
+                for (int col = 0; col < snapshot.getCols(); col++) {
+                    if (col > 0) {
+                        ensureCapacity(1);
+                        buffer.put(delimiter);
+                    }
+                    writeValue(snapshot, row, col);
+                }
+                ensureCapacity(1);
+                buffer.put((byte) '\n');
+            }
+            flush();
+        } finally {
+            this.channel = null;
+        }
+        return new ExportStats(snapshot.getRows(), bytesWritten, System.nanoTime() - begin);
+    }
+
+    private void writeValue(SheetSnapshot snapshot, int row, int col) throws IOException {
+        if (snapshot.hasError(row, col)) {
+            ensureCapacity(ERROR_TEXT.length);
+            buffer.put(ERROR_TEXT);
+            return;
+        }
+
+        Object value = snapshot.getValue(row, col);
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            int length = DoubleFormatter.format(((Number) value).doubleValue(), fractionDigits, numberScratch, 0);
+            ensureCapacity(length);
+            buffer.put(numberScratch, 0, length);
+        } else {
+            writeText(value.toString());
+        }
+    }
+
+    private void writeText(String text) throws IOException {
+        boolean quote = needsQuoting(text);
+        if (quote) {
+            ensureCapacity(1);
+            buffer.put((byte) '"');
+        }
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            ensureCapacity(4);
+            if (c == '"' && quote) {
+                buffer.put((byte) '"').put((byte) '"');
+            } else if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+
+        if (quote) {
+            ensureCapacity(1);
+            buffer.put((byte) '"');
+        }
+    }
+
+    private boolean needsQuoting(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,439 @@
+package org.example.controller;
+
+import org.example.model.Spreadsheet;
+import org.example.utils.NumberParser;
+import org.example.utils.TextDictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+public class CsvImporter {
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    private static final int BOUNDARY_WINDOW = 4096;
+
+    private final Spreadsheet spreadsheet;
+    private final TextDictionary dictionary;
+    private byte delimiter;
+    private boolean skipHeader;
+
+    public CsvImporter(Spreadsheet spreadsheet) {
+        this(spreadsheet, new TextDictionary());
+    }
+
+    public CsvImporter(Spreadsheet spreadsheet, TextDictionary dictionary) {
+        this.spreadsheet = spreadsheet;
+        this.dictionary = dictionary;
+        this.delimiter = ',';
+        this.skipHeader = false;
+    }
+
+    public void setDelimiter(char delimiter) {
+        if (delimiter == '"' || delimiter == '\n' || delimiter == '\r' || delimiter > 127) {
+            throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+        }
+        this.delimiter = (byte) delimiter;
+    }
+
+    public void setSkipHeader(boolean skipHeader) {
+        this.skipHeader = skipHeader;
+    }
+
+    public static char delimiterFor(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".tsv") || name.endsWith(".tab") ? '\t' : ',';
+    }
+
+    public ImportStats importFile(Path path) throws IOException {
+        return importFile(path, 0, 0);
+    }
+
+    public ImportStats importFile(Path path, int startRow, int startCol) throws IOException {
+        if (!spreadsheet.isValidCoordinate(startRow, startCol)) {
+            throw new IllegalArgumentException("Invalid import position: (" + startRow + ", " + startCol + ")");
+        }
+
+        long begin = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = splitAtRecordBoundaries(channel, size);
+            int scannedCount = bounds.length - 1;
+
+            // مرحله اول: نگاشت هر تکه به حافظه و شمارش رکوردها به صورت موازی؛ چون معلوم نیست تکه
+            // وسط یک فیلد کوتیشن‌دار شروع شده یا نه، شمارش برای هر دو حالت انجام می‌شود
+            MappedByteBuffer[] scanned = new MappedByteBuffer[scannedCount];
+            ChunkScan[] scans = new ChunkScan[scannedCount];
+            IntStream.range(0, scannedCount).parallel().forEach(i -> {
+                scanned[i] = map(channel, bounds[i], bounds[i + 1]);
+                scans[i] = scan(scanned[i]);
+            });
+
+            // تکه‌ای که داخل کوتیشن شروع می‌شود (خط جدید درون فیلد) به تکه‌ی قبلی چسبانده می‌شود
+            List<Long> starts = new ArrayList<>();
+            List<Long> counts = new ArrayList<>();
+            boolean inQuote = false;
+            for (int i = 0; i < scannedCount; i++) {
+                long records = scans[i].records(inQuote, i == scannedCount - 1);
+                if (inQuote) {
+                    counts.set(counts.size() - 1, counts.get(counts.size() - 1) + records);
+                } else {
+                    starts.add(bounds[i]);
+                    counts.add(records);
+                }
+                inQuote = scans[i].endsQuoted(inQuote);
+            }
+
+            int chunkCount = starts.size();
+            MappedByteBuffer[] chunks = chunkCount < scannedCount ? remap(channel, starts, size) : scanned;
+
+            long[] firstRecord = new long[chunkCount];
+            long totalRecords = 0;
+            for (int i = 0; i < chunkCount; i++) {
+                firstRecord[i] = totalRecords;
+                totalRecords += counts.get(i);
+            }
+
+            long headerRecords = skipHeader && totalRecords > 0 ? 1 : 0;
+            long dataRecords = totalRecords - headerRecords;
+            long capacity = spreadsheet.getRows() - startRow;
+            long importedRows = Math.min(dataRecords, capacity);
+
+            LongAdder cellCount = new LongAdder();
+            ConcurrentLinkedQueue<PendingCell> pending = new ConcurrentLinkedQueue<>();
+
+            // مرحله دوم: تجزیه‌ی موازی و نوشتن مستقیم در سلول‌ها، با یک نقطه‌ی Undo برای کل ورود
+            spreadsheet.bulkUpdate(() -> {
+                IntStream.range(0, chunkCount).parallel().forEach(i -> {
+                    ChunkParser parser = new ChunkParser(startRow, startCol, headerRecords, cellCount, pending);
+                    parser.parse(chunks[i], firstRecord[i]);
+                });
+
+                // فرمول‌ها و سلول‌هایی که در گراف وابستگی هستند باید از مسیر عادی بگذرند
+                for (PendingCell cell : pending) {
+                    spreadsheet.setCellContent(cell.row, cell.col, cell.content);
+                }
+            });
+
+            return new ImportStats(importedRows, cellCount.sum(), dataRecords - importedRows,
+                    System.nanoTime() - begin);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long[] splitAtRecordBoundaries(FileChannel channel, long size) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / (parallelism * 4L) + 1));
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            long boundary = nextRecordStart(channel, position, size);
+            if (boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            position = boundary + chunkSize;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // از موقعیت داده شده جلو می‌رود تا به ابتدای رکورد بعدی برسد
+    private long nextRecordStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(BOUNDARY_WINDOW);
+        long offset = position - 1;
+        while (offset < size) {
+            window.clear();
+            int read = channel.read(window, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static MappedByteBuffer[] remap(FileChannel channel, List<Long> starts, long size) {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[starts.size()];
+        for (int i = 0; i < chunks.length; i++) {
+            long end = i + 1 < chunks.length ? starts.get(i + 1) : size;
+            chunks[i] = map(channel, starts.get(i), end);
+        }
+        return chunks;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long end) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // همان حالت‌های ChunkParser: خط جدید فقط بیرون از فیلد کوتیشن‌دار رکورد را تمام می‌کند
+    private static final int RECORD_START = 0;
+    private static final int FIELD_START = 1;
+    private static final int UNQUOTED = 2;
+    private static final int QUOTED = 3;
+    private static final int QUOTE_SEEN = 4;
+    private static final int AFTER_QUOTE = 5;
+
+    // دو شمارش هم‌زمان، یکی از ابتدای رکورد و یکی از داخل کوتیشن؛ وقتی به یک حالت برسند یکی می‌شوند
+    private ChunkScan scan(ByteBuffer chunk) {
+        int limit = chunk.limit();
+        int outside = RECORD_START;
+        int inside = QUOTED;
+        long outsideRecords = 0;
+        long insideRecords = 0;
+        int i = 0;
+        for (; i < limit && outside != inside; i++) {
+            byte b = chunk.get(i);
+            outside = step(outside, b);
+            inside = step(inside, b);
+            if (outside == RECORD_START) outsideRecords++;
+            if (inside == RECORD_START) insideRecords++;
+        }
+        if (outside == inside) {
+            int state = outside;
+            long shared = 0;
+            for (; i < limit; i++) {
+                state = step(state, chunk.get(i));
+                if (state == RECORD_START) shared++;
+            }
+            outside = state;
+            inside = state;
+            outsideRecords += shared;
+            insideRecords += shared;
+        }
+        return new ChunkScan(outsideRecords, outside, insideRecords, inside);
+    }
+
+    private int step(int state, byte b) {
+        switch (state) {
+            case QUOTED:
+                return b == '"' ? QUOTE_SEEN : QUOTED;
+            case QUOTE_SEEN:
+                if (b == '"') return QUOTED;
+                // کوتیشن بسته شد؛ همین بایت مثل ادامه‌ی بعد از کوتیشن خوانده می‌شود
+                return b == '\n' ? RECORD_START : b == delimiter ? FIELD_START : AFTER_QUOTE;
+            case AFTER_QUOTE:
+                return b == '\n' ? RECORD_START : b == delimiter ? FIELD_START : AFTER_QUOTE;
+            case RECORD_START:
+            case FIELD_START:
+                if (b == '"') return QUOTED;
+                return b == '\n' ? RECORD_START : b == delimiter ? FIELD_START : UNQUOTED;
+            default:
+                return b == '\n' ? RECORD_START : b == delimiter ? FIELD_START : UNQUOTED;
+        }
+    }
+
+    private static class ChunkScan {
+        private final long outsideRecords;
+        private final int outsideEnd;
+        private final long insideRecords;
+        private final int insideEnd;
+
+        private ChunkScan(long outsideRecords, int outsideEnd, long insideRecords, int insideEnd) {
+            this.outsideRecords = outsideRecords;
+            this.outsideEnd = outsideEnd;
+            this.insideRecords = insideRecords;
+            this.insideEnd = insideEnd;
+        }
+
+        // رکورد ناتمام آخر فایل (بدون خط جدید پایانی) هم شمرده می‌شود
+        private long records(boolean startsQuoted, boolean lastChunk) {
+            long records = startsQuoted ? insideRecords : outsideRecords;
+            int end = startsQuoted ? insideEnd : outsideEnd;
+            return lastChunk && end != RECORD_START ? records + 1 : records;
+        }
+
+        private boolean endsQuoted(boolean startsQuoted) {
+            return (startsQuoted ? insideEnd : outsideEnd) == QUOTED;
+        }
+    }
+
+    private static class PendingCell {
+        private final int row;
+        private final int col;
+        private final String content;
+
+        private PendingCell(int row, int col, String content) {
+            this.row = row;
+            this.col = col;
+            this.content = content;
+        }
+    }
+
+    private class ChunkParser {
+        private final int startRow;
+        private final int startCol;
+        private final long headerRecords;
+        private final LongAdder cellCount;
+        private final ConcurrentLinkedQueue<PendingCell> pending;
+        private byte[] scratch;
+        private int scratchLength;
+
+        private ChunkParser(int startRow, int startCol, long headerRecords,
+                            LongAdder cellCount, ConcurrentLinkedQueue<PendingCell> pending) {
+            this.startRow = startRow;
+            this.startCol = startCol;
+            this.headerRecords = headerRecords;
+            this.cellCount = cellCount;
+            this.pending = pending;
+            this.scratch = new byte[256];
+        }
+
+        private void parse(ByteBuffer chunk, long firstRecord) {
+            int limit = chunk.limit();
+            int pos = 0;
+            long record = firstRecord;
+            long cells = 0;
+
+            while (pos < limit) {
+                long row = startRow + record - headerRecords;
+                if (row >= spreadsheet.getRows()) {
+                    break;
+                }
+                boolean writeRecord = record >= headerRecords;
+                int col = startCol;
+                boolean endOfRecord = false;
+
+                while (!endOfRecord) {
+                    boolean quoted = pos < limit && chunk.get(pos) == '"';
+                    int fieldStart;
+                    int fieldEnd;
+                    if (quoted) {
+                        pos = readQuoted(chunk, pos + 1, limit);
+                        fieldStart = -1;
+                        fieldEnd = -1;
+                    } else {
+                        fieldStart = pos;
+                        while (pos < limit && chunk.get(pos) != delimiter && chunk.get(pos) != '\n') {
+                            pos++;
+                        }
+                        fieldEnd = pos;
+                    }
+
+                    if (pos >= limit || chunk.get(pos) == '\n') {
+                        endOfRecord = true;
+                        if (!quoted && fieldEnd > fieldStart && chunk.get(fieldEnd - 1) == '\r') {
+                            fieldEnd--;
+                        }
+                    }
+                    pos++;
+
+                    if (writeRecord && col < spreadsheet.getCols()) {
+                        if (quoted) {
+                            writeText((int) row, col, new String(scratch, 0, scratchLength, StandardCharsets.UTF_8));
+                        } else {
+                            writeField((int) row, col, chunk, fieldStart, fieldEnd);
+                        }
+                        cells++;
+                    }
+                    col++;
+                }
+                record++;
+            }
+            cellCount.add(cells);
+        }
+
+        // محتوای فیلد داخل کوتیشن را (با تبدیل "" به ") در scratch می‌ریزد
+        private int readQuoted(ByteBuffer chunk, int pos, int limit) {
+            scratchLength = 0;
+            while (pos < limit) {
+                byte b = chunk.get(pos);
+                if (b == '"') {
+                    if (pos + 1 < limit && chunk.get(pos + 1) == '"') {
+                        append(b);
+                        pos += 2;
+                        continue;
+                    }
+                    pos++;
+                    break;
+                }
+                append(b);
+                pos++;
+            }
+            // هر چیزی بعد از کوتیشن بسته تا جداکننده نادیده گرفته می‌شود
+            while (pos < limit && chunk.get(pos) != delimiter && chunk.get(pos) != '\n') {
+                pos++;
+            }
+            return pos;
+        }
+
+        private void append(byte b) {
+            if (scratchLength == scratch.length) {
+                byte[] grown = new byte[scratch.length * 2];
+                System.arraycopy(scratch, 0, grown, 0, scratchLength);
+                scratch = grown;
+            }
+            scratch[scratchLength++] = b;
+        }
+
+        private void writeField(int row, int col, ByteBuffer chunk, int start, int end) {
+            int length = end - start;
+            if (length == 0) {
+                writeEmpty(row, col);
+                return;
+            }
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            chunk.get(start, scratch, 0, length);
+
+            if (scratch[0] == '=') {
+                pending.add(new PendingCell(row, col, new String(scratch, 0, length, StandardCharsets.UTF_8)));
+                return;
+            }
+
+            double number = NumberParser.parse(chunk, start, end);
+            if (!Double.isNaN(number)) {
+                writeNumber(row, col, number, new String(scratch, 0, length, StandardCharsets.ISO_8859_1));
+            } else {
+                writeText(row, col, new String(scratch, 0, length, StandardCharsets.UTF_8));
+            }
+        }
+
+        private void writeNumber(int row, int col, double value, String raw) {
+            if (!spreadsheet.loadNumber(row, col, value, raw)) {
+                pending.add(new PendingCell(row, col, raw));
+            }
+        }
+
+        private void writeText(int row, int col, String text) {
+            String interned = dictionary.intern(text);
+            if (!spreadsheet.loadText(row, col, interned)) {
+                pending.add(new PendingCell(row, col, interned));
+            }
+        }
+
+        private void writeEmpty(int row, int col) {
+            if (!spreadsheet.loadEmpty(row, col)) {
+                pending.add(new PendingCell(row, col, ""));
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.controller;
+
+public class ExportStats {
+    private final long rows;
+    private final long bytes;
+    private final long elapsedNanos;
+
+    public ExportStats(long rows, long bytes, long elapsedNanos) {
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows (%d bytes) in %.1f ms - %.0f rows/sec",
+                rows, bytes, elapsedNanos / 1_000_000.0, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,221 @@
+package org.example.controller;
+
+import org.example.model.CellType;
+import org.example.model.CompiledFormula;
+import org.example.model.Spreadsheet;
+import org.example.utils.CellConverter;
+import org.example.utils.Log;
+import org.example.utils.Validationformula;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// مسیر نوشتن هم‌زمان برای فیدها: write از هر نخی صدا زده می‌شود. تجزیه‌ی عدد و کامپایل فرمول (و استخراج
+// ارجاع‌هایش) روی همان نخ فید انجام می‌شود و نتیجه در بافر ناحیه‌ی سلول می‌نشیند؛ هر ناحیه (تکه‌ی سطری
+// در بلوک ستونی) قفل جدای خودش را دارد، پس فیدهایی که ناحیه‌های جدا را می‌نویسند با هم رقابت نمی‌کنند.
+// اعمال روی جدول فقط روی نخ نویسنده است: همه‌ی نوشته‌های رسیده تا آن لحظه با یک bulkUpdate ثبت می‌شوند،
+// پس سلول‌های تغییرکرده‌ی همه‌ی فیدها با یک پیمایش محاسبه و یک نسخه منتشر می‌شوند
+public class FeedWriter {
+    private static final int STRIPES = 64;
+    private static final int REGION_ROW_BITS = 6;
+    private static final int REGION_COLS = 4;
+
+    private final Spreadsheet spreadsheet;
+    private final Executor writer;
+    private final int regionColumns;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // یک قسمت از بافر؛ همه‌ی فیلدها با قفل خود قسمت محافظت می‌شوند
+    private static final class Stripe {
+        private final Object lock = new Object();
+        // نوشته‌ی بعدی یک سلول جای قبلی را می‌گیرد
+        private Map<Integer, PendingWrite> pending = new HashMap<>();
+        // با اعمال همان بافری که نوشته در آن نشسته کامل می‌شود
+        private CompletableFuture<Void> applied = new CompletableFuture<>();
+    }
+
+    public FeedWriter(Spreadsheet spreadsheet, Executor writer) {
+        this.spreadsheet = spreadsheet;
+        this.writer = writer;
+        this.regionColumns = (spreadsheet.getCols() + REGION_COLS - 1) / REGION_COLS;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public CompletableFuture<Void> write(String cellReference, String content) {
+        if (!spreadsheet.isValidCellReference(cellReference)) {
+            throw new IllegalArgumentException("Invalid cell reference: " + cellReference);
+        }
+        int[] coordinates = CellConverter.fromCellReference(cellReference);
+        return write(coordinates[0], coordinates[1], content);
+    }
+
+    // نتیجه وقتی کامل می‌شود که این نوشته (یا نوشته‌ی بعدی همان سلول) در جدول اعمال و منتشر شده باشد
+    public CompletableFuture<Void> write(int row, int col, String content) {
+        if (!spreadsheet.isValidCoordinate(row, col)) {
+            throw new IndexOutOfBoundsException("Invalid cell coordinates: (" + row + ", " + col + ")");
+        }
+        CompletableFuture<Void> done = enqueue(prepare(row, col, content));
+        scheduleDrain();
+        return done;
+    }
+
+    // اول همه‌ی ارجاع‌ها بررسی و همه‌ی مقدارها آماده می‌شوند؛ اگر یکی نامعتبر باشد هیچ‌کدام در بافر نمی‌نشیند
+    public CompletableFuture<Void> writeAll(Map<String, String> contents) {
+        List<PendingWrite> prepared = new ArrayList<>(contents.size());
+        for (Map.Entry<String, String> entry : contents.entrySet()) {
+            String cellReference = entry.getKey().toUpperCase();
+            if (!spreadsheet.isValidCellReference(cellReference)) {
+                throw new IllegalArgumentException("Invalid cell reference: " + entry.getKey());
+            }
+            int[] coordinates = CellConverter.fromCellReference(cellReference);
+            prepared.add(prepare(coordinates[0], coordinates[1], entry.getValue()));
+        }
+        List<CompletableFuture<Void>> done = new ArrayList<>(prepared.size());
+        for (PendingWrite write : prepared) {
+            done.add(enqueue(write));
+        }
+        scheduleDrain();
+        return CompletableFuture.allOf(done.toArray(CompletableFuture<?>[]::new));
+    }
+
+    private CompletableFuture<Void> enqueue(PendingWrite write) {
+        Stripe stripe = stripes[stripeOf(write.row, write.col)];
+        synchronized (stripe.lock) {
+            stripe.pending.put(write.row * spreadsheet.getCols() + write.col, write);
+            return stripe.applied;
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            writer.execute(this::drain);
+        }
+    }
+
+    public int getPendingCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe.lock) {
+                count += stripe.pending.size();
+            }
+        }
+        return count;
+    }
+
+    // فقط روی نخ نویسنده؛ نوشته‌هایی که وسط اعمال برسند یک اعمال دیگر زمان‌بندی می‌کنند
+    public int drain() {
+        drainScheduled.set(false);
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        List<Map<Integer, PendingWrite>> taken = takeAll(done);
+        int count = 0;
+        for (Map<Integer, PendingWrite> writes : taken) {
+            count += writes.size();
+        }
+        try {
+            if (count > 0) {
+                spreadsheet.bulkUpdate(() -> {
+                    for (Map<Integer, PendingWrite> writes : taken) {
+                        for (PendingWrite write : writes.values()) {
+                            apply(write);
+                        }
+                    }
+                });
+                Log.debug("Feed drain applied {} cells", count);
+            }
+        } catch (RuntimeException e) {
+            for (CompletableFuture<Void> future : done) {
+                future.completeExceptionally(e);
+            }
+            throw e;
+        }
+        for (CompletableFuture<Void> future : done) {
+            future.complete(null);
+        }
+        return count;
+    }
+
+    private List<Map<Integer, PendingWrite>> takeAll(List<CompletableFuture<Void>> done) {
+        List<Map<Integer, PendingWrite>> taken = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe.lock) {
+                if (!stripe.pending.isEmpty()) {
+                    taken.add(stripe.pending);
+                    stripe.pending = new HashMap<>();
+                    done.add(stripe.applied);
+                    stripe.applied = new CompletableFuture<>();
+                }
+            }
+        }
+        return taken;
+    }
+
+    // ناحیه‌های پشت سر هم به قسمت‌های پشت سر هم می‌افتند
+    private int stripeOf(int row, int col) {
+        int region = (row >>> REGION_ROW_BITS) * regionColumns + col / REGION_COLS;
+        return region & (STRIPES - 1);
+    }
+
+    // همان دسته‌بندی setCellContent (با همان تشخیص عدد در Validationformula)، بدون دست زدن به جدول
+    private static PendingWrite prepare(int row, int col, String content) {
+        if (content == null || content.trim().isEmpty()) {
+            return new PendingWrite(row, col, "", CellType.EMPTY, null, null);
+        }
+        String trimmed = content.trim();
+        if (Validationformula.isFormula(trimmed)) {
+            try {
+                CompiledFormula compiled = Calculate.compile(Validationformula.extractFormula(trimmed));
+                return new PendingWrite(row, col, trimmed, CellType.FORMULA, null, compiled);
+            } catch (RuntimeException e) {
+                // فرمول نامعتبر از مسیر عادی می‌گذرد تا خطایش مثل ورود دستی ثبت شود
+                return new PendingWrite(row, col, trimmed, CellType.FORMULA, null, null);
+            }
+        }
+        if (Validationformula.isTextContent(trimmed)) {
+            return new PendingWrite(row, col, trimmed, CellType.TEXT, Validationformula.extractTextContent(trimmed), null);
+        }
+        double number = Validationformula.parseNumberContent(trimmed);
+        if (!Double.isNaN(number)) {
+            return new PendingWrite(row, col, trimmed, CellType.NUMBER, number, null);
+        }
+        return new PendingWrite(row, col, trimmed, CellType.TEXT, trimmed, null);
+    }
+
+    private void apply(PendingWrite write) {
+        if (write.type == CellType.FORMULA) {
+            if (write.compiled != null) {
+                spreadsheet.setCompiledFormula(write.row, write.col, write.compiled);
+            } else {
+                spreadsheet.setCellContent(write.row, write.col, write.raw);
+            }
+        } else if (!spreadsheet.loadConstant(write.row, write.col, write.type, write.raw, write.value)) {
+            // سلولی که فرمول داشته باید یال‌های گرافش را از دست بدهد
+            spreadsheet.setCellContent(write.row, write.col, write.raw);
+        }
+    }
+
+    private static class PendingWrite {
+        private final int row;
+        private final int col;
+        private final String raw;
+        private final CellType type;
+        private final Object value;
+        private final CompiledFormula compiled;
+
+        private PendingWrite(int row, int col, String raw, CellType type, Object value, CompiledFormula compiled) {
+            this.row = row;
+            this.col = col;
+            this.raw = raw;
+            this.type = type;
+            this.value = value;
+            this.compiled = compiled;
+        }
+    }
+}
@@ -2,41 +2,52 @@ package org.example.controller;
 
 import org.example.model.Cell;
 import org.example.model.CellType;
+import org.example.model.FormulaTemplate;
 import org.example.model.Spreadsheet;
 import org.example.utils.CellConverter;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
 import java.util.regex.Pattern;
 
 public class FillManager {
     private final Spreadsheet spreadsheet;
+    private static final MathContext SIGNIFICANT_DIGITS = new MathContext(15);
     private final Pattern cellRefPattern = Pattern.compile("[A-Za-z]\\d+");
 
     public FillManager(Spreadsheet spreadsheet) {
         this.spreadsheet = spreadsheet;
     }
 
-    public void autoFill(String sourceCell, String targetRange) {
-        validateParameters(sourceCell, targetRange);
-
-        int[] sourceCoords = CellConverter.fromCellReference(sourceCell);
-        Cell source = spreadsheet.getCell(sourceCoords[0], sourceCoords[1]);
+    // منبع می‌تواند یک سلول یا یک بلوک باشد؛ بلوک روی مقصد تکرار می‌شود و ستون (یا سطر) عددی
+    // با گام ثابت یا نسبت ثابت به صورت سری ادامه پیدا می‌کند
+    public void autoFill(String source, String targetRange) {
+        validateParameters(source, targetRange);
 
         String[] rangeParts = targetRange.split(":");
-        if (rangeParts.length != 2) {
-            throw new IllegalArgumentException("Invalid range format: " + targetRange);
-        }
-
         int[] startCoords = CellConverter.fromCellReference(rangeParts[0]);
         int[] endCoords = CellConverter.fromCellReference(rangeParts[1]);
-
         validateRange(startCoords, endCoords);
 
-        performAutoFill(source, sourceCoords, startCoords, endCoords);
+        performFill(parseArea(source), new int[]{startCoords[0], startCoords[1], endCoords[0], endCoords[1]});
+    }
+
+    // پر کردن رو به پایین تا آخرین سطر پر ستون مجاور (اول ستون چپ، بعد ستون راست)
+    public void fillDown(String source) {
+        if (!isValidArea(source)) {
+            throw new IllegalArgumentException("Invalid source: " + source);
+        }
+        int[] area = parseArea(source);
+        int lastRow = lastAdjacentRow(area);
+        if (lastRow <= area[2]) {
+            throw new IllegalArgumentException("No adjacent data below " + source + " to fill down to");
+        }
+        performFill(area, new int[]{area[0], area[1], lastRow, area[3]});
     }
 
-    private void validateParameters(String sourceCell, String targetRange) {
-        if (!spreadsheet.isValidCellReference(sourceCell)) {
-            throw new IllegalArgumentException("Invalid source cell: " + sourceCell);
+    private void validateParameters(String source, String targetRange) {
+        if (!isValidArea(source)) {
+            throw new IllegalArgumentException("Invalid source cell: " + source);
         }
 
         if (!targetRange.contains(":")) {
@@ -54,29 +65,194 @@ public class FillManager {
         }
     }
 
+    private boolean isValidArea(String area) {
+        String[] parts = area.split(":");
+        if (parts.length == 1) {
+            return spreadsheet.isValidCellReference(parts[0]);
+        }
+        return parts.length == 2 && spreadsheet.isValidCellReference(parts[0])
+                && spreadsheet.isValidCellReference(parts[1]);
+    }
+
+    // [سطر اول، ستون اول، سطر آخر، ستون آخر]
+    private int[] parseArea(String area) {
+        String[] parts = area.split(":");
+        int[] first = CellConverter.fromCellReference(parts[0]);
+        int[] last = parts.length == 2 ? CellConverter.fromCellReference(parts[1]) : first;
+        validateRange(first, last);
+        return new int[]{first[0], first[1], last[0], last[1]};
+    }
+
     private void validateRange(int[] start, int[] end) {
         if (start[0] > end[0] || start[1] > end[1]) {
             throw new IllegalArgumentException("Invalid range: start must be before end");
         }
     }
 
-    private void performAutoFill(Cell source, int[] sourceCoords, int[] startCoords, int[] endCoords) {
-        String sourceContent = source.getRawContent();
-        CellType sourceType = source.getCellType();
+    private int lastAdjacentRow(int[] area) {
+        int column = -1;
+        if (area[1] > 0 && !isBlank(area[0], area[1] - 1)) {
+            column = area[1] - 1;
+        } else if (area[3] + 1 < spreadsheet.getCols() && !isBlank(area[0], area[3] + 1)) {
+            column = area[3] + 1;
+        }
+        if (column < 0) {
+            return -1;
+        }
+        int row = area[0];
+        while (row + 1 < spreadsheet.getRows() && !isBlank(row + 1, column)) {
+            row++;
+        }
+        return row;
+    }
+
+    private boolean isBlank(int row, int col) {
+        return spreadsheet.getCell(row, col).getCellType() == CellType.EMPTY;
+    }
+
+    // هر فرمول منبع یک بار به قالب نسبی کامپایل می‌شود و مقصدها به همان قالب اشاره می‌کنند؛
+    // ثابت‌ها و اعداد سری مستقیم در سلول نوشته می‌شوند. کل عملیات یک تراکنش است
+    // (یک نقطه‌ی Undo و یک بار محاسبه‌ی سلول‌های تغییرکرده)
+    private void performFill(int[] source, int[] target) {
+        int height = source[2] - source[0] + 1;
+        int width = source[3] - source[1] + 1;
 
-        for (int row = startCoords[0]; row <= endCoords[0]; row++) {
-            for (int col = startCoords[1]; col <= endCoords[1]; col++) {
-                if (row == sourceCoords[0] && col == sourceCoords[1]) {
-                    continue;
+        Cell[][] cells = new Cell[height][width];
+        FormulaTemplate[][] templates = new FormulaTemplate[height][width];
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                cells[i][j] = spreadsheet.getCell(source[0] + i, source[1] + j);
+                if (cells[i][j].getCellType() == CellType.FORMULA) {
+                    templates[i][j] = templateOf(source[0] + i, source[1] + j);
                 }
+            }
+        }
 
-                String content = adjustContentForPosition(
-                        sourceContent, sourceType, sourceCoords, new int[]{row, col}
-                );
+        // سری در جهت طول منبع: ستون‌ها برای منبع عمودی، سطرها برای منبع افقی
+        boolean vertical = height >= 2;
+        boolean horizontal = !vertical && width >= 2;
+        Series[] series = new Series[vertical ? width : horizontal ? height : 0];
+        for (int line = 0; line < series.length; line++) {
+            series[line] = Series.detect(lineValues(cells, line, vertical));
+        }
+
+        spreadsheet.bulkUpdate(() -> {
+            for (int row = target[0]; row <= target[2]; row++) {
+                for (int col = target[1]; col <= target[3]; col++) {
+                    if (row >= source[0] && row <= source[2] && col >= source[1] && col <= source[3]) {
+                        continue;
+                    }
+
+                    int i = Math.floorMod(row - source[0], height);
+                    int j = Math.floorMod(col - source[1], width);
+                    Series line = vertical ? series[j] : horizontal ? series[i] : null;
 
-                String cellRef = CellConverter.toCellReference(row, col);
-                spreadsheet.setCellContent(cellRef, content);
+                    if (line != null) {
+                        writeNumber(row, col, line.at(vertical ? row - source[0] : col - source[1]));
+                    } else {
+                        copyCell(cells[i][j], templates[i][j], new int[]{source[0] + i, source[1] + j}, row, col);
+                    }
+                }
             }
+        });
+    }
+
+    // مقدارهای یک ستون یا سطر منبع؛ اگر همه عدد نباشند null
+    private double[] lineValues(Cell[][] cells, int line, boolean vertical) {
+        int length = vertical ? cells.length : cells[0].length;
+        double[] values = new double[length];
+        for (int k = 0; k < length; k++) {
+            Cell cell = vertical ? cells[k][line] : cells[line][k];
+            if (cell.getCellType() != CellType.NUMBER || cell.hasError()
+                    || !(cell.getComputedValue() instanceof Number)) {
+                return null;
+            }
+            values[k] = ((Number) cell.getComputedValue()).doubleValue();
+        }
+        return values;
+    }
+
+    private void copyCell(Cell source, FormulaTemplate template, int[] sourceCoords, int row, int col) {
+        CellType type = source.getCellType();
+        if (template != null && template.fits(row, col, spreadsheet.getRows(), spreadsheet.getCols())) {
+            spreadsheet.setFormulaTemplate(row, col, template);
+        } else if (type == CellType.FORMULA || source.hasError()
+                || !spreadsheet.loadConstant(row, col, type, source.getRawContent(), source.getComputedValue())) {
+            // ارجاعی که از جدول بیرون می‌زند مثل قبل دست‌نخورده می‌ماند، پس فرمول متنی لازم است
+            String content = adjustContentForPosition(
+                    source.getRawContent(), type, sourceCoords, new int[]{row, col}
+            );
+            spreadsheet.setCellContent(row, col, content);
+        }
+    }
+
+    // گرد کردن به 15 رقم معنادار تا خطای ممیز شناور (0.1 + 2 * 0.1) در متن سلول دیده نشود
+    private void writeNumber(int row, int col, double series) {
+        if (Double.isNaN(series) || Double.isInfinite(series)) {
+            spreadsheet.setCellContent(row, col, "");
+            return;
+        }
+        BigDecimal rounded = BigDecimal.valueOf(series).round(SIGNIFICANT_DIGITS).stripTrailingZeros();
+        String raw = rounded.scale() <= 0 && rounded.abs().compareTo(BigDecimal.valueOf(1e15)) < 0
+                ? rounded.toBigInteger().toString() : rounded.toString();
+        double value = rounded.doubleValue();
+        if (!spreadsheet.loadNumber(row, col, value, raw)) {
+            spreadsheet.setCellContent(row, col, raw);
+        }
+    }
+
+    // فرمول نامعتبر قالب ندارد و مثل قبل متنی کپی می‌شود
+    private FormulaTemplate templateOf(int row, int col) {
+        try {
+            return spreadsheet.templateFor(row, col);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // سری خطی (گام ثابت) یا هندسی (نسبت ثابت)؛ مقدار k از روی اندیس حساب می‌شود تا خطا جمع نشود
+    private static final class Series {
+        private final double first;
+        private final double step;
+        private final boolean growth;
+
+        private Series(double first, double step, boolean growth) {
+            this.first = first;
+            this.step = step;
+            this.growth = growth;
+        }
+
+        static Series detect(double[] values) {
+            if (values == null || values.length < 2) {
+                return null;
+            }
+            double step = values[1] - values[0];
+            boolean linear = true;
+            for (int k = 2; k < values.length && linear; k++) {
+                linear = close(values[k] - values[k - 1], step);
+            }
+            if (linear) {
+                return new Series(values[0], step, false);
+            }
+
+            if (values[0] == 0) {
+                return null;
+            }
+            double ratio = values[1] / values[0];
+            for (int k = 2; k < values.length; k++) {
+                if (!close(values[k], values[k - 1] * ratio)) {
+                    return null;
+                }
+            }
+            return new Series(values[0], ratio, true);
+        }
+
+        double at(int k) {
+            return growth ? first * Math.pow(step, k) : first + step * k;
+        }
+
+        private static boolean close(double a, double b) {
+            return Math.abs(a - b) <= 1e-9 * Math.max(1, Math.max(Math.abs(a), Math.abs(b)));
         }
     }
 
@@ -1,13 +1,16 @@
 package org.example.controller;
 
 import org.example.exceptions.InvalidFormulaException;
-import org.example.exceptions.InvalidReferenceException;
 import org.example.model.Cell;
+import org.example.model.CompiledFormula;
+import org.example.model.ErrorValue;
+import org.example.model.FormulaTemplate;
+import org.example.model.FormulaToken;
 import org.example.model.Spreadsheet;
-import org.example.model.Stack;
 import org.example.utils.AggregateFunctions;
+import org.example.utils.CellConverter;
 import org.example.utils.MathHelper;
-import org.example.utils.Validationformula;
+import org.example.utils.NumberParser;
 
 import java.util.List;
 
@@ -20,130 +23,189 @@ public class FormulaEvaluator {
 
     public Object evaluateFormula(String formula, String currentCell) {
         try {
-            List<String> postfixTokens = Calculate.infixToPostfix(formula);
-            Object result = evaluatePostfix(postfixTokens, currentCell);
-
-            return result;
-
+            int[] current = CellConverter.fromCellReference(currentCell);
+            return evaluatePostfix(Calculate.compile(formula).getPostfix(), 0, 0, current[0], current[1]);
         } catch (Exception e) {
             throw new InvalidFormulaException("Error evaluating formula: " + formula, e.getMessage());
         }
     }
 
-    private Object evaluatePostfix(List<String> postfixTokens, String currentCell) {
-        Stack<Object> valueStack = new Stack<>();
-
-        for (String token : postfixTokens) {
-            token = token.toUpperCase();
-
-            if (MathHelper.isNumber(token)) {
-                valueStack.push(MathHelper.parseNumber(token));
-            } else if (Calculate.isAggregateFunction(token)) {
-                double result = evaluateAggregateFunction(token);
-                valueStack.push(result);
-            } else if (MathHelper.isConstant(token)) {
-                valueStack.push(MathHelper.getConstantValue(token));
-            } else if (Calculate.isCellReference(token)) {
-                valueStack.push(getCellValue(token, currentCell));
-            } else if (MathHelper.isUnaryOrPostfixOperator(token)) {
-                // عملگرهای یوناری unary و پستفیکس
-                if (valueStack.isEmpty()) {
-                    throw new InvalidFormulaException("Insufficient operands for operator: " + token);
-                }
-                Object operand = valueStack.pop();
-                if (!(operand instanceof Double)) {
-                    throw new InvalidFormulaException("Operator " + token + " requires numeric operand");
-                }
-                double result = MathHelper.applyUnaryOrPostfixOperator(token, (Double) operand);
-                valueStack.push(result);
-            } else if ((token.startsWith("\"") && token.endsWith("\""))|| (token.startsWith("”") && token.endsWith("”"))) {
-                valueStack.push(token.substring(1, token.length() - 1));
-            } else {
-                // عملگرهای باینری
-                if (valueStack.size() < 2) {
-                    throw new InvalidFormulaException("Insufficient operands for binary operator: " + token);
-                }
-                Object b = valueStack.pop();
-                Object a = valueStack.pop();
-
-                if (!(a instanceof Double) || !(b instanceof Double)) {
-                    throw new InvalidFormulaException("Binary operators require numeric operands");
-                }
-
-                double result = MathHelper.applyOperation(token.charAt(0), (Double) a, (Double) b);
-                valueStack.push(result);
-            }
+    public Object evaluate(CompiledFormula formula, String currentCell) {
+        try {
+            int[] current = CellConverter.fromCellReference(currentCell);
+            return evaluatePostfix(formula.getPostfix(), 0, 0, current[0], current[1]);
+        } catch (Exception e) {
+            throw new InvalidFormulaException("Error evaluating formula: " + formula.getFormula(), e.getMessage());
         }
+    }
 
-        if (valueStack.size() != 1) {
-            throw new InvalidFormulaException("Invalid expression evaluation - stack has " + valueStack.size() + " items");
+    // قالب نسبی با لنگر (row, col) بدون ساختن نسخه‌ی مطلق محاسبه می‌شود
+    public Object evaluate(FormulaTemplate template, int row, int col) {
+        try {
+            return evaluatePostfix(template.getPostfix(), row, col, row, col);
+        } catch (Exception e) {
+            throw new InvalidFormulaException("Error evaluating formula: " + template.render(row, col), e.getMessage());
         }
-
-        Object result = valueStack.pop();
-        return result;
     }
 
-    private double evaluateAggregateFunction(String functionCall) {
-        String upperCall = functionCall.toUpperCase();
-
-        int parenStart = upperCall.indexOf('(');
-        int parenEnd = upperCall.lastIndexOf(')');
+    // اگر شکل کامپایل‌شده‌ی سلول با فرمول فعلی یکی باشد از همان استفاده می‌شود
+    public static CompiledFormula compiledFormulaFor(Cell cell, String formula) {
+        if (cell.getFormulaTemplate() != null) {
+            return cell.getFormulaTemplate().instantiate(cell.getAnchorRow(), cell.getAnchorCol());
+        }
+        CompiledFormula compiled = cell.getCompiledFormula();
+        if (compiled == null || !compiled.matches(formula)) {
+            compiled = Calculate.compile(formula);
+            cell.setCompiledFormula(compiled);
+        }
+        return compiled;
+    }
 
-        if (parenStart == -1 || parenEnd == -1) {
-            throw new IllegalArgumentException("Invalid function call: " + functionCall);
+    // نتیجه‌ی محاسبه در سلول نوشته می‌شود؛ مقدار خطا به نوع خطای سلول تبدیل می‌شود
+    public static void applyResult(Cell cell, Object result) {
+        if (result instanceof ErrorValue) {
+            ErrorValue error = (ErrorValue) result;
+            cell.setComputedValue(null);
+            cell.setErrorType(error.getType());
+            cell.setErrorMessage(error.getMessage());
+        } else {
+            cell.setComputedValue(result);
+            cell.clearError();
         }
+    }
 
-        String functionName = upperCall.substring(0, parenStart); // SUM
-        String range = upperCall.substring(parenStart + 1, parenEnd); // A1:A3
+    // پشته‌ی مقادیر دو آرایه‌ی موازی است: عدد بدون boxing، و متن یا ErrorValue (null یعنی مقدار عددی).
+    // خطاها مثل مقدار جابه‌جا می‌شوند و عملگر با دیدن اولین خطا همان را نتیجه می‌دهد.
+    // مختصات ارجاع‌ها با (rowOffset, colOffset) جمع می‌شوند؛ برای فرمول مطلق هر دو صفرند
+    private Object evaluatePostfix(List<FormulaToken> postfix, int rowOffset, int colOffset,
+                                   int currentRow, int currentCol) {
+        int size = postfix.size();
+        double[] numbers = new double[size];
+        Object[] others = new Object[size];
+        int top = 0;
+
+        for (int t = 0; t < size; t++) {
+            FormulaToken token = postfix.get(t);
+
+            switch (token.getType()) {
+                case NUMBER:
+                    others[top] = null;
+                    numbers[top++] = token.getNumber();
+                    break;
+                case TEXT:
+                    others[top++] = token.getTextValue();
+                    break;
+                case CELL:
+                    top = pushCellValue(token.getRow() + rowOffset, token.getCol() + colOffset,
+                            token.getRow() + rowOffset == currentRow && token.getCol() + colOffset == currentCol,
+                            numbers, others, top);
+                    break;
+                case FUNCTION:
+                    int firstRow = token.getRow() + rowOffset;
+                    int firstCol = token.getCol() + colOffset;
+                    int lastRow = token.getLastRow() + rowOffset;
+                    int lastCol = token.getLastCol() + colOffset;
+                    ErrorValue rangeError = AggregateFunctions.firstError(spreadsheet, firstRow, firstCol, lastRow, lastCol);
+                    others[top] = rangeError;
+                    numbers[top++] = rangeError != null ? 0 : AggregateFunctions.evaluate(token.getFunction(), spreadsheet,
+                            firstRow, firstCol, lastRow, lastCol);
+                    break;
+                case UNARY_OPERATOR:
+                case POSTFIX_OPERATOR:
+                    // عملگرهای یوناری unary و پستفیکس
+                    requireOperands(token, top, 1);
+                    if (others[top - 1] != null) {
+                        others[top - 1] = errorOf(others[top - 1]);
+                        break;
+                    }
+                    double operand = numbers[top - 1];
+                    if (token.getOperator() == '!' && (operand < 0 || operand != Math.floor(operand))) {
+                        others[top - 1] = ErrorValue.VALUE;
+                        break;
+                    }
+                    numbers[top - 1] = MathHelper.applyUnaryOrPostfixOperator(token.getText(), operand);
+                    break;
+                case BINARY_OPERATOR:
+                    requireOperands(token, top, 2);
+                    top--;
+                    if (others[top - 1] != null || others[top] != null) {
+                        others[top - 1] = others[top - 1] != null ? errorOf(others[top - 1]) : errorOf(others[top]);
+                        break;
+                    }
+                    ErrorValue error = checkOperation(token.getOperator(), numbers[top - 1], numbers[top]);
+                    if (error != null) {
+                        others[top - 1] = error;
+                    } else {
+                        numbers[top - 1] = MathHelper.applyOperation(token.getOperator(), numbers[top - 1], numbers[top]);
+                    }
+                    break;
+                default:
+                    throw new InvalidFormulaException("Unexpected token: " + token.getText());
+            }
+        }
 
-        if (!Validationformula.isValidRange(range)) {
-            throw new IllegalArgumentException("Invalid range format: " + range);
+        if (top != 1) {
+            throw new InvalidFormulaException("Invalid expression evaluation - stack has " + top + " items");
         }
 
-        switch (functionName) {
-            case "SUM":
-                return AggregateFunctions.sum(spreadsheet, range);
-            case "AVG":
-                return AggregateFunctions.average(spreadsheet, range);
-            case "MAX":
-                return AggregateFunctions.max(spreadsheet, range);
-            case "MIN":
-                return AggregateFunctions.min(spreadsheet, range);
-            case "COUNT":
-                return AggregateFunctions.count(spreadsheet, range);
-            default:
-                throw new IllegalArgumentException("Unknown function: " + functionName);
+        return others[0] != null ? others[0] : (Object) numbers[0];
+    }
+
+    // ساختار فرمول هنگام کامپایل بررسی شده؛ این فقط محافظ postfix خراب است
+    private void requireOperands(FormulaToken token, int available, int required) {
+        if (available < required) {
+            throw new InvalidFormulaException("Insufficient operands for operator: " + token.getText());
         }
     }
 
-    private double getCellValue(String cellReference, String currentCell) {
-        String normalizedRef = cellReference.toUpperCase();
+    // متن در عملیات ریاضی #VALUE! است و خطا همان خطا می‌ماند
+    private ErrorValue errorOf(Object value) {
+        return value instanceof ErrorValue ? (ErrorValue) value : ErrorValue.VALUE;
+    }
 
-        if (normalizedRef.equals(currentCell)) {
-            throw new InvalidFormulaException("Invalid formula: " + cellReference);
+    // حالت‌هایی که MathHelper برایشان استثنا پرتاب می‌کند، پیش از محاسبه به مقدار خطا تبدیل می‌شوند
+    private ErrorValue checkOperation(char operator, double a, double b) {
+        if (operator == '/' && b == 0) {
+            return ErrorValue.DIV_ZERO;
+        }
+        if (operator == '^') {
+            if (a == 0 && b < 0) return ErrorValue.DIV_ZERO;
+            if (a < 0 && b != Math.floor(b)) return ErrorValue.VALUE;
         }
+        return null;
+    }
 
-        Cell cell = spreadsheet.getCell(normalizedRef);
-        if (cell == null) {
-            throw new InvalidReferenceException("Cell not found: " + normalizedRef);
+    private int pushCellValue(int row, int col, boolean self, double[] numbers, Object[] others, int top) {
+        if (self) {
+            others[top] = ErrorValue.CIRC;
+            return top + 1;
+        }
+        if (!spreadsheet.isValidCoordinate(row, col)) {
+            others[top] = ErrorValue.REF;
+            return top + 1;
         }
 
+        Cell cell = spreadsheet.getCell(row, col);
         if (cell.hasError()) {
-            throw new InvalidReferenceException("Cell " + normalizedRef + " has error: " + cell.getErrorMessage());
+            others[top] = ErrorValue.of(cell.getErrorType());
+            return top + 1;
         }
 
-        try {
-            return cell.getNumericValue();
-        } catch (IllegalStateException e) {
-            throw new InvalidReferenceException("Cell " + normalizedRef + " does not contain numeric value: " + e.getMessage());
+        Object value = cell.getComputedValue();
+        double number = value instanceof Number ? ((Number) value).doubleValue()
+                : value instanceof String ? NumberParser.parse((String) value) : Double.NaN;
+        if (Double.isNaN(number) && !(value instanceof Number)) {
+            others[top] = ErrorValue.VALUE;
+        } else {
+            others[top] = null;
+            numbers[top] = number;
         }
+        return top + 1;
     }
 
     public void updateCellFormula(Cell cell, String formula, String currentCellRef) {
         try {
-            Object result = evaluateFormula(formula, currentCellRef);
-            cell.setComputedValue(result);
-            cell.clearError();
+            applyResult(cell, evaluate(compiledFormulaFor(cell, formula), currentCellRef));
         } catch (Exception e) {
             cell.setComputedValue(null);
             throw e;
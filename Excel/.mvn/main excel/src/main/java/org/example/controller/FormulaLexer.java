@@ -0,0 +1,251 @@
+package org.example.controller;
+
+import org.example.exceptions.InvalidFormulaException;
+import org.example.model.FormulaToken;
+import org.example.model.FormulaToken.Function;
+import org.example.model.FormulaToken.Type;
+import org.example.utils.MathHelper;
+import org.example.utils.NumberParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// تجزیه‌ی تک‌گذره‌ی فرمول روی char[] به توکن‌های نوع‌دار، بدون عبارت منظم و بدون استثنا برای اعداد
+public class FormulaLexer {
+    private static final int MAX_ROW_DIGITS = 9;
+
+    public static List<FormulaToken> tokenize(String formula) {
+        return tokenize(formula.toCharArray(), 0, formula.length());
+    }
+
+    public static List<FormulaToken> tokenize(char[] chars, int start, int end) {
+        List<FormulaToken> tokens = new ArrayList<>();
+        boolean afterValue = false;
+        int i = start;
+
+        while (i < end) {
+            char c = chars[i];
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"' || c == '”') {
+                int close = indexOf(chars, c, i + 1, end);
+                if (close < 0) {
+                    throw new InvalidFormulaException("Unterminated text in formula");
+                }
+                tokens.add(FormulaToken.text(new String(chars, i, close - i + 1)));
+                i = close + 1;
+                afterValue = true;
+            } else if (isDigit(c) || c == '.') {
+                i = readNumber(chars, i, end, tokens);
+                afterValue = true;
+            } else if (isAsciiLetter(c)) {
+                i = readName(chars, i, end, tokens);
+                afterValue = true;
+            } else if (c == '+' || c == '-') {
+                tokens.add(FormulaToken.operator(afterValue ? Type.BINARY_OPERATOR : Type.UNARY_OPERATOR, c));
+                afterValue = false;
+                i++;
+            } else if (c == '*' || c == '/' || c == '^') {
+                tokens.add(FormulaToken.operator(Type.BINARY_OPERATOR, c));
+                afterValue = false;
+                i++;
+            } else if (c == '!') {
+                // فاکتوریل پسوندی است و بعد از آن هنوز یک مقدار داریم
+                tokens.add(FormulaToken.operator(Type.POSTFIX_OPERATOR, c));
+                i++;
+            } else if (c == '(') {
+                tokens.add(FormulaToken.operator(Type.LEFT_PAREN, c));
+                afterValue = false;
+                i++;
+            } else if (c == ')') {
+                tokens.add(FormulaToken.operator(Type.RIGHT_PAREN, c));
+                afterValue = true;
+                i++;
+            } else if (c == ',') {
+                tokens.add(FormulaToken.operator(Type.COMMA, c));
+                afterValue = false;
+                i++;
+            } else {
+                throw new InvalidFormulaException("Unexpected character '" + c + "' in formula");
+            }
+        }
+        return tokens;
+    }
+
+    // بازسازی یک توکن از متن ذخیره‌شده‌ی آن (getText)
+    public static FormulaToken fromText(String text) {
+        if (text.length() == 2 && text.charAt(0) == 'U' && (text.charAt(1) == '+' || text.charAt(1) == '-')) {
+            return FormulaToken.operator(Type.UNARY_OPERATOR, text.charAt(1));
+        }
+        if (text.length() == 1 && "+-*/^".indexOf(text.charAt(0)) >= 0) {
+            return FormulaToken.operator(Type.BINARY_OPERATOR, text.charAt(0));
+        }
+        List<FormulaToken> tokens = tokenize(text);
+        if (tokens.size() != 1) {
+            throw new InvalidFormulaException("Invalid token: " + text);
+        }
+        return tokens.get(0);
+    }
+
+    private static int readNumber(char[] chars, int i, int end, List<FormulaToken> tokens) {
+        int start = i;
+        while (i < end && isDigit(chars[i])) i++;
+        if (i < end && chars[i] == '.') {
+            i++;
+            while (i < end && isDigit(chars[i])) i++;
+        }
+        if (i + 1 < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            int exponent = i + 1;
+            if (exponent < end && (chars[exponent] == '+' || chars[exponent] == '-')) exponent++;
+            if (exponent < end && isDigit(chars[exponent])) {
+                i = exponent;
+                while (i < end && isDigit(chars[i])) i++;
+            }
+        }
+
+        double value = NumberParser.parse(chars, start, i);
+        if (Double.isNaN(value) || (i < end && isNameChar(chars[i]))) {
+            throw new InvalidFormulaException("Invalid number in formula: " + new String(chars, start, end - start));
+        }
+        tokens.add(FormulaToken.number(new String(chars, start, i - start), value));
+        return i;
+    }
+
+    // ارجاع سلولی، محدوده، تابع تجمعی یا ثابت
+    private static int readName(char[] chars, int i, int end, List<FormulaToken> tokens) {
+        int start = i;
+        while (i < end && isAsciiLetter(chars[i])) i++;
+        int nameEnd = i;
+        while (i < end && isDigit(chars[i])) i++;
+
+        if (i > nameEnd) {
+            if (nameEnd - start != 1 || i - nameEnd > MAX_ROW_DIGITS || (i < end && isNameChar(chars[i]))) {
+                throw new InvalidFormulaException("Invalid cell reference: " + new String(chars, start, i - start));
+            }
+            int col = Character.toUpperCase(chars[start]) - 'A';
+            int row = parseRow(chars, nameEnd, i);
+
+            int colon = skipSpaces(chars, i, end);
+            if (colon < end && chars[colon] == ':') {
+                int[] last = new int[2];
+                int rangeEnd = readCell(chars, skipSpaces(chars, colon + 1, end), end, last);
+                if (rangeEnd < 0) {
+                    throw new InvalidFormulaException("Invalid range in formula");
+                }
+                tokens.add(FormulaToken.range(row, col, last[0], last[1]));
+                return rangeEnd;
+            }
+            tokens.add(FormulaToken.cell(row, col));
+            return i;
+        }
+
+        Function function = functionOf(chars, start, nameEnd);
+        int open = skipSpaces(chars, nameEnd, end);
+        if (function != null && open < end && chars[open] == '(') {
+            return readFunction(chars, function, open, end, tokens);
+        }
+
+        if (nameEnd - start == 2 && matches(chars, start, "PI")) {
+            tokens.add(FormulaToken.number("PI", MathHelper.PI));
+        } else if (nameEnd - start == 1 && (chars[start] == 'E' || chars[start] == 'e')) {
+            tokens.add(FormulaToken.number("E", MathHelper.E));
+        } else {
+            throw new InvalidFormulaException("Unknown name in formula: " + new String(chars, start, nameEnd - start));
+        }
+        return nameEnd;
+    }
+
+    // توابع تجمعی فقط یک محدوده می‌گیرند؛ کل فراخوانی یک توکن است
+    private static int readFunction(char[] chars, Function function, int open, int end, List<FormulaToken> tokens) {
+        int i = skipSpaces(chars, open + 1, end);
+        int[] first = new int[2];
+        int[] last = new int[2];
+
+        i = readCell(chars, i, end, first);
+        if (i >= 0) {
+            i = skipSpaces(chars, i, end);
+            i = i < end && chars[i] == ':' ? readCell(chars, skipSpaces(chars, i + 1, end), end, last) : -1;
+        }
+        if (i >= 0) {
+            i = skipSpaces(chars, i, end);
+        }
+        if (i < 0 || i >= end || chars[i] != ')') {
+            int close = indexOf(chars, ')', open, end);
+            String argument = new String(chars, open + 1, (close < 0 ? end : close) - open - 1);
+            throw new InvalidFormulaException("Invalid range format: " + argument.trim());
+        }
+
+        tokens.add(FormulaToken.function(function, first[0], first[1], last[0], last[1]));
+        return i + 1;
+    }
+
+    // یک آدرس تک‌حرفی را می‌خواند و [سطر، ستون] را در result می‌نویسد؛ اگر معتبر نباشد -1
+    private static int readCell(char[] chars, int i, int end, int[] result) {
+        if (i >= end || !isAsciiLetter(chars[i])) {
+            return -1;
+        }
+        int digitsStart = i + 1;
+        int digitsEnd = digitsStart;
+        while (digitsEnd < end && isDigit(chars[digitsEnd])) digitsEnd++;
+        if (digitsEnd == digitsStart || digitsEnd - digitsStart > MAX_ROW_DIGITS
+                || (digitsEnd < end && isNameChar(chars[digitsEnd]))) {
+            return -1;
+        }
+        result[0] = parseRow(chars, digitsStart, digitsEnd);
+        result[1] = Character.toUpperCase(chars[i]) - 'A';
+        return digitsEnd;
+    }
+
+    private static int parseRow(char[] chars, int start, int end) {
+        int row = 0;
+        for (int i = start; i < end; i++) {
+            row = row * 10 + (chars[i] - '0');
+        }
+        return row - 1;
+    }
+
+    private static Function functionOf(char[] chars, int start, int end) {
+        for (Function function : Function.values()) {
+            String name = function.name();
+            if (end - start == name.length() && matches(chars, start, name)) {
+                return function;
+            }
+        }
+        return null;
+    }
+
+    // مقایسه‌ی بدون حساسیت به بزرگی حروف با نام بزرگ‌حرف
+    private static boolean matches(char[] chars, int start, String upperName) {
+        for (int k = 0; k < upperName.length(); k++) {
+            if (Character.toUpperCase(chars[start + k]) != upperName.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(char[] chars, char target, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (chars[i] == target) return i;
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(char[] chars, int i, int end) {
+        while (i < end && Character.isWhitespace(chars[i])) i++;
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isNameChar(char c) {
+        return isAsciiLetter(c) || isDigit(c) || c == '.' || c == '_';
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.controller;
+
+public class ImportStats {
+    private final long rows;
+    private final long cells;
+    private final long skippedRows;
+    private final long elapsedNanos;
+
+    public ImportStats(long rows, long cells, long skippedRows, long elapsedNanos) {
+        this.rows = rows;
+        this.cells = cells;
+        this.skippedRows = skippedRows;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getCells() {
+        return cells;
+    }
+
+    public long getSkippedRows() {
+        return skippedRows;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows (%d cells) in %.1f ms - %.0f rows/sec%s",
+                rows, cells, elapsedNanos / 1_000_000.0, getRowsPerSecond(),
+                skippedRows > 0 ? " (" + skippedRows + " rows outside the grid skipped)" : "");
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.controller;
+
+import org.example.model.Spreadsheet;
+import org.example.utils.CellConverter;
+import org.example.utils.DoubleFormatter;
+import org.example.utils.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// اتصال زنده‌ی سلول‌های ورودی به جریان تیک‌ها: push فقط آخرین مقدار ورودی را جایگزین می‌کند و اگر ورودی
+// از آخرین اعمال به بعد تغییری نداشته، یک بار در صف بدون قفل می‌نشیند. اعمال روی نخ نویسنده در هر
+// بازه‌ی interval (یا زودتر وقتی batchSize ورودی متفاوت منتظرند) با یک bulkUpdate انجام می‌شود، پس هزینه‌ی
+// هر بازه به تعداد سلول‌های تغییرکرده بستگی دارد نه به تعداد تیک‌ها. زمان‌سنج با start شروع می‌شود
+public final class LiveBinding implements AutoCloseable {
+    private final Spreadsheet spreadsheet;
+    private final Executor writer;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final ScheduledExecutorService timer;
+
+    private final Map<Integer, Input> inputs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Input> changed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger changedCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    public LiveBinding(Spreadsheet spreadsheet, Executor writer, long intervalMillis, int batchSize) {
+        if (intervalMillis <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Interval and batch size must be positive");
+        }
+        this.spreadsheet = spreadsheet;
+        this.writer = writer;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-binding-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // بدون start فقط رسیدن batchSize ورودی یا flush دستی اعمال می‌کند
+    public LiveBinding start() {
+        timer.scheduleAtFixedRate(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    // اتصال دوباره‌ی همان سلول همان ورودی را برمی‌گرداند
+    public Input bind(String cellReference) {
+        if (!spreadsheet.isValidCellReference(cellReference)) {
+            throw new IllegalArgumentException("Invalid cell reference: " + cellReference);
+        }
+        int[] coordinates = CellConverter.fromCellReference(cellReference);
+        return bind(coordinates[0], coordinates[1]);
+    }
+
+    public Input bind(int row, int col) {
+        if (!spreadsheet.isValidCoordinate(row, col)) {
+            throw new IndexOutOfBoundsException("Invalid cell coordinates: (" + row + ", " + col + ")");
+        }
+        return inputs.computeIfAbsent(row * spreadsheet.getCols() + col, key -> new Input(row, col));
+    }
+
+    public void unbind(Input input) {
+        inputs.remove(input.row * spreadsheet.getCols() + input.col, input);
+    }
+
+    public long getTickCount() {
+        return ticks.sum();
+    }
+
+    // تعداد نوشتن‌های واقعی در جدول؛ با ادغام تیک‌ها خیلی کمتر از getTickCount است
+    public long getAppliedCount() {
+        return applied.sum();
+    }
+
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    // فقط روی نخ نویسنده؛ ورودی‌ای که وسط اعمال تیک بخورد دوباره در صف می‌نشیند
+    public int flush() {
+        flushScheduled.set(false);
+        List<Input> batch = new ArrayList<>();
+        Input input;
+        while ((input = changed.poll()) != null) {
+            // اول علامت برداشته می‌شود، بعد مقدار خوانده می‌شود تا هیچ تیکی گم نشود
+            input.queued.set(false);
+            batch.add(input);
+        }
+        changedCount.addAndGet(-batch.size());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        spreadsheet.bulkUpdate(() -> {
+            for (Input next : batch) {
+                double value = Double.longBitsToDouble(next.latest.get());
+                String raw = DoubleFormatter.toString(value, DoubleFormatter.MAX_FRACTION_DIGITS);
+                if (!spreadsheet.loadNumber(next.row, next.col, value, raw)) {
+                    // فرمول قبلی سلول باید از گراف وابستگی برداشته شود
+                    spreadsheet.setCellContent(next.row, next.col, raw);
+                }
+            }
+        });
+        applied.add(batch.size());
+        flushes.increment();
+        Log.debug("Live binding applied {} inputs", batch.size());
+        return batch.size();
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private void tick() {
+        if (changedCount.get() > 0) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            writer.execute(this::flush);
+        }
+    }
+
+    // یک سلول ورودی متصل؛ push از هر نخی و بدون قفل صدا زده می‌شود
+    public final class Input {
+        private final int row;
+        private final int col;
+        private final AtomicLong latest = new AtomicLong();
+        private final AtomicBoolean queued = new AtomicBoolean();
+
+        private Input(int row, int col) {
+            this.row = row;
+            this.col = col;
+        }
+
+        // NaN و بی‌نهایت به شکل متن در جدول می‌نشستند و بعد از بارگذاری دیگر عدد نبودند
+        public void push(double value) {
+            if (!Double.isFinite(value)) {
+                throw new IllegalArgumentException("Live value must be finite: " + value);
+            }
+            latest.set(Double.doubleToRawLongBits(value));
+            ticks.increment();
+            if (queued.compareAndSet(false, true)) {
+                changed.add(this);
+                if (changedCount.incrementAndGet() >= batchSize) {
+                    scheduleFlush();
+                }
+            }
+        }
+
+        public String getCellReference() {
+            return CellConverter.toCellReference(row, col);
+        }
+    }
+}
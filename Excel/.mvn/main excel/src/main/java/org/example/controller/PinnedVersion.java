@@ -0,0 +1,105 @@
+package org.example.controller;
+
+import javafx.application.Platform;
+import org.example.model.CellVersion;
+import org.example.model.SheetChangeListener;
+import org.example.model.SheetVersion;
+import org.example.model.Spreadsheet;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+// نسخه‌ای از جدول که نخ JavaFX از آن رسم می‌کند. خود نسخه‌ی منتشرشده نگه داشته می‌شود و کپی جدایی در کار
+// نیست؛ وقتی دستوری روی نخ پس‌زمینه در حال محاسبه است جدول همان آخرین نسخه‌ی کامل را نشان می‌دهد.
+// اعلان‌های بین دو فریم با یک Platform.runLater یکی می‌شوند: آخرین نسخه جایگزین می‌شود و اندیس‌های
+// تغییرکرده‌ی همه‌شان یکجا به ناظرها می‌رسد
+public final class PinnedVersion {
+    private final Spreadsheet spreadsheet;
+    private final List<Consumer<BitSet>> observers = new ArrayList<>();
+    private final SheetChangeListener listener = this::onCellsChanged;
+    // فقط روی نخ JavaFX
+    private SheetVersion version;
+
+    private final Object pendingLock = new Object();
+    private SheetVersion latest;
+    private BitSet pendingCells = new BitSet();
+    private boolean updateScheduled;
+
+    private PinnedVersion(Spreadsheet spreadsheet) {
+        this.spreadsheet = spreadsheet;
+    }
+
+    // شنونده پیش از خواندن نسخه‌ی فعلی ثبت می‌شود تا هیچ انتشاری بین این دو گم نشود
+    public static PinnedVersion attach(Spreadsheet spreadsheet) {
+        PinnedVersion pinned = new PinnedVersion(spreadsheet);
+        spreadsheet.addChangeListener(pinned.listener);
+        pinned.version = spreadsheet.currentVersion();
+        return pinned;
+    }
+
+    public Spreadsheet getSpreadsheet() {
+        return spreadsheet;
+    }
+
+    public int getRows() {
+        return version.getRows();
+    }
+
+    public int getCols() {
+        return version.getCols();
+    }
+
+    // null یعنی سلول در نسخه‌ی نمایش‌داده‌شده خالی است
+    public CellVersion get(int row, int col) {
+        return version.getCell(row, col);
+    }
+
+    // ناظر روی نخ JavaFX با اندیس سلول‌هایی که در این فریم عوض شده‌اند صدا زده می‌شود
+    public void addObserver(Consumer<BitSet> observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(Consumer<BitSet> observer) {
+        observers.remove(observer);
+    }
+
+    public void dispose() {
+        spreadsheet.removeChangeListener(listener);
+        observers.clear();
+    }
+
+    private void onCellsChanged(SheetVersion next, int[] cells) {
+        synchronized (pendingLock) {
+            latest = next;
+            for (int cell : cells) {
+                pendingCells.set(cell);
+            }
+            if (updateScheduled) {
+                return;
+            }
+            updateScheduled = true;
+        }
+        Platform.runLater(this::applyPending);
+    }
+
+    private void applyPending() {
+        SheetVersion next;
+        BitSet dirty;
+        synchronized (pendingLock) {
+            updateScheduled = false;
+            next = latest;
+            dirty = pendingCells;
+            latest = null;
+            pendingCells = new BitSet();
+        }
+        if (next == null || next.getEpoch() <= version.getEpoch()) {
+            return;
+        }
+        version = next;
+        for (Consumer<BitSet> observer : new ArrayList<>(observers)) {
+            observer.accept(dirty);
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package org.example.controller;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Orientation;
+import javafx.geometry.Rectangle2D;
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+import org.example.model.CellVersion;
+import org.example.model.CellType;
+import org.example.utils.CellConverter;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// جدول رسم‌شده مستقیم روی Canvas برای جدول‌های خیلی بزرگ؛ فقط ناحیه‌ی دیده‌شده از روی نسخه‌ی نگه‌داشته‌شده کشیده می‌شود.
+// تغییر سلول‌ها فقط مستطیل همان سلول‌ها را دوباره می‌کشد و پیمایش، تصویر قبلی را جابه‌جا می‌کند
+// و فقط نوار تازه‌ی ظاهرشده را رسم می‌کند. همه‌ی رسم‌ها در AnimationTimer و حداکثر یک بار در هر فریم انجام می‌شوند
+public final class SpreadsheetCanvas extends Region {
+    private static final double CELL_WIDTH = 100;
+    private static final double CELL_HEIGHT = 25;
+    private static final double ROW_HEADER_WIDTH = 60;
+    private static final double COLUMN_HEADER_HEIGHT = 25;
+    private static final double TEXT_PADDING = 4;
+    private static final int TEXT_CACHE_SIZE = 4096;
+    private static final String ELLIPSIS = "…";
+
+    // همان رنگ‌های جدول TableView برای هر نوع سلول
+    private static final Color ERROR_BACKGROUND = Color.web("#ffc8c8");
+    private static final Color FORMULA_BACKGROUND = Color.web("#dcf0ff");
+    private static final Color TEXT_BACKGROUND = Color.web("#ffffdc");
+    private static final Color NUMBER_BACKGROUND = Color.web("#dcffdc");
+    private static final Color HEADER_BACKGROUND = Color.web("#eeeeee");
+    private static final Color GRID_LINE = Color.LIGHTGRAY;
+    private static final Color SELECTION = Color.web("#1a73e8");
+
+    private final Canvas canvas = new Canvas();
+    private final ScrollBar vertical = new ScrollBar();
+    private final ScrollBar horizontal = new ScrollBar();
+    private final Label fpsLabel = new Label();
+    private final Font font = Font.font("System", 12);
+    private final Text measure = new Text();
+
+    // متن کوتاه‌شده‌ی هر مقدار برای عرض ثابت سلول؛ اندازه‌گیری متن گران است و مقدارها زیاد تکرار می‌شوند
+    private final Map<String, String> fittedText = new LinkedHashMap<>(TEXT_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > TEXT_CACHE_SIZE;
+        }
+    };
+
+    // سلول‌هایی که تا فریم بعد باید دوباره کشیده شوند (تغییر مقدار یا انتخاب)
+    private final BitSet dirtyCells = new BitSet();
+    private final Consumer<BitSet> displayObserver = dirtyCells::or;
+
+    private PinnedVersion display;
+    private int firstRow;
+    private int firstCol;
+    private int paintedRow = -1;
+    private int paintedCol = -1;
+    private boolean fullRepaint = true;
+    private WritableImage scrollBuffer;
+
+    private int selectedRow;
+    private int selectedCol;
+    private Runnable onEdit;
+    private BiConsumer<Integer, Integer> onViewportChanged;
+
+    private boolean showFps;
+    private long frameCountStart;
+    private int frameCount;
+    private double fps;
+    private double lastRenderMillis;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            renderFrame(now);
+        }
+    };
+
+    // جدول کامل ساخته می‌شود و بعد به نسخه وصل و زمان‌سنج رسمش روشن می‌شود
+    public static SpreadsheetCanvas create(PinnedVersion display) {
+        SpreadsheetCanvas grid = new SpreadsheetCanvas();
+        grid.setDisplay(display);
+        grid.timer.start();
+        return grid;
+    }
+
+    private SpreadsheetCanvas() {
+        measure.setFont(font);
+        vertical.setOrientation(Orientation.VERTICAL);
+        horizontal.setOrientation(Orientation.HORIZONTAL);
+        vertical.valueProperty().addListener((obs, oldValue, newValue) -> firstRow = newValue.intValue());
+        horizontal.valueProperty().addListener((obs, oldValue, newValue) -> firstCol = newValue.intValue());
+        canvas.widthProperty().addListener((obs, oldValue, newValue) -> resized());
+        canvas.heightProperty().addListener((obs, oldValue, newValue) -> resized());
+
+        fpsLabel.setStyle("-fx-background-color: rgba(0, 0, 0, 0.65); -fx-text-fill: white; "
+                + "-fx-font-family: monospace; -fx-padding: 2 6 2 6;");
+        fpsLabel.setMouseTransparent(true);
+        fpsLabel.setVisible(false);
+
+        canvas.setOnScroll(event -> vertical.setValue(clamp(vertical.getValue() - Math.signum(event.getDeltaY()) * 3,
+                vertical.getMin(), vertical.getMax())));
+        canvas.setOnMouseClicked(event -> {
+            int row = firstRow + (int) ((event.getY() - COLUMN_HEADER_HEIGHT) / CELL_HEIGHT);
+            int col = firstCol + (int) ((event.getX() - ROW_HEADER_WIDTH) / CELL_WIDTH);
+            if (event.getX() < ROW_HEADER_WIDTH || event.getY() < COLUMN_HEADER_HEIGHT
+                    || row >= this.display.getRows() || col >= this.display.getCols()) {
+                return;
+            }
+            select(row, col);
+            if (event.getClickCount() == 2 && onEdit != null) {
+                onEdit.run();
+            }
+        });
+
+        getChildren().addAll(canvas, vertical, horizontal, fpsLabel);
+    }
+
+    public void setDisplay(PinnedVersion newDisplay) {
+        if (display != null) {
+            display.removeObserver(displayObserver);
+        }
+        display = newDisplay;
+        display.addObserver(displayObserver);
+        dirtyCells.clear();
+        selectedRow = 0;
+        selectedCol = 0;
+        vertical.setMin(0);
+        vertical.setMax(display.getRows() - 1);
+        vertical.setValue(0);
+        horizontal.setMin(0);
+        horizontal.setMax(display.getCols() - 1);
+        horizontal.setValue(0);
+        updateScrollIncrements();
+        fullRepaint = true;
+    }
+
+    // توقف رسم و قطع اشتراک؛ بعد از برداشتن جدول از صحنه صدا زده شود
+    public void dispose() {
+        timer.stop();
+        display.removeObserver(displayObserver);
+    }
+
+    public void setOnEdit(Runnable onEdit) {
+        this.onEdit = onEdit;
+    }
+
+    // با اولین و آخرین سطر دیدنی، هر بار که پنجره جابه‌جا یا کامل دوباره کشیده می‌شود
+    public void setOnViewportChanged(BiConsumer<Integer, Integer> onViewportChanged) {
+        this.onViewportChanged = onViewportChanged;
+    }
+
+    public void setShowFps(boolean show) {
+        showFps = show;
+        fpsLabel.setVisible(show);
+        frameCount = 0;
+        frameCountStart = 0;
+    }
+
+    public int getSelectedRow() {
+        return selectedRow;
+    }
+
+    public int getSelectedCol() {
+        return selectedCol;
+    }
+
+    public void select(int row, int col) {
+        dirtyCells.set(selectedRow * display.getCols() + selectedCol);
+        dirtyCells.set(row * display.getCols() + col);
+        selectedRow = row;
+        selectedCol = col;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double barWidth = vertical.prefWidth(-1);
+        double barHeight = horizontal.prefHeight(-1);
+        double width = Math.max(0, getWidth() - barWidth);
+        double height = Math.max(0, getHeight() - barHeight);
+
+        canvas.setWidth(width);
+        canvas.setHeight(height);
+        vertical.resizeRelocate(width, 0, barWidth, height);
+        horizontal.resizeRelocate(0, height, width, barHeight);
+
+        fpsLabel.autosize();
+        fpsLabel.relocate(width - fpsLabel.getWidth() - 8, COLUMN_HEADER_HEIGHT + 8);
+    }
+
+    private void resized() {
+        updateScrollIncrements();
+        fullRepaint = true;
+    }
+
+    private void updateScrollIncrements() {
+        vertical.setUnitIncrement(1);
+        vertical.setBlockIncrement(Math.max(1, visibleRows() - 1));
+        vertical.setVisibleAmount(Math.min(visibleRows(), display.getRows()));
+        horizontal.setUnitIncrement(1);
+        horizontal.setBlockIncrement(Math.max(1, visibleCols() - 1));
+        horizontal.setVisibleAmount(Math.min(visibleCols(), display.getCols()));
+    }
+
+    private int visibleRows() {
+        return Math.max(0, (int) Math.ceil((canvas.getHeight() - COLUMN_HEADER_HEIGHT) / CELL_HEIGHT));
+    }
+
+    private int visibleCols() {
+        return Math.max(0, (int) Math.ceil((canvas.getWidth() - ROW_HEADER_WIDTH) / CELL_WIDTH));
+    }
+
+    private void renderFrame(long now) {
+        if (showFps) {
+            countFrame(now);
+        }
+
+        BitSet dirty = null;
+        if (!dirtyCells.isEmpty()) {
+            dirty = (BitSet) dirtyCells.clone();
+            dirtyCells.clear();
+        }
+        boolean scrolled = firstRow != paintedRow || firstCol != paintedCol;
+        if (!fullRepaint && !scrolled && dirty == null) {
+            return;
+        }
+        if (canvas.getWidth() <= 0 || canvas.getHeight() <= 0) {
+            return;
+        }
+
+        long begin = System.nanoTime();
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        boolean moved = fullRepaint || paintedRow < 0 || firstRow != paintedRow;
+        if (fullRepaint || paintedRow < 0) {
+            paintAll(g);
+        } else {
+            if (scrolled) {
+                scroll(g, firstRow - paintedRow, firstCol - paintedCol);
+            }
+            if (dirty != null) {
+                paintDirty(g, dirty);
+            }
+        }
+        fullRepaint = false;
+        paintedRow = firstRow;
+        paintedCol = firstCol;
+        lastRenderMillis = (System.nanoTime() - begin) / 1_000_000.0;
+        if (moved && onViewportChanged != null) {
+            onViewportChanged.accept(firstRow, Math.min(display.getRows(), firstRow + visibleRows()) - 1);
+        }
+    }
+
+    private void countFrame(long now) {
+        if (frameCountStart == 0) {
+            frameCountStart = now;
+        }
+        frameCount++;
+        long elapsed = now - frameCountStart;
+        if (elapsed >= 500_000_000L) {
+            fps = frameCount * 1_000_000_000.0 / elapsed;
+            frameCount = 0;
+            frameCountStart = now;
+            fpsLabel.setText(String.format("%.0f fps | render %.2f ms", fps, lastRenderMillis));
+        }
+    }
+
+    private void paintAll(GraphicsContext g) {
+        g.setFill(Color.WHITE);
+        g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        paintHeaders(g);
+        paintBlock(g, firstRow, firstRow + visibleRows(), firstCol, firstCol + visibleCols());
+    }
+
+    // جابه‌جایی تصویر بدنه‌ی جدول با snapshot در یک تصویر بازاستفاده‌شونده و رسم نوار تازه؛
+    // پیمایش قطری یا بیشتر از یک صفحه همه را دوباره می‌کشد
+    private void scroll(GraphicsContext g, int rowDelta, int colDelta) {
+        int rowCount = visibleRows();
+        int colCount = visibleCols();
+        if ((rowDelta != 0 && colDelta != 0) || Math.abs(rowDelta) >= rowCount || Math.abs(colDelta) >= colCount) {
+            paintAll(g);
+            return;
+        }
+
+        double bodyWidth = canvas.getWidth() - ROW_HEADER_WIDTH;
+        double bodyHeight = canvas.getHeight() - COLUMN_HEADER_HEIGHT;
+        int imageWidth = (int) Math.ceil(bodyWidth);
+        int imageHeight = (int) Math.ceil(bodyHeight);
+        if (scrollBuffer == null || scrollBuffer.getWidth() != imageWidth || scrollBuffer.getHeight() != imageHeight) {
+            scrollBuffer = new WritableImage(imageWidth, imageHeight);
+        }
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setViewport(new Rectangle2D(ROW_HEADER_WIDTH, COLUMN_HEADER_HEIGHT, bodyWidth, bodyHeight));
+        canvas.snapshot(parameters, scrollBuffer);
+
+        g.save();
+        g.beginPath();
+        g.rect(ROW_HEADER_WIDTH, COLUMN_HEADER_HEIGHT, bodyWidth, bodyHeight);
+        g.clip();
+        g.drawImage(scrollBuffer, ROW_HEADER_WIDTH - colDelta * CELL_WIDTH, COLUMN_HEADER_HEIGHT - rowDelta * CELL_HEIGHT);
+        g.restore();
+
+        paintHeaders(g);
+        if (rowDelta > 0) {
+            paintBlock(g, firstRow + rowCount - rowDelta - 1, firstRow + rowCount, firstCol, firstCol + colCount);
+        } else if (rowDelta < 0) {
+            paintBlock(g, firstRow, firstRow - rowDelta, firstCol, firstCol + colCount);
+        } else if (colDelta > 0) {
+            paintBlock(g, firstRow, firstRow + rowCount, firstCol + colCount - colDelta - 1, firstCol + colCount);
+        } else {
+            paintBlock(g, firstRow, firstRow + rowCount, firstCol, firstCol - colDelta);
+        }
+    }
+
+    private void paintDirty(GraphicsContext g, BitSet dirty) {
+        int cols = display.getCols();
+        int lastRow = firstRow + visibleRows();
+        int lastCol = firstCol + visibleCols();
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            int row = i / cols;
+            int col = i % cols;
+            if (row >= firstRow && row < lastRow && col >= firstCol && col < lastCol) {
+                paintCell(g, row, col);
+            }
+        }
+    }
+
+    // سطرها و ستون‌های بیرون از جدول سفید می‌مانند
+    private void paintBlock(GraphicsContext g, int fromRow, int toRow, int fromCol, int toCol) {
+        int startRow = Math.max(fromRow, firstRow);
+        int startCol = Math.max(fromCol, firstCol);
+        g.setFill(Color.WHITE);
+        g.fillRect(ROW_HEADER_WIDTH + (startCol - firstCol) * CELL_WIDTH, COLUMN_HEADER_HEIGHT + (startRow - firstRow) * CELL_HEIGHT,
+                (toCol - startCol) * CELL_WIDTH, (toRow - startRow) * CELL_HEIGHT);
+
+        int endRow = Math.min(toRow, display.getRows());
+        int endCol = Math.min(toCol, display.getCols());
+        for (int row = startRow; row < endRow; row++) {
+            for (int col = startCol; col < endCol; col++) {
+                paintCell(g, row, col);
+            }
+        }
+    }
+
+    private void paintCell(GraphicsContext g, int row, int col) {
+        double x = ROW_HEADER_WIDTH + (col - firstCol) * CELL_WIDTH;
+        double y = COLUMN_HEADER_HEIGHT + (row - firstRow) * CELL_HEIGHT;
+        CellVersion cell = display.get(row, col);
+
+        g.setFill(backgroundOf(cell));
+        g.fillRect(x, y, CELL_WIDTH, CELL_HEIGHT);
+        g.setStroke(GRID_LINE);
+        g.setLineWidth(0.5);
+        g.strokeRect(x + 0.5, y + 0.5, CELL_WIDTH - 1, CELL_HEIGHT - 1);
+
+        String text = cell == null ? "" : fit(cell.getDisplayValue());
+        if (!text.isEmpty()) {
+            g.setFont(font);
+            g.setFill(cell.hasError() ? Color.RED : cell.getCellType() == CellType.FORMULA ? Color.BLUE : Color.BLACK);
+            g.setTextAlign(TextAlignment.CENTER);
+            g.setTextBaseline(VPos.CENTER);
+            g.fillText(text, x + CELL_WIDTH / 2, y + CELL_HEIGHT / 2);
+        }
+
+        if (row == selectedRow && col == selectedCol) {
+            g.setStroke(SELECTION);
+            g.setLineWidth(2);
+            g.strokeRect(x + 1, y + 1, CELL_WIDTH - 2, CELL_HEIGHT - 2);
+        }
+    }
+
+    private void paintHeaders(GraphicsContext g) {
+        int rowCount = visibleRows();
+        int colCount = visibleCols();
+        g.setFont(font);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        g.setLineWidth(0.5);
+
+        g.setFill(HEADER_BACKGROUND);
+        g.fillRect(0, 0, canvas.getWidth(), COLUMN_HEADER_HEIGHT);
+        g.fillRect(0, 0, ROW_HEADER_WIDTH, canvas.getHeight());
+
+        g.setStroke(GRID_LINE);
+        for (int i = 0; i < colCount && firstCol + i < display.getCols(); i++) {
+            double x = ROW_HEADER_WIDTH + i * CELL_WIDTH;
+            g.strokeRect(x + 0.5, 0.5, CELL_WIDTH - 1, COLUMN_HEADER_HEIGHT - 1);
+            g.setFill(Color.BLACK);
+            g.fillText(CellConverter.getColumnName(firstCol + i), x + CELL_WIDTH / 2, COLUMN_HEADER_HEIGHT / 2);
+        }
+        for (int i = 0; i < rowCount && firstRow + i < display.getRows(); i++) {
+            double y = COLUMN_HEADER_HEIGHT + i * CELL_HEIGHT;
+            g.strokeRect(0.5, y + 0.5, ROW_HEADER_WIDTH - 1, CELL_HEIGHT - 1);
+            g.setFill(Color.BLACK);
+            g.fillText(Integer.toString(firstRow + i + 1), ROW_HEADER_WIDTH / 2, y + CELL_HEIGHT / 2);
+        }
+    }
+
+    private static Color backgroundOf(CellVersion cell) {
+        if (cell == null) {
+            return Color.WHITE;
+        }
+        if (cell.hasError()) {
+            return ERROR_BACKGROUND;
+        }
+        switch (cell.getCellType()) {
+            case FORMULA: return FORMULA_BACKGROUND;
+            case TEXT: return TEXT_BACKGROUND;
+            case NUMBER: return NUMBER_BACKGROUND;
+            default: return Color.WHITE;
+        }
+    }
+
+    // کوتاه کردن متن به عرض سلول با «…»؛ نتیجه برای هر متن یک بار اندازه‌گیری می‌شود
+    private String fit(String text) {
+        if (text.isEmpty()) {
+            return text;
+        }
+        String cached = fittedText.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        double available = CELL_WIDTH - 2 * TEXT_PADDING;
+        String fitted = text;
+        if (width(text) > available) {
+            int length = text.length();
+            while (length > 0 && width(text.substring(0, length) + ELLIPSIS) > available) {
+                length--;
+            }
+            fitted = text.substring(0, length) + ELLIPSIS;
+        }
+        fittedText.put(text, fitted);
+        return fitted;
+    }
+
+    private double width(String text) {
+        measure.setText(text);
+        return measure.getLayoutBounds().getWidth();
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -1,56 +1,116 @@
 package org.example.controller;
 
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
-import org.example.model.Cell;
-import org.example.model.CellType;
+import org.example.model.CellVersion;
+import org.example.model.ProgressMonitor;
+import org.example.model.SheetVersion;
 import org.example.model.Spreadsheet;
 import org.example.utils.CellConverter;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCodeCombination;
 import javafx.scene.input.KeyCombination;
+import javafx.scene.layout.StackPane;
 import org.example.view.Command;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
 public class SpreadsheetGUIController implements Initializable {
 
     private Spreadsheet spreadsheet;
     private final Command commandProcessor;
 
-    @FXML private TableView<ObservableList<String>> spreadsheetTable;
+    @FXML private TableView<SheetRow> spreadsheetTable;
     @FXML private TextField commandField;
-    @FXML private TextArea outputArea;
+    @FXML private ListView<String> outputList;
+    private ConsoleLog console;
     @FXML private Button executeButton;
     @FXML private Button undoButton;
     @FXML private Button redoButton;
     @FXML private Button clearButton;
-
-    // دیتای جدول، هر سطر یک ObservableList<String> از مقادیر سلول‌هاست
-    private final ObservableList<ObservableList<String>> tableData;
+    @FXML private StackPane gridContainer;
+    @FXML private CheckMenuItem canvasGridItem;
+    @FXML private CheckMenuItem fpsOverlayItem;
+    @FXML private ProgressBar progressBar;
+    @FXML private Button cancelButton;
+
+    // همه‌ی دستورها روی یک نخ پس‌زمینه و به ترتیب اجرا می‌شوند تا نخ JavaFX هنگام محاسبه‌های طولانی آزاد بماند
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "spreadsheet-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean cancelRequested = new AtomicBoolean();
+    // فقط روی نخ JavaFX خوانده و نوشته می‌شوند
+    private int runningTasks;
+    private boolean undoAvailable;
+    private boolean redoAvailable;
+
+    // حالت محاسبه‌ی تنبل: سطرهای دیدنی جدول به Spreadsheet گفته می‌شوند و بقیه‌ی سلول‌های کهنه
+    // در گذرهای کوچک پشت دستورهای کاربر روی همان نخ پس‌زمینه محاسبه می‌شوند
+    private static final int STALE_PASS_CELLS = 4096;
+    private final AtomicBoolean stalePassScheduled = new AtomicBoolean();
+    private boolean viewportScheduled;
+
+    // جدول Canvas به جای TableView وقتی از منوی View انتخاب شده باشد، وگرنه null
+    private SpreadsheetCanvas canvasGrid;
+
+    private static final String BORDER_STYLE = " -fx-border-color: lightgray; -fx-border-width: 0.5;";
+    private static final String ERROR_STYLE = "-fx-background-color: #ffc8c8; -fx-text-fill: red; -fx-alignment: center;" + BORDER_STYLE;
+    private static final String FORMULA_STYLE = "-fx-background-color: #dcf0ff; -fx-text-fill: blue; -fx-alignment: center;" + BORDER_STYLE;
+    private static final String TEXT_STYLE = "-fx-background-color: #ffffdc; -fx-text-fill: black; -fx-alignment: center;" + BORDER_STYLE;
+    private static final String NUMBER_STYLE = "-fx-background-color: #dcffdc; -fx-text-fill: black; -fx-alignment: center;" + BORDER_STYLE;
+    private static final String EMPTY_STYLE = "-fx-background-color: white; -fx-text-fill: black; -fx-alignment: center;" + BORDER_STYLE;
+
+    // تعداد سطرهایی که داده‌شان در حافظه می‌ماند؛ چند برابر سطرهای قابل دیدن در یک صفحه
+    private static final int ROW_CACHE_SIZE = 256;
+
+    // دیتای جدول: فهرست مجازی که سطرها را فقط هنگام نمایش از نسخه‌ی نگه‌داشته‌شده‌ی جدول می‌سازد؛
+    // هر سطر برای هر سلول یک property ثابت دارد که فقط با تغییر همان سلول عوض می‌شود
+    private VirtualRows tableData;
+    private PinnedVersion display;
+    private final Consumer<BitSet> displayObserver = this::applyDisplayChanges;
 
     public SpreadsheetGUIController(Spreadsheet spreadsheet, Command commandProcessor) {
         this.spreadsheet = spreadsheet;
         this.commandProcessor = commandProcessor;
-        this.tableData = FXCollections.observableArrayList();
+        this.undoAvailable = spreadsheet.canUndo();
+        this.redoAvailable = spreadsheet.canRedo();
     }
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        console = new ConsoleLog(outputList, ConsoleLog.configuredMaxLines());
         setupTable();
         setupEventHandlers();
         setupKeyboardShortcuts();
         updateButtonStates();
         refreshTable();
 
-        outputArea.appendText("Spreadsheet initialized: " +
+        console.append("Spreadsheet initialized: " +
                 spreadsheet.getRows() + " rows x " + spreadsheet.getCols() + " columns\n");
     }
 
@@ -64,33 +124,26 @@ public class SpreadsheetGUIController implements Initializable {
         // برای هر ستون یک TableColumn می‌سازیم
         for (int i = 0; i < spreadsheet.getCols(); i++) {
             final int columnIndex = i;
-            TableColumn<ObservableList<String>, String> column = new TableColumn<>(
+            TableColumn<SheetRow, CellView> column = new TableColumn<>(
                     CellConverter.getColumnName(i)
             );
 
-            //  مقدار دهی: هر سطر خودش یک ObservableList است
-            column.setCellValueFactory(param -> {
-                ObservableList<String> row = param.getValue();
-                if (columnIndex < row.size()) {
-                    return new SimpleStringProperty(row.get(columnIndex));
-                } else {
-                    return new SimpleStringProperty("");
-                }
-            });
+            // مقدار دهی: همان property ذخیره‌شده‌ی سطر برگردانده می‌شود تا تغییرش فقط همین سلول را رسم کند
+            column.setCellValueFactory(param -> param.getValue().cell(columnIndex));
 
             //استایل دهی سلول
-            column.setCellFactory(_ -> new SpreadsheetTableCell(columnIndex));
+            column.setCellFactory(_ -> new SpreadsheetTableCell());
 
             column.setPrefWidth(100);
             column.setResizable(true);
             spreadsheetTable.getColumns().add(column);
         }
 
-        refreshTableData();
+        rebuildTableData();
 
         // دابل کلیک برای ویرایش
         spreadsheetTable.setRowFactory(tv -> {
-            TableRow<ObservableList<String>> row = new TableRow<>();
+            TableRow<SheetRow> row = new TableRow<>();
             row.setOnMouseClicked(event -> {
                 if (event.getClickCount() == 2 && (!row.isEmpty())) {
                     editSelectedCell();
@@ -104,24 +157,190 @@ public class SpreadsheetGUIController implements Initializable {
                 (obs, oldSelection, newSelection) -> updateButtonStates());
     }
 
-    private void refreshTableData() {
-        tableData.clear();
+    // فهرست مجازی فقط وقتی جدول عوض می‌شود از نو ساخته می‌شود؛ هیچ سطری از پیش ساخته نمی‌شود
+    private void rebuildTableData() {
+        if (display != null) {
+            display.dispose();
+        }
+        display = PinnedVersion.attach(spreadsheet);
+        display.addObserver(displayObserver);
+        tableData = new VirtualRows(display, this::rowRequested);
+        spreadsheetTable.setItems(tableData);
+    }
 
-        for (int row = 0; row < spreadsheet.getRows(); row++) {
-            ObservableList<String> rowData = FXCollections.observableArrayList();
-            for (int col = 0; col < spreadsheet.getCols(); col++) {
-                try {
-                    String cellRef = CellConverter.toCellReference(row, col);
-                    Cell cell = spreadsheet.getCell(cellRef);
-                    rowData.add(cell.getDisplayValue());
-                } catch (Exception e) {
-                    rowData.add("#ERR!");
+    // سطرهایی که در حافظه نیستند هنگام نمایش بعدی از روی نسخه‌ی تازه ساخته می‌شوند
+    private void applyDisplayChanges(BitSet cells) {
+        int cols = display.getCols();
+        for (int i = cells.nextSetBit(0); i >= 0; i = cells.nextSetBit(i + 1)) {
+            SheetRow row = tableData.cachedRow(i / cols);
+            if (row != null) {
+                updateCell(row, i % cols);
+            }
+        }
+    }
+
+    private void updateCell(SheetRow row, int col) {
+        SimpleObjectProperty<CellView> property = row.cell(col);
+        CellView current = property.get();
+        CellView next = cellViewOf(display, row.index, col);
+        if (current == null || !current.text.equals(next.text) || !current.style.equals(next.style)) {
+            property.set(next);
+        }
+    }
+
+    private static CellView cellViewOf(PinnedVersion display, int row, int col) {
+        CellVersion cell = display.get(row, col);
+        return cell == null ? new CellView("", EMPTY_STYLE) : new CellView(cell.getDisplayValue(), styleOf(cell));
+    }
+
+    private static String styleOf(CellVersion cell) {
+        if (cell.hasError()) {
+            return ERROR_STYLE;
+        }
+        switch (cell.getCellType()) {
+            case FORMULA: return FORMULA_STYLE;
+            case TEXT: return TEXT_STYLE;
+            case NUMBER: return NUMBER_STYLE;
+            default: return EMPTY_STYLE;
+        }
+    }
+
+    // جدول سطرها را هنگام رسم می‌خواهد؛ در پایان فریم پنجره‌ی دیدنی از VirtualFlow خوانده می‌شود
+    private void rowRequested(int row) {
+        if (viewportScheduled) {
+            return;
+        }
+        viewportScheduled = true;
+        Platform.runLater(() -> {
+            viewportScheduled = false;
+            if (canvasGrid == null && spreadsheetTable.lookup(".virtual-flow") instanceof VirtualFlow<?> flow
+                    && flow.getFirstVisibleCell() != null && flow.getLastVisibleCell() != null) {
+                viewportChanged(flow.getFirstVisibleCell().getIndex(), flow.getLastVisibleCell().getIndex());
+            }
+        });
+    }
+
+    private void viewportChanged(int firstRow, int lastRow) {
+        spreadsheet.setViewport(firstRow, lastRow);
+        scheduleStalePass(spreadsheet);
+    }
+
+    // هر گذر حداکثر STALE_PASS_CELLS سلول (به علاوه‌ی سطرهای دیدنی) محاسبه می‌کند و اگر سلول کهنه
+    // مانده گذر بعدی را پشت دستورهایی که در این فاصله صف شده‌اند می‌گذارد
+    private void scheduleStalePass(Spreadsheet sheet) {
+        if (sheet.isLazyEvaluation() && stalePassScheduled.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                stalePassScheduled.set(false);
+                if (sheet.isLazyEvaluation() && sheet.evaluateStale(STALE_PASS_CELLS)) {
+                    scheduleStalePass(sheet);
                 }
+            });
+        }
+    }
+
+    // اجرای یک عملیات روی نخ پس‌زمینه با نوار پیشرفت و امکان لغو؛ اگر محاسبه لغو شود Spreadsheet
+    // به حالت پیش از عملیات برمی‌گردد و onSuccess صدا زده نمی‌شود
+    private <T> void runInBackground(Supplier<T> operation, Consumer<T> onSuccess) {
+        Spreadsheet sheet = spreadsheet;
+        SheetTask<T> task = new SheetTask<>(sheet, operation);
+
+        task.setOnRunning(e -> {
+            progressBar.progressProperty().bind(task.progressProperty());
+            cancelButton.setDisable(false);
+        });
+        task.setOnSucceeded(e -> {
+            finishTask(task);
+            if (task.completed) {
+                onSuccess.accept(task.getValue());
+            } else {
+                console.append("Cancelled - the sheet was restored to its state before the command.\n\n");
             }
-            tableData.add(rowData);
+        });
+        task.setOnFailed(e -> {
+            finishTask(task);
+            Throwable error = task.getException();
+            console.append("ERROR: " + error.getMessage() + "\n\n");
+            error.printStackTrace();
+        });
+
+        runningTasks++;
+        progressBar.setVisible(true);
+        cancelButton.setVisible(true);
+        updateButtonStates();
+        worker.execute(task);
+    }
+
+    private void finishTask(SheetTask<?> task) {
+        runningTasks--;
+        undoAvailable = task.undoAvailable;
+        redoAvailable = task.redoAvailable;
+        if (runningTasks == 0) {
+            progressBar.progressProperty().unbind();
+            progressBar.setVisible(false);
+            cancelButton.setVisible(false);
         }
+        updateButtonStates();
+        scheduleStalePass(spreadsheet);
+    }
 
-        spreadsheetTable.setItems(tableData);
+    // گزارش‌ها از آخرین نسخه‌ی منتشرشده روی نخ‌های ForkJoinPool خوانده می‌شوند، نه پشت دستورها روی
+    // نخ نویسنده؛ نسخه تغییرناپذیر است پس حالت نیمه‌محاسبه دیده نمی‌شود و نویسنده منتظر نمی‌ماند
+    private <T> void readVersion(Function<SheetVersion, T> read, Consumer<T> onResult) {
+        SheetVersion version = spreadsheet.currentVersion();
+        CompletableFuture.supplyAsync(() -> read.apply(version))
+                .whenComplete((result, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        console.append("ERROR: " + error.getMessage() + "\n\n");
+                    } else {
+                        onResult.accept(result);
+                    }
+                }));
+    }
+
+    @FXML
+    private void cancelCommand() {
+        cancelRequested.set(true);
+        cancelButton.setDisable(true);
+        console.append("Cancelling...\n");
+    }
+
+    // یک دستور روی نخ پس‌زمینه؛ پیشرفت محاسبه از ProgressMonitor به نوار پیشرفت می‌رسد
+    // (Task خودش به‌روزرسانی‌های پیشرفت را در یک runLater جمع می‌کند)
+    private final class SheetTask<T> extends Task<T> {
+        private final Spreadsheet sheet;
+        private final Supplier<T> operation;
+        private T result;
+        private volatile boolean completed;
+        private volatile boolean undoAvailable;
+        private volatile boolean redoAvailable;
+
+        SheetTask(Spreadsheet sheet, Supplier<T> operation) {
+            this.sheet = sheet;
+            this.operation = operation;
+        }
+
+        @Override
+        protected T call() {
+            cancelRequested.set(false);
+            ProgressMonitor monitor = new ProgressMonitor() {
+                @Override
+                public void progress(int done, int total) {
+                    updateProgress(done, total);
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return cancelRequested.get();
+                }
+            };
+            try {
+                completed = sheet.runMonitored(monitor, () -> result = operation.get());
+            } finally {
+                undoAvailable = sheet.canUndo();
+                redoAvailable = sheet.canRedo();
+            }
+            return result;
+        }
     }
 
     private void setupEventHandlers() {
@@ -166,80 +385,67 @@ public class SpreadsheetGUIController implements Initializable {
         String command = commandField.getText().trim();
         if (command.isEmpty()) return;
 
-        try {
-            outputArea.appendText("> " + command + "\n");
-
-            boolean continueRunning = commandProcessor.processCommand(command);
+        console.append("> " + command + "\n");
+        commandField.setText("");
+        commandField.requestFocus();
 
+        runInBackground(() -> commandProcessor.processCommand(command), continueRunning -> {
             if (!continueRunning) {
                 exitApplication();
                 return;
             }
-
-            refreshTable();
-            updateButtonStates();
-            outputArea.appendText("Command executed successfully.\n\n");
-
-            commandField.setText("");
-            commandField.requestFocus();
-
-        } catch (Exception ex) {
-            outputArea.appendText("ERROR: " + ex.getMessage() + "\n\n");
-            ex.printStackTrace();
-        }
-
-        outputArea.setScrollTop(Double.MAX_VALUE);
+            console.append("Command executed successfully.\n\n");
+        });
     }
 
     @FXML
     private void undo() {
-        try {
-            if (spreadsheet.undo()) {
-                refreshTable();
-                updateButtonStates();
-                outputArea.appendText("Undo performed successfully.\n\n");
+        Spreadsheet sheet = spreadsheet;
+        runInBackground(sheet::undo, done -> {
+            if (done) {
+                console.append("Undo performed successfully.\n\n");
             } else {
-                outputArea.appendText("Cannot undo - no more actions available.\n\n");
+                console.append("Cannot undo - no more actions available.\n\n");
             }
-        } catch (Exception ex) {
-            outputArea.appendText("ERROR during undo: " + ex.getMessage() + "\n\n");
-        }
+        });
     }
 
     @FXML
     private void redo() {
-        try {
-            if (spreadsheet.redo()) {
-                refreshTable();
-                updateButtonStates();
-                outputArea.appendText("Redo performed successfully.\n\n");
+        Spreadsheet sheet = spreadsheet;
+        runInBackground(sheet::redo, done -> {
+            if (done) {
+                console.append("Redo performed successfully.\n\n");
             } else {
-                outputArea.appendText("Cannot redo - no actions to redo.\n\n");
+                console.append("Cannot redo - no actions to redo.\n\n");
             }
-        } catch (Exception ex) {
-            outputArea.appendText("ERROR during redo: " + ex.getMessage() + "\n\n");
+        });
+    }
+
+    // سلول انتخاب‌شده در جدولی که الان نمایش داده می‌شود؛ null اگر چیزی انتخاب نشده
+    private int[] selectedCell() {
+        if (canvasGrid != null) {
+            return new int[]{canvasGrid.getSelectedRow(), canvasGrid.getSelectedCol()};
         }
+        int row = spreadsheetTable.getSelectionModel().getSelectedIndex();
+        ObservableList<TablePosition> selectedCells = spreadsheetTable.getSelectionModel().getSelectedCells();
+        if (row < 0 || selectedCells.isEmpty()) return null;
+        return new int[]{row, selectedCells.get(0).getColumn()};
     }
 
     @FXML
     private void editSelectedCell() {
-        int row = spreadsheetTable.getSelectionModel().getSelectedIndex();
-        if (row < 0) return;
-
-        ObservableList<TablePosition> selectedCells = spreadsheetTable.getSelectionModel().getSelectedCells();
-        if (selectedCells.isEmpty()) return;
+        int[] selected = selectedCell();
+        if (selected == null) return;
 
-        int col = selectedCells.get(0).getColumn();
+        int row = selected[0];
+        int col = selected[1];
 
         if (row >= 0 && col >= 0) {
             String cellRef = CellConverter.toCellReference(row, col);
-            Cell cell = spreadsheet.getCell(cellRef);
-
-            String currentValue = cell.getRawContent();
-            // اگر خالیه و فرمول نیست، بذار خالی بمونه
-            if (currentValue.isEmpty() && cell.getCellType() != CellType.FORMULA) {
-                currentValue = "";
-            }
+            // خواندن یک سلول از نسخه‌ی منتشرشده روی همین نخ؛ منتظر دستور در حال اجرا نمی‌ماند
+            CellVersion cell = spreadsheet.currentVersion().getCell(row, col);
+            String currentValue = cell == null ? "" : cell.getRawContent();
 
             TextInputDialog dialog = new TextInputDialog(currentValue);
             dialog.setTitle("Edit Cell");
@@ -254,13 +460,11 @@ public class SpreadsheetGUIController implements Initializable {
 
     @FXML
     private void clearSelectedCell() {
-        int row = spreadsheetTable.getSelectionModel().getSelectedIndex();
-        if (row < 0) return;
-
-        ObservableList<TablePosition> selectedCells = spreadsheetTable.getSelectionModel().getSelectedCells();
-        if (selectedCells.isEmpty()) return;
+        int[] selected = selectedCell();
+        if (selected == null) return;
 
-        int col = selectedCells.get(0).getColumn();
+        int row = selected[0];
+        int col = selected[1];
 
         if (row >= 0 && col >= 0) {
             String cellRef = CellConverter.toCellReference(row, col);
@@ -276,14 +480,18 @@ public class SpreadsheetGUIController implements Initializable {
     // وضعیت دکمه‌ها (فعال/غیرفعال)
     @FXML
     private void updateButtonStates() {
-        undoButton.setDisable(!spreadsheet.canUndo());
-        redoButton.setDisable(!spreadsheet.canRedo());
-        clearButton.setDisable(spreadsheetTable.getSelectionModel().getSelectedCells().isEmpty());
+        undoButton.setDisable(runningTasks > 0 || !undoAvailable);
+        redoButton.setDisable(runningTasks > 0 || !redoAvailable);
+        clearButton.setDisable(selectedCell() == null);
     }
 
     // ساخت شیت جدید با گرفتن مقدار از کاربر
     @FXML
     private void createNewSpreadsheet() {
+        if (runningTasks > 0) {
+            console.append("Wait for the running command to finish (or cancel it) before creating a new sheet.\n");
+            return;
+        }
         try {
             TextInputDialog rowsDialog = new TextInputDialog(String.valueOf(spreadsheet.getRows()));
             rowsDialog.setTitle("New Spreadsheet");
@@ -303,54 +511,69 @@ public class SpreadsheetGUIController implements Initializable {
                 Spreadsheet newSheet = new Spreadsheet(rows, cols);
                 this.spreadsheet = newSheet;
                 this.commandProcessor.setSpreadsheet(newSheet);
+                undoAvailable = newSheet.canUndo();
+                redoAvailable = newSheet.canRedo();
 
                 setupTable();
-                refreshTable();
-                outputArea.appendText("New spreadsheet created: " + rows + "x" + cols + "\n");
+                if (canvasGrid != null) {
+                    canvasGrid.setDisplay(display);
+                }
+                updateButtonStates();
+                console.append("New spreadsheet created: " + rows + "x" + cols + "\n");
 
                 Stage stage = (Stage) commandField.getScene().getWindow();
                 stage.setTitle("Excel Spreadsheet (" + rows + "x" + cols + ")");
             }
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
             showAlert("Error", "Invalid dimensions!", Alert.AlertType.ERROR);
         }
     }
 
     @FXML
     private void showStatistics() {
-        int totalCells = spreadsheet.getRows() * spreadsheet.getCols();
+        boolean undo = undoAvailable;
+        boolean redo = redoAvailable;
+        readVersion(version -> statisticsText(version, undo, redo), this::showStatisticsWindow);
+    }
+
+    private static String statisticsText(SheetVersion version, boolean undoAvailable, boolean redoAvailable) {
+        long totalCells = (long) version.getRows() * version.getCols();
         int formulaCells = 0;
         int numberCells = 0;
         int textCells = 0;
         int errorCells = 0;
         int emptyCells = 0;
 
-        for (int row = 0; row < spreadsheet.getRows(); row++) {
-            for (int col = 0; col < spreadsheet.getCols(); col++) {
-                try {
-                    String cellRef = CellConverter.toCellReference(row, col);
-                    Cell cell = spreadsheet.getCell(cellRef);
-
-                    if (cell.hasError()) {
-                        errorCells++;
-                    } else if (cell.getRawContent().isEmpty()) {
-                        emptyCells++;
-                    } else {
-                        switch (cell.getCellType()) {
-                            case FORMULA: formulaCells++; break;
-                            case NUMBER: numberCells++; break;
-                            case TEXT: textCells++; break;
-                        }
-                    }
-                } catch (Exception e) {
+        for (int row = 0; row < version.getRows(); ) {
+            if (version.isBlankPage(row)) {
+                int next = Math.min(version.nextPageRow(row), version.getRows());
+                emptyCells += (next - row) * version.getCols();
+                row = next;
+                continue;
+            }
+            for (int col = 0; col < version.getCols(); col++) {
+                CellVersion cell = version.getCell(row, col);
+
+                if (cell == null) {
+                    emptyCells++;
+                } else if (cell.hasError()) {
                     errorCells++;
+                } else {
+                    switch (cell.getCellType()) {
+                        case FORMULA: formulaCells++; break;
+                        case NUMBER: numberCells++; break;
+                        case TEXT: textCells++; break;
+                        default: emptyCells++; break;
+                    }
                 }
             }
+            row++;
         }
 
-        String statsText = String.format("""
+        return String.format("""
             === SPREADSHEET STATISTICS ===
             
+            Version: %d
             Dimensions: %d rows x %d columns
             Total Cells: %d
             
@@ -365,16 +588,18 @@ public class SpreadsheetGUIController implements Initializable {
             • Undo available: %s
             • Redo available: %s
             """,
-                spreadsheet.getRows(), spreadsheet.getCols(), totalCells,
+                version.getEpoch(), version.getRows(), version.getCols(), totalCells,
                 emptyCells, (emptyCells * 100.0 / totalCells),
                 numberCells, (numberCells * 100.0 / totalCells),
                 textCells, (textCells * 100.0 / totalCells),
                 formulaCells, (formulaCells * 100.0 / totalCells),
                 errorCells, (errorCells * 100.0 / totalCells),
-                spreadsheet.canUndo() ? "Yes" : "No",
-                spreadsheet.canRedo() ? "Yes" : "No"
+                undoAvailable ? "Yes" : "No",
+                redoAvailable ? "Yes" : "No"
         );
+    }
 
+    private void showStatisticsWindow(String statsText) {
         TextArea statsArea = new TextArea(statsText);
         statsArea.setEditable(false);
         statsArea.setStyle("-fx-font-family: monospace; -fx-font-size: 12px;");
@@ -442,14 +667,48 @@ public class SpreadsheetGUIController implements Initializable {
         helpStage.show();
     }
 
+    // همگام‌سازی دستی سطرهای در حافظه؛ فقط سلول‌هایی که با جدول فرق دارند دوباره رسم می‌شوند
     @FXML
     private void refreshTable() {
-        refreshTableData();
-        outputArea.appendText("Table refreshed at " + java.time.LocalTime.now() + "\n");
+        for (SheetRow row : tableData.cachedRows()) {
+            for (int col = 0; col < spreadsheet.getCols(); col++) {
+                updateCell(row, col);
+            }
+        }
+        console.append("Table refreshed at " + java.time.LocalTime.now() + "\n");
+    }
+
+    // جابه‌جایی بین TableView و جدول Canvas؛ هر دو به همان Spreadsheet گوش می‌دهند
+    @FXML
+    private void toggleCanvasGrid() {
+        if (canvasGridItem.isSelected() && canvasGrid == null) {
+            canvasGrid = SpreadsheetCanvas.create(display);
+            canvasGrid.setOnEdit(this::editSelectedCell);
+            canvasGrid.setOnViewportChanged(this::viewportChanged);
+            canvasGrid.setShowFps(fpsOverlayItem.isSelected());
+            gridContainer.getChildren().setAll(canvasGrid);
+            console.append("Canvas grid enabled.\n");
+        } else if (!canvasGridItem.isSelected() && canvasGrid != null) {
+            canvasGrid.dispose();
+            canvasGrid = null;
+            gridContainer.getChildren().setAll(spreadsheetTable);
+            console.append("Table grid enabled.\n");
+        }
+        updateButtonStates();
+    }
+
+    @FXML
+    private void toggleFpsOverlay() {
+        if (canvasGrid != null) {
+            canvasGrid.setShowFps(fpsOverlayItem.isSelected());
+        } else if (fpsOverlayItem.isSelected()) {
+            console.append("FPS overlay is shown on the canvas grid (View > Canvas Grid).\n");
+        }
     }
 
     @FXML
     private void exitApplication() {
+        worker.shutdown();
         Stage stage = (Stage) commandField.getScene().getWindow();
         stage.close();
     }
@@ -482,48 +741,98 @@ public class SpreadsheetGUIController implements Initializable {
         alert.showAndWait();
     }
 
-    // کلاس داخلی برای استایل براساس نوع/خطا
-    private class SpreadsheetTableCell extends TableCell<ObservableList<String>, String> {
-        private final int columnIndex;
+    // فهرست فقط‌خواندنی به اندازه‌ی تعداد سطرهای جدول؛ get سطر را از روی نسخه‌ی نگه‌داشته‌شده
+    // می‌سازد و حداکثر ROW_CACHE_SIZE سطر اخیر را نگه می‌دارد، پس حافظه به اندازه‌ی جدول بستگی ندارد
+    private static final class VirtualRows extends ObservableListBase<SheetRow> {
+        private final PinnedVersion sheet;
+        private final IntConsumer rowRequested;
+        private final Map<Integer, SheetRow> cache = new LinkedHashMap<>(ROW_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, SheetRow> eldest) {
+                return size() > ROW_CACHE_SIZE;
+            }
+        };
 
-        public SpreadsheetTableCell(int columnIndex) {
-            this.columnIndex = columnIndex;
+        VirtualRows(PinnedVersion sheet, IntConsumer rowRequested) {
+            this.sheet = sheet;
+            this.rowRequested = rowRequested;
         }
 
         @Override
-        protected void updateItem(String item, boolean empty) {
-            super.updateItem(item, empty);
+        public SheetRow get(int index) {
+            if (index < 0 || index >= sheet.getRows()) {
+                throw new IndexOutOfBoundsException("Row " + index + " out of bounds for " + sheet.getRows() + " rows");
+            }
+            rowRequested.accept(index);
+            SheetRow row = cache.get(index);
+            if (row == null) {
+                row = new SheetRow(index, sheet.getCols());
+                for (int col = 0; col < sheet.getCols(); col++) {
+                    row.cell(col).set(cellViewOf(sheet, index, col));
+                }
+                cache.put(index, row);
+            }
+            return row;
+        }
 
-            if (empty || getTableRow() == null) {
-                setText(null);
-                setStyle("");
-                return;
+        @Override
+        public int size() {
+            return sheet.getRows();
+        }
+
+        // سطر فقط اگر در حافظه باشد؛ سطر دیگری ساخته نمی‌شود
+        SheetRow cachedRow(int index) {
+            return cache.get(index);
+        }
+
+        List<SheetRow> cachedRows() {
+            return new ArrayList<>(cache.values());
+        }
+    }
+
+    // یک سطر جدول با یک property ثابت برای هر ستون
+    private static final class SheetRow {
+        private final int index;
+        private final List<SimpleObjectProperty<CellView>> cells;
+
+        SheetRow(int index, int cols) {
+            this.index = index;
+            cells = new ArrayList<>(cols);
+            for (int col = 0; col < cols; col++) {
+                cells.add(new SimpleObjectProperty<>());
             }
+        }
 
-            int rowIndex = getIndex();
-            setText(item);
+        SimpleObjectProperty<CellView> cell(int col) {
+            return cells.get(col);
+        }
+    }
 
-            try {
-                String cellRef = CellConverter.toCellReference(rowIndex, columnIndex);
-                Cell cell = spreadsheet.getCell(cellRef);
-
-                if (cell.hasError()) {
-                    setStyle("-fx-background-color: #ffc8c8; -fx-text-fill: red; -fx-alignment: center;");
-                } else if (cell.getCellType() == CellType.FORMULA) {
-                    setStyle("-fx-background-color: #dcf0ff; -fx-text-fill: blue; -fx-alignment: center;");
-                } else if (cell.getCellType() == CellType.TEXT) {
-                    setStyle("-fx-background-color: #ffffdc; -fx-text-fill: black; -fx-alignment: center;");
-                } else if (cell.getCellType() == CellType.NUMBER) {
-                    setStyle("-fx-background-color: #dcffdc; -fx-text-fill: black; -fx-alignment: center;");
-                } else {
-                    setStyle("-fx-background-color: white; -fx-text-fill: black; -fx-alignment: center;");
-                }
+    // متن و استایل نمایشی یک سلول؛ هنگام رسم دیگر سراغ Spreadsheet نمی‌رویم
+    private static final class CellView {
+        private final String text;
+        private final String style;
+
+        CellView(String text, String style) {
+            this.text = text;
+            this.style = style;
+        }
+    }
 
-            } catch (Exception e) {
-                setStyle("-fx-background-color: white; -fx-text-fill: black; -fx-alignment: center;");
+    // کلاس داخلی برای استایل براساس نوع/خطا
+    private static class SpreadsheetTableCell extends TableCell<SheetRow, CellView> {
+        @Override
+        protected void updateItem(CellView item, boolean empty) {
+            super.updateItem(item, empty);
+
+            if (empty || item == null || getTableRow() == null) {
+                setText(null);
+                setStyle("");
+                return;
             }
 
-            setStyle(getStyle() + " -fx-border-color: lightgray; -fx-border-width: 0.5;");
+            setText(item.text);
+            setStyle(item.style);
         }
     }
 }
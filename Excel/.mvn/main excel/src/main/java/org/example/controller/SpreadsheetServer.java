@@ -0,0 +1,299 @@
+package org.example.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.example.exceptions.SpreadsheetException;
+import org.example.model.BackpressurePolicy;
+import org.example.model.CellChange;
+import org.example.model.CellVersion;
+import org.example.model.ChangeEvent;
+import org.example.model.ChangeSubscription;
+import org.example.model.SheetSnapshot;
+import org.example.model.SheetVersion;
+import org.example.model.Spreadsheet;
+import org.example.utils.CellConverter;
+import org.example.utils.Json;
+import org.example.utils.Log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// حالت سرویس HTTP/JSON روی localhost بدون JavaFX. هر درخواست روی یک نخ مجازی اجرا می‌شود؛ خواندن‌ها
+// از آخرین نسخه‌ی منتشرشده بدون قفل جواب داده می‌شوند و نوشتن‌ها از FeedWriter می‌گذرند، پس نوشتن‌های
+// هم‌زمان همه‌ی درخواست‌ها با یک bulkUpdate روی تنها نخ نویسنده اعمال و یک نسخه منتشر می‌شوند.
+//   POST /cells/A1        بدنه: محتوای سلول (متن ساده)
+//   POST /cells           بدنه: {"A1": "5", "B1": "=A1*2"}
+//   GET  /cells?range=A1:C10
+//   POST /recalc
+//   GET  /subscribe?range=A1:C10   (server-sent events)
+public class SpreadsheetServer {
+    private static final int SUBSCRIPTION_CAPACITY = 64;
+    private static final long KEEPALIVE_SECONDS = 15;
+
+    static {
+        // بدون TCP_NODELAY هر پاسخ کوچک پشت Nagle و ACK تأخیری کلاینت حدود 40 میلی‌ثانیه می‌ماند؛
+        // ServerImpl این تنظیم را یک بار هنگام بار شدن می‌خواند
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final Spreadsheet spreadsheet;
+    private final HttpServer server;
+    private final ExecutorService writer;
+    private final ExecutorService handlers;
+    private final FeedWriter feedWriter;
+    private final Set<ChangeSubscription> streams = ConcurrentHashMap.newKeySet();
+
+    public SpreadsheetServer(Spreadsheet spreadsheet, int port) throws IOException {
+        this.spreadsheet = spreadsheet;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spreadsheet-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.handlers = Executors.newVirtualThreadPerTaskExecutor();
+        this.feedWriter = new FeedWriter(spreadsheet, writer);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(handlers);
+        server.createContext("/cells", route(this::handleCells));
+        server.createContext("/recalc", route(this::handleRecalc));
+        server.createContext("/subscribe", route(this::handleSubscribe));
+    }
+
+    public void start() {
+        server.start();
+        Log.info("Spreadsheet service listening on http://localhost:{}", getPort());
+    }
+
+    // جریان‌های باز بسته می‌شوند تا نخ‌هایشان تمام شوند
+    public void stop() {
+        for (ChangeSubscription stream : streams) {
+            stream.close();
+        }
+        server.stop(0);
+        handlers.shutdownNow();
+        writer.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleCells(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String cell = path.length() > "/cells/".length() ? path.substring("/cells/".length()) : "";
+
+        if (method.equals("GET") && cell.isEmpty()) {
+            String range = queryParameter(exchange, "range");
+            if (range == null) {
+                throw new IllegalArgumentException("Missing range parameter");
+            }
+            sendJson(exchange, 200, rangeJson(range.toUpperCase()));
+        } else if (method.equals("POST") && !cell.isEmpty()) {
+            await(feedWriter.write(cell.toUpperCase(), readBody(exchange)));
+            sendJson(exchange, 200, "{\"epoch\":" + spreadsheet.currentVersion().getEpoch() + "}");
+        } else if (method.equals("POST")) {
+            Map<String, String> cells = Json.parseFlatObject(readBody(exchange));
+            await(feedWriter.writeAll(cells));
+            sendJson(exchange, 200, "{\"epoch\":" + spreadsheet.currentVersion().getEpoch()
+                    + ",\"cells\":" + cells.size() + "}");
+        } else {
+            sendJson(exchange, 405, errorJson("Method not allowed"));
+        }
+    }
+
+    private void handleRecalc(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            sendJson(exchange, 405, errorJson("Method not allowed"));
+            return;
+        }
+        await(writer.submit(spreadsheet::recalculateAll));
+        sendJson(exchange, 200, "{\"epoch\":" + spreadsheet.currentVersion().getEpoch() + "}");
+    }
+
+    // هر رویداد یک خط data با تغییرهای یک دوره است؛ مشترک کند تغییرهایش ادغام می‌شود و نویسنده منتظر نمی‌ماند
+    private void handleSubscribe(HttpExchange exchange) throws IOException {
+        String range = queryParameter(exchange, "range");
+        if (range == null) {
+            throw new IllegalArgumentException("Missing range parameter");
+        }
+        ChangeSubscription subscription = spreadsheet.subscribe(range, SUBSCRIPTION_CAPACITY,
+                BackpressurePolicy.COALESCE_LATEST);
+        streams.add(subscription);
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write((": epoch " + spreadsheet.currentVersion().getEpoch() + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            while (!subscription.isClosed()) {
+                ChangeEvent event = subscription.poll(KEEPALIVE_SECONDS, TimeUnit.SECONDS);
+                // توضیح خالی اتصال قطع‌شده را آشکار می‌کند
+                String message = event == null ? ": keepalive\n\n"
+                        : "id: " + event.getEpoch() + "\nevent: change\ndata: " + eventJson(event) + "\n\n";
+                out.write(message.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (IOException e) {
+            Log.debug("Subscriber disconnected: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            streams.remove(subscription);
+            subscription.close();
+        }
+    }
+
+    // فقط سلول‌های غیرخالی؛ صفحه‌های خالی نسخه پریده می‌شوند
+    private String rangeJson(String range) {
+        String[] parts = range.split(":");
+        String first = parts[0].trim();
+        String last = parts.length == 2 ? parts[1].trim() : first;
+        if (parts.length > 2 || !spreadsheet.isValidCellReference(first) || !spreadsheet.isValidCellReference(last)) {
+            throw new IllegalArgumentException("Invalid range: " + range);
+        }
+        int[] start = CellConverter.fromCellReference(first);
+        int[] end = CellConverter.fromCellReference(last);
+        SheetSnapshot snapshot = new SheetSnapshot(spreadsheet.currentVersion(), Math.min(start[0], end[0]),
+                Math.min(start[1], end[1]), Math.max(start[0], end[0]), Math.max(start[1], end[1]));
+        SheetVersion version = snapshot.getVersion();
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"epoch\":").append(version.getEpoch()).append(",\"cells\":[");
+        boolean firstCell = true;
+        int lastRow = snapshot.getFirstRow() + snapshot.getRows() - 1;
+        int lastCol = snapshot.getFirstCol() + snapshot.getCols() - 1;
+        for (int row = snapshot.getFirstRow(); row <= lastRow; row++) {
+            if (version.isBlankPage(row)) {
+                row = version.nextPageRow(row) - 1;
+                continue;
+            }
+            for (int col = snapshot.getFirstCol(); col <= lastCol; col++) {
+                CellVersion cell = version.getCell(row, col);
+                if (cell == null) {
+                    continue;
+                }
+                if (!firstCell) {
+                    json.append(',');
+                }
+                firstCell = false;
+                json.append("{\"address\":");
+                Json.appendQuoted(json, CellConverter.toCellReference(row, col));
+                json.append(",\"raw\":");
+                Json.appendQuoted(json, cell.getRawContent());
+                json.append(",\"value\":");
+                Json.appendValue(json, cell.hasError() ? null : cell.getComputedValue());
+                json.append(",\"display\":");
+                Json.appendQuoted(json, cell.getDisplayValue());
+                json.append(",\"error\":");
+                Json.appendValue(json, cell.hasError() ? cell.getErrorType().name() : null);
+                if (cell.isStale()) {
+                    json.append(",\"stale\":true");
+                }
+                json.append('}');
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String eventJson(ChangeEvent event) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"epoch\":").append(event.getEpoch()).append(",\"changes\":[");
+        boolean first = true;
+        for (CellChange change : event.getChanges()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"address\":");
+            Json.appendQuoted(json, change.getAddress());
+            json.append(",\"old\":");
+            Json.appendValue(json, change.getOldValue());
+            json.append(",\"new\":");
+            Json.appendValue(json, change.getNewValue());
+            json.append(",\"error\":");
+            Json.appendValue(json, change.hasError() ? change.getNewError().name() : null);
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the writer");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // خطای ورودی 400 می‌گیرد، بقیه 500
+    private static HttpHandler route(HttpHandler handler) {
+        return exchange -> {
+            try {
+                handler.handle(exchange);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | SpreadsheetException e) {
+                sendJson(exchange, 400, errorJson(e.getMessage()));
+            } catch (RuntimeException e) {
+                Log.error("Request {} failed: {}", exchange.getRequestURI(), e);
+                sendJson(exchange, 500, errorJson(String.valueOf(e.getMessage())));
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private static String errorJson(String message) {
+        return "{\"error\":" + Json.quote(message == null ? "" : message) + "}";
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            if (key.equals(name)) {
+                return equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,322 @@
+package org.example.controller;
+
+import org.example.model.Cell;
+import org.example.model.CellType;
+import org.example.model.CompiledFormula;
+import org.example.model.ErrorType;
+import org.example.model.FormulaToken;
+import org.example.model.Spreadsheet;
+import org.example.utils.CellConverter;
+import org.example.utils.TextDictionary;
+import org.example.utils.Validationformula;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// ذخیره و بازکردن کارپوشه همراه با مقادیر محاسبه‌شده، فرمول‌های کامپایل‌شده و ترتیب محاسبه،
+// تا هنگام بازکردن فقط سلول‌هایی که ورودی‌شان عوض شده دوباره محاسبه شوند
+public class WorkbookStore {
+    private static final int MAGIC = 0x58434C57; // "XCLW"
+    private static final int VERSION = 1;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_NUMBER = 1;
+    private static final byte VALUE_TEXT = 2;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Spreadsheet spreadsheet;
+    private final TextDictionary dictionary;
+    private int recalculatedCells;
+
+    public WorkbookStore(Spreadsheet spreadsheet) {
+        this(spreadsheet, new TextDictionary());
+    }
+
+    public WorkbookStore(Spreadsheet spreadsheet, TextDictionary dictionary) {
+        this.spreadsheet = spreadsheet;
+        this.dictionary = dictionary;
+    }
+
+    // تعداد سلول‌هایی که در آخرین بازکردن دوباره محاسبه شدند
+    public int getRecalculatedCells() {
+        return recalculatedCells;
+    }
+
+    // ابتدا در فایل موقت کنار مقصد نوشته و بعد جابه‌جا می‌شود؛ ذخیره‌ی ناموفق فایل قبلی را خراب نمی‌کند
+    public void save(Path path) throws IOException {
+        Path target = path.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            write(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(spreadsheet.getRows());
+            out.writeInt(spreadsheet.getCols());
+
+            // سطرهایی که هنوز ساخته نشده‌اند خالی‌اند و ساخته نمی‌شوند
+            List<int[]> populated = new ArrayList<>();
+            for (int row = 0; row < spreadsheet.getRows(); row++) {
+                if (!spreadsheet.hasRow(row)) continue;
+                for (int col = 0; col < spreadsheet.getCols(); col++) {
+                    if (!spreadsheet.peekCell(row, col).isEmpty()) {
+                        populated.add(new int[]{row, col});
+                    }
+                }
+            }
+
+            out.writeInt(populated.size());
+            for (int[] position : populated) {
+                writeCell(out, position[0], position[1]);
+            }
+
+            List<String> calcChain = spreadsheet.getCalculationChain();
+            out.writeInt(calcChain.size());
+            for (String cellRef : calcChain) {
+                int[] coordinates = CellConverter.fromCellReference(cellRef);
+                out.writeInt(coordinates[0]);
+                out.writeInt(coordinates[1]);
+            }
+        }
+    }
+
+    public ImportStats load(Path path) throws IOException {
+        long begin = System.nanoTime();
+        recalculatedCells = 0;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a workbook file: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported workbook version: " + version);
+            }
+            int rows = in.readInt();
+            int cols = in.readInt();
+            if (rows > spreadsheet.getRows() || cols > spreadsheet.getCols()) {
+                throw new IOException("Workbook is " + rows + "x" + cols + " but the grid is "
+                        + spreadsheet.getRows() + "x" + spreadsheet.getCols());
+            }
+
+            int cellCount = in.readInt();
+            Map<String, Long> savedInputHashes = new HashMap<>();
+
+            spreadsheet.bulkUpdate(() -> {
+                try {
+                    spreadsheet.clear();
+                    for (int i = 0; i < cellCount; i++) {
+                        readCell(in, savedInputHashes);
+                    }
+                    recalculateChanged(readCalcChain(in), savedInputHashes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, false);
+
+            return new ImportStats(rows, cellCount, 0, System.nanoTime() - begin);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeCell(DataOutputStream out, int row, int col) throws IOException {
+        Cell cell = spreadsheet.peekCell(row, col);
+        out.writeInt(row);
+        out.writeInt(col);
+        out.writeByte(cell.getCellType().ordinal());
+        writeString(out, cell.getRawContent());
+
+        Object value = cell.getComputedValue();
+        if (value == null) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof Number) {
+            out.writeByte(VALUE_NUMBER);
+            out.writeDouble(((Number) value).doubleValue());
+        } else {
+            out.writeByte(VALUE_TEXT);
+            writeString(out, value.toString());
+        }
+
+        out.writeByte(cell.getErrorType().ordinal());
+        writeString(out, cell.getErrorMessage());
+
+        CompiledFormula compiled = compiledFormulaOf(cell);
+        out.writeBoolean(compiled != null);
+        if (compiled != null) {
+            writeString(out, compiled.getFormula());
+            out.writeInt(compiled.getPostfix().size());
+            for (FormulaToken token : compiled.getPostfix()) {
+                writeString(out, token.getText());
+            }
+            out.writeInt(compiled.getReferences().size());
+            for (String reference : compiled.getReferences()) {
+                writeString(out, reference);
+            }
+            out.writeLong(inputHash(cell.getRawContent(), compiled.getReferences()));
+        }
+    }
+
+    private void readCell(DataInputStream in, Map<String, Long> savedInputHashes) throws IOException {
+        int row = in.readInt();
+        int col = in.readInt();
+        CellType type = CellType.values()[in.readByte()];
+        String raw = readString(in);
+
+        Object value;
+        byte valueKind = in.readByte();
+        if (valueKind == VALUE_NUMBER) {
+            value = in.readDouble();
+        } else if (valueKind == VALUE_TEXT) {
+            value = dictionary.intern(readString(in));
+        } else {
+            value = null;
+        }
+
+        ErrorType errorType = ErrorType.values()[in.readByte()];
+        String errorMessage = readString(in);
+
+        CompiledFormula compiled = null;
+        if (in.readBoolean()) {
+            String formula = readString(in);
+            int tokenCount = in.readInt();
+            List<FormulaToken> postfix = new ArrayList<>(tokenCount);
+            for (int i = 0; i < tokenCount; i++) {
+                postfix.add(FormulaLexer.fromText(readString(in)));
+            }
+            Calculate.validatePostfix(postfix);
+            int referenceCount = in.readInt();
+            Set<String> references = new HashSet<>();
+            for (int i = 0; i < referenceCount; i++) {
+                references.add(readString(in));
+            }
+            compiled = new CompiledFormula(formula, postfix, references);
+            savedInputHashes.put(Spreadsheet.toCellReference(row, col), in.readLong());
+        }
+
+        spreadsheet.restoreCell(row, col, type, raw, value, errorType, errorMessage, compiled);
+    }
+
+    private List<String> readCalcChain(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        List<String> chain = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            chain.add(Spreadsheet.toCellReference(in.readInt(), in.readInt()));
+        }
+        return chain;
+    }
+
+    // سلول‌هایی که هش ورودی‌شان با زمان ذخیره فرق دارد و همه‌ی وابسته‌هایشان به ترتیب زنجیره محاسبه می‌شوند
+    private void recalculateChanged(List<String> calcChain, Map<String, Long> savedInputHashes) {
+        Set<String> dirty = new HashSet<>();
+        for (String cellRef : calcChain) {
+            Cell cell = spreadsheet.getCell(cellRef);
+            Long saved = savedInputHashes.get(cellRef);
+            CompiledFormula compiled = cell.getCompiledFormula();
+            if (saved == null || compiled == null || !compiledMatches(cell, compiled)
+                    || saved != inputHash(cell.getRawContent(), compiled.getReferences())) {
+                dirty.add(cellRef);
+            } else {
+                for (String reference : compiled.getReferences()) {
+                    if (dirty.contains(reference)) {
+                        dirty.add(cellRef);
+                        break;
+                    }
+                }
+            }
+
+            if (dirty.contains(cellRef)) {
+                int[] coordinates = CellConverter.fromCellReference(cellRef);
+                spreadsheet.recalculateCell(coordinates[0], coordinates[1]);
+                recalculatedCells++;
+            }
+        }
+    }
+
+    private boolean compiledMatches(Cell cell, CompiledFormula compiled) {
+        try {
+            return compiled.matches(Validationformula.extractFormula(cell.getRawContent()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private CompiledFormula compiledFormulaOf(Cell cell) {
+        if (cell.getCellType() != CellType.FORMULA) {
+            return null;
+        }
+        try {
+            return FormulaEvaluator.compiledFormulaFor(cell, Validationformula.extractFormula(cell.getRawContent()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // هش محتوای فرمول و محتوای خام همه‌ی سلول‌های ورودی آن (به ترتیب ثابت)
+    private long inputHash(String formulaRaw, Set<String> references) {
+        long hash = hash(FNV_OFFSET, formulaRaw);
+        for (String reference : new TreeSet<>(references)) {
+            hash = hash(hash, reference);
+            hash = hash(hash, rawContentOf(reference));
+        }
+        return hash;
+    }
+
+    // ارجاع به سطری که ساخته نشده همان محتوای خالی است؛ سطر برای خواندن ساخته نمی‌شود
+    private String rawContentOf(String reference) {
+        if (!spreadsheet.isValidCellReference(reference)) {
+            return "";
+        }
+        int[] coordinates = CellConverter.fromCellReference(reference);
+        Cell cell = spreadsheet.peekCell(coordinates[0], coordinates[1]);
+        return cell == null ? "" : cell.getRawContent();
+    }
+
+    private static long hash(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= 0xFF;
+        return hash * FNV_PRIME;
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.controller;
+
+import org.example.model.ErrorType;
+import org.example.model.SheetSnapshot;
+import org.example.model.Spreadsheet;
+import org.example.utils.CellConverter;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// نوشتن جریانی یک شیت در قالب xlsx با StAX؛ فقط یک سطر در هر لحظه در حافظه است
+public class XlsxExporter {
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private static final String CONTENT_TYPES = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+            + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+            + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+            + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+            + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+            + "</Types>";
+
+    private static final String ROOT_RELATIONSHIPS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+            + "</Relationships>";
+
+    private static final String WORKBOOK = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<workbook xmlns=\"" + MAIN_NS + "\" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+            + "<sheets><sheet name=\"Sheet1\" sheetId=\"1\" r:id=\"rId1\"/></sheets>"
+            + "</workbook>";
+
+    private static final String WORKBOOK_RELATIONSHIPS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+            + "</Relationships>";
+
+    private final Spreadsheet spreadsheet;
+    private final XMLOutputFactory factory;
+
+    public XlsxExporter(Spreadsheet spreadsheet) {
+        this.spreadsheet = spreadsheet;
+        this.factory = XMLOutputFactory.newFactory();
+    }
+
+    public ExportStats export(Path path) throws IOException {
+        return export(spreadsheet.snapshot(), path);
+    }
+
+    public ExportStats export(Path path, int firstRow, int firstCol, int lastRow, int lastCol) throws IOException {
+        return export(spreadsheet.snapshot(firstRow, firstCol, lastRow, lastCol), path);
+    }
+
+    public ExportStats export(SheetSnapshot snapshot, Path path) throws IOException {
+        long begin = System.nanoTime();
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            writeEntry(zip, "[Content_Types].xml", CONTENT_TYPES);
+            writeEntry(zip, "_rels/.rels", ROOT_RELATIONSHIPS);
+            writeEntry(zip, "xl/workbook.xml", WORKBOOK);
+            writeEntry(zip, "xl/_rels/workbook.xml.rels", WORKBOOK_RELATIONSHIPS);
+
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            // بستن XMLStreamWriter جریان زیرین را نمی‌بندد، پس zip باز می‌ماند
+            writeSheet(snapshot, zip);
+            zip.closeEntry();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to write worksheet: " + e.getMessage(), e);
+        }
+        return new ExportStats(snapshot.getRows(), Files.size(path), System.nanoTime() - begin);
+    }
+
+    private void writeEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private void writeSheet(SheetSnapshot snapshot, OutputStream out) throws XMLStreamException {
+        XMLStreamWriter xml = factory.createXMLStreamWriter(out, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeStartElement("worksheet");
+        xml.writeDefaultNamespace(MAIN_NS);
+        xml.writeStartElement("sheetData");
+
+        for (int row = 0; row < snapshot.getRows(); row++) {
+            boolean rowStarted = false;
+            for (int col = 0; col < snapshot.getCols(); col++) {
+                Object value = snapshot.getValue(row, col);
+                String formula = snapshot.getFormula(row, col);
+                boolean error = snapshot.hasError(row, col);
+                if (value == null && formula == null && !error) {
+                    continue;
+                }
+
+                if (!rowStarted) {
+                    xml.writeStartElement("row");
+                    xml.writeAttribute("r", String.valueOf(snapshot.getFirstRow() + row + 1));
+                    rowStarted = true;
+                }
+                writeCell(xml, snapshot, row, col, value, formula, error);
+            }
+            if (rowStarted) {
+                xml.writeEndElement();
+            }
+        }
+
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndDocument();
+        xml.flush();
+        xml.close();
+    }
+
+    private void writeCell(XMLStreamWriter xml, SheetSnapshot snapshot, int row, int col,
+                           Object value, String formula, boolean error) throws XMLStreamException {
+        xml.writeStartElement("c");
+        xml.writeAttribute("r", CellConverter.toCellReference(snapshot.getFirstRow() + row, snapshot.getFirstCol() + col));
+
+        String excelFormula = formula != null ? XlsxFormulaTranslator.toExcel(formula) : null;
+
+        if (error) {
+            xml.writeAttribute("t", "e");
+            writeFormula(xml, excelFormula);
+            writeElement(xml, "v", errorCode(snapshot.getErrorType(row, col)));
+        } else if (value instanceof Number) {
+            writeFormula(xml, excelFormula);
+            writeElement(xml, "v", numberText(((Number) value).doubleValue()));
+        } else if (excelFormula != null) {
+            xml.writeAttribute("t", "str");
+            writeFormula(xml, excelFormula);
+            writeElement(xml, "v", value != null ? value.toString() : "");
+        } else {
+            xml.writeAttribute("t", "inlineStr");
+            xml.writeStartElement("is");
+            writeElement(xml, "t", value != null ? value.toString() : "");
+            xml.writeEndElement();
+        }
+
+        xml.writeEndElement();
+    }
+
+    private void writeFormula(XMLStreamWriter xml, String excelFormula) throws XMLStreamException {
+        if (excelFormula != null) {
+            writeElement(xml, "f", excelFormula);
+        }
+    }
+
+    private void writeElement(XMLStreamWriter xml, String name, String text) throws XMLStreamException {
+        xml.writeStartElement(name);
+        xml.writeCharacters(text);
+        xml.writeEndElement();
+    }
+
+    // عدد صحیح بدون ".0" نوشته می‌شود؛ بقیه با دقت کامل برای رفت و برگشت بدون خطا
+    private String numberText(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private String errorCode(ErrorType type) {
+        switch (type) {
+            case DIVISION_BY_ZERO:
+                return "#DIV/0!";
+            case INVALID_REFERENCE:
+            case CIRCULAR_DEPENDENCY:
+            case SELF_REFERENCE:
+                return "#REF!";
+            default:
+                return "#VALUE!";
+        }
+    }
+}
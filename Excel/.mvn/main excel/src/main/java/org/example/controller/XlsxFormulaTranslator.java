@@ -0,0 +1,288 @@
+package org.example.controller;
+
+// تبدیل فرمول‌های اکسل به نحو همین پروژه و برعکس؛ اگر فرمول قابل ترجمه نباشد null برمی‌گردد
+public class XlsxFormulaTranslator {
+
+    public static String toProject(String excelFormula) {
+        if (excelFormula == null || excelFormula.isEmpty()) {
+            return null;
+        }
+
+        String formula = excelFormula.startsWith("=") ? excelFormula.substring(1) : excelFormula;
+        StringBuilder out = new StringBuilder(formula.length());
+        int i = 0;
+        int n = formula.length();
+
+        while (i < n) {
+            char c = formula.charAt(i);
+
+            if (Character.isWhitespace(c) || c == '$') {
+                i++;
+            } else if (c == '"') {
+                int end = formula.indexOf('"', i + 1);
+                if (end < 0 || (end + 1 < n && formula.charAt(end + 1) == '"')) {
+                    return null;
+                }
+                out.append(formula, i, end + 1);
+                i = end + 1;
+            } else if (Character.isDigit(c) || c == '.') {
+                i = copyNumber(formula, i, out);
+            } else if (isAsciiLetter(c)) {
+                int nameEnd = i;
+                while (nameEnd < n && isAsciiLetter(formula.charAt(nameEnd))) nameEnd++;
+                int digitsStart = nameEnd < n && formula.charAt(nameEnd) == '$' ? nameEnd + 1 : nameEnd;
+                int digitsEnd = digitsStart;
+                while (digitsEnd < n && Character.isDigit(formula.charAt(digitsEnd))) digitsEnd++;
+
+                String name = formula.substring(i, nameEnd).toUpperCase();
+                if (digitsEnd > digitsStart) {
+                    // ارجاع سلولی؛ فقط ستون‌های تک‌حرفی در این جدول وجود دارند
+                    if (name.length() != 1 || nextNonSpace(formula, digitsEnd) == '(') {
+                        return null;
+                    }
+                    out.append(name).append(formula, digitsStart, digitsEnd);
+                    i = digitsEnd;
+                } else {
+                    int open = skipSpaces(formula, nameEnd);
+                    if (open >= n || formula.charAt(open) != '(') {
+                        return null;
+                    }
+                    int close = findClosingParen(formula, open);
+                    if (close < 0) {
+                        return null;
+                    }
+                    String argument = stripReferenceMarkers(formula.substring(open + 1, close));
+                    String translated = translateFunction(name, argument);
+                    if (translated == null) {
+                        return null;
+                    }
+                    out.append(translated);
+                    i = close + 1;
+                }
+            } else if (c == '+' || c == '-' || c == '*' || c == '/' || c == '^' || c == '(' || c == ')') {
+                out.append(c);
+                i++;
+            } else {
+                // % و & و مقایسه‌ها و ارجاع به شیت‌های دیگر در این پروژه معادلی ندارند
+                return null;
+            }
+        }
+
+        return out.length() > 0 ? out.toString() : null;
+    }
+
+    public static String toExcel(String projectFormula) {
+        if (projectFormula == null || projectFormula.isEmpty()) {
+            return null;
+        }
+
+        String formula = projectFormula.startsWith("=") ? projectFormula.substring(1) : projectFormula;
+        StringBuilder out = new StringBuilder(formula.length() + 8);
+        int i = 0;
+        int n = formula.length();
+
+        while (i < n) {
+            char c = formula.charAt(i);
+
+            if (c == '!') {
+                // فاکتوریل در اکسل عملگر ندارد
+                return null;
+            } else if (c == '"') {
+                int end = formula.indexOf('"', i + 1);
+                if (end < 0) {
+                    return null;
+                }
+                out.append(formula, i, end + 1);
+                i = end + 1;
+            } else if (isAsciiLetter(c)) {
+                int nameEnd = i;
+                while (nameEnd < n && isAsciiLetter(formula.charAt(nameEnd))) nameEnd++;
+                int digitsEnd = nameEnd;
+                while (digitsEnd < n && Character.isDigit(formula.charAt(digitsEnd))) digitsEnd++;
+
+                String name = formula.substring(i, nameEnd).toUpperCase();
+                if (digitsEnd > nameEnd) {
+                    out.append(name).append(formula, nameEnd, digitsEnd);
+                } else if (name.equals("AVG")) {
+                    out.append("AVERAGE");
+                } else if (name.equals("SUM") || name.equals("MIN") || name.equals("MAX") || name.equals("COUNT")) {
+                    out.append(name);
+                } else if (name.equals("PI")) {
+                    out.append("PI()");
+                } else if (name.equals("E")) {
+                    out.append("EXP(1)");
+                } else {
+                    return null;
+                }
+                i = digitsEnd;
+            } else if (!Character.isWhitespace(c)) {
+                out.append(c);
+                i++;
+            } else {
+                i++;
+            }
+        }
+
+        return out.toString();
+    }
+
+    // فرمول مشترک (shared formula) اکسل را برای سلولی که به اندازه‌ی داده شده جابه‌جا شده بازنویسی می‌کند
+    public static String shiftReferences(String excelFormula, int rowOffset, int colOffset) {
+        StringBuilder out = new StringBuilder(excelFormula.length() + 4);
+        int i = 0;
+        int n = excelFormula.length();
+
+        while (i < n) {
+            char c = excelFormula.charAt(i);
+            if (c == '"') {
+                int end = excelFormula.indexOf('"', i + 1);
+                end = end < 0 ? n - 1 : end;
+                out.append(excelFormula, i, end + 1);
+                i = end + 1;
+                continue;
+            }
+            boolean insideNumber = i > 0 && (Character.isDigit(excelFormula.charAt(i - 1))
+                    || excelFormula.charAt(i - 1) == '.');
+            if ((c != '$' && !isAsciiLetter(c)) || insideNumber) {
+                out.append(c);
+                i++;
+                continue;
+            }
+
+            int start = i;
+            boolean absoluteCol = c == '$';
+            if (absoluteCol) i++;
+            int nameEnd = i;
+            while (nameEnd < n && isAsciiLetter(excelFormula.charAt(nameEnd))) nameEnd++;
+            boolean absoluteRow = nameEnd < n && excelFormula.charAt(nameEnd) == '$';
+            int digitsStart = absoluteRow ? nameEnd + 1 : nameEnd;
+            int digitsEnd = digitsStart;
+            while (digitsEnd < n && Character.isDigit(excelFormula.charAt(digitsEnd))) digitsEnd++;
+
+            if (nameEnd == i || digitsEnd == digitsStart || nextNonSpace(excelFormula, digitsEnd) == '(') {
+                out.append(excelFormula, start, Math.max(nameEnd, start + 1));
+                i = Math.max(nameEnd, start + 1);
+                continue;
+            }
+
+            int col = 0;
+            for (int k = i; k < nameEnd; k++) {
+                col = col * 26 + (Character.toUpperCase(excelFormula.charAt(k)) - 'A' + 1);
+            }
+            int row = Integer.parseInt(excelFormula.substring(digitsStart, digitsEnd));
+            if (!absoluteCol) col += colOffset;
+            if (!absoluteRow) row += rowOffset;
+
+            if (absoluteCol) out.append('$');
+            out.append(columnName(col));
+            if (absoluteRow) out.append('$');
+            out.append(row);
+            i = digitsEnd;
+        }
+        return out.toString();
+    }
+
+    // شماره‌ی ستون از یک شروع می‌شود (A = 1)
+    static String columnName(int col) {
+        StringBuilder name = new StringBuilder();
+        while (col > 0) {
+            int remainder = (col - 1) % 26;
+            name.insert(0, (char) ('A' + remainder));
+            col = (col - 1) / 26;
+        }
+        return name.toString();
+    }
+
+    private static String translateFunction(String name, String argument) {
+        switch (name) {
+            case "SUM":
+            case "MIN":
+            case "MAX":
+            case "COUNT":
+                return rangeArgument(argument) != null ? name + "(" + rangeArgument(argument) + ")" : null;
+            case "AVERAGE":
+            case "AVG":
+                return rangeArgument(argument) != null ? "AVG(" + rangeArgument(argument) + ")" : null;
+            case "PI":
+                return argument.isEmpty() ? "PI" : null;
+            case "EXP":
+                return argument.equals("1") ? "E" : null;
+            default:
+                return null;
+        }
+    }
+
+    // توابع تجمعی این پروژه فقط یک محدوده می‌گیرند؛ یک سلول تنها به محدوده‌ی یک‌خانه‌ای تبدیل می‌شود
+    private static String rangeArgument(String argument) {
+        int colon = argument.indexOf(':');
+        if (colon < 0) {
+            return isSimpleCellReference(argument) ? argument + ":" + argument : null;
+        }
+        String start = argument.substring(0, colon);
+        String end = argument.substring(colon + 1);
+        return isSimpleCellReference(start) && isSimpleCellReference(end) ? start + ":" + end : null;
+    }
+
+    private static boolean isSimpleCellReference(String ref) {
+        if (ref.length() < 2 || !isAsciiLetter(ref.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < ref.length(); i++) {
+            if (!Character.isDigit(ref.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String stripReferenceMarkers(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '$' && !Character.isWhitespace(c)) {
+                result.append(Character.toUpperCase(c));
+            }
+        }
+        return result.toString();
+    }
+
+    private static int copyNumber(String formula, int i, StringBuilder out) {
+        int n = formula.length();
+        int start = i;
+        while (i < n && (Character.isDigit(formula.charAt(i)) || formula.charAt(i) == '.')) i++;
+        if (i < n && (formula.charAt(i) == 'e' || formula.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (exponent < n && (formula.charAt(exponent) == '+' || formula.charAt(exponent) == '-')) exponent++;
+            if (exponent < n && Character.isDigit(formula.charAt(exponent))) {
+                i = exponent;
+                while (i < n && Character.isDigit(formula.charAt(i))) i++;
+            }
+        }
+        out.append(formula, start, i);
+        return i;
+    }
+
+    private static int findClosingParen(String formula, int open) {
+        int depth = 0;
+        for (int i = open; i < formula.length(); i++) {
+            char c = formula.charAt(i);
+            if (c == '(') depth++;
+            else if (c == ')' && --depth == 0) return i;
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(String formula, int i) {
+        while (i < formula.length() && Character.isWhitespace(formula.charAt(i))) i++;
+        return i;
+    }
+
+    private static char nextNonSpace(String formula, int i) {
+        i = skipSpaces(formula, i);
+        return i < formula.length() ? formula.charAt(i) : '\0';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+}
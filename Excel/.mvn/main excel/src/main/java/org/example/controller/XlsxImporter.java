@@ -0,0 +1,372 @@
+package org.example.controller;
+
+import org.example.model.CompiledFormula;
+import org.example.model.Spreadsheet;
+import org.example.utils.TextDictionary;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// خواندن جریانی اولین شیت یک فایل xlsx با StAX؛ هیچ درخت DOM ساخته نمی‌شود
+public class XlsxImporter {
+    private static final String DEFAULT_SHEET = "xl/worksheets/sheet1.xml";
+    private static final String RELATIONSHIP_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final Spreadsheet spreadsheet;
+    private final TextDictionary dictionary;
+    private final XMLInputFactory factory;
+    private int untranslatedFormulas;
+
+    public XlsxImporter(Spreadsheet spreadsheet) {
+        this(spreadsheet, new TextDictionary());
+    }
+
+    public XlsxImporter(Spreadsheet spreadsheet, TextDictionary dictionary) {
+        this.spreadsheet = spreadsheet;
+        this.dictionary = dictionary;
+        this.factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    // تعداد فرمول‌هایی که معادلی در این پروژه نداشتند و فقط مقدار ذخیره‌شده‌شان وارد شد
+    public int getUntranslatedFormulas() {
+        return untranslatedFormulas;
+    }
+
+    public ImportStats importFile(Path path) throws IOException {
+        return importFile(path, 0, 0);
+    }
+
+    // خانه‌ی A1 شیت روی (startRow, startCol) می‌نشیند و ارجاع‌های نسبی فرمول‌ها هم همان‌قدر جابه‌جا می‌شوند
+    public ImportStats importFile(Path path, int startRow, int startCol) throws IOException {
+        if (!spreadsheet.isValidCoordinate(startRow, startCol)) {
+            throw new IllegalArgumentException("Invalid import position: (" + startRow + ", " + startCol + ")");
+        }
+
+        long begin = System.nanoTime();
+        untranslatedFormulas = 0;
+
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            List<String> sharedStrings = readSharedStrings(zip);
+            ZipEntry sheet = zip.getEntry(resolveFirstSheet(zip));
+            if (sheet == null) {
+                throw new IOException("Workbook has no worksheet: " + path);
+            }
+
+            SheetReader reader = new SheetReader(sharedStrings, startRow, startCol);
+            spreadsheet.bulkUpdate(() -> {
+                try (InputStream in = zip.getInputStream(sheet)) {
+                    reader.read(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (XMLStreamException e) {
+                    throw new UncheckedIOException(new IOException("Malformed worksheet XML: " + e.getMessage(), e));
+                }
+            });
+
+            return new ImportStats(reader.rows, reader.cells, reader.skippedRows, System.nanoTime() - begin);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed workbook XML: " + e.getMessage(), e);
+        }
+    }
+
+    private List<String> readSharedStrings(ZipFile zip) throws IOException, XMLStreamException {
+        List<String> strings = new ArrayList<>();
+        ZipEntry entry = zip.getEntry("xl/sharedStrings.xml");
+        if (entry == null) {
+            return strings;
+        }
+
+        try (InputStream in = zip.getInputStream(entry)) {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            StringBuilder current = new StringBuilder();
+            boolean inPhonetic = false;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if (name.equals("si")) {
+                        current.setLength(0);
+                    } else if (name.equals("rPh")) {
+                        inPhonetic = true;
+                    } else if (name.equals("t") && !inPhonetic) {
+                        current.append(xml.getElementText());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if (name.equals("si")) {
+                        strings.add(dictionary.intern(current.toString()));
+                    } else if (name.equals("rPh")) {
+                        inPhonetic = false;
+                    }
+                }
+            }
+            xml.close();
+        }
+        return strings;
+    }
+
+    // مسیر اولین شیت از workbook.xml و فایل روابط آن پیدا می‌شود
+    private String resolveFirstSheet(ZipFile zip) throws IOException, XMLStreamException {
+        ZipEntry workbook = zip.getEntry("xl/workbook.xml");
+        ZipEntry relations = zip.getEntry("xl/_rels/workbook.xml.rels");
+        if (workbook == null || relations == null) {
+            return DEFAULT_SHEET;
+        }
+
+        String relationId = null;
+        try (InputStream in = zip.getInputStream(workbook)) {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            while (xml.hasNext() && relationId == null) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("sheet")) {
+                    relationId = xml.getAttributeValue(RELATIONSHIP_NS, "id");
+                }
+            }
+            xml.close();
+        }
+        if (relationId == null) {
+            return DEFAULT_SHEET;
+        }
+
+        try (InputStream in = zip.getInputStream(relations)) {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("Relationship")
+                        && relationId.equals(xml.getAttributeValue(null, "Id"))) {
+                    String target = xml.getAttributeValue(null, "Target");
+                    xml.close();
+                    return target.startsWith("/") ? target.substring(1) : "xl/" + target;
+                }
+            }
+            xml.close();
+        }
+        return DEFAULT_SHEET;
+    }
+
+    private static class SharedFormula {
+        private final String formula;
+        private final int row;
+        private final int col;
+
+        private SharedFormula(String formula, int row, int col) {
+            this.formula = formula;
+            this.row = row;
+            this.col = col;
+        }
+    }
+
+    private static class PendingFormula {
+        private final int row;
+        private final int col;
+        private final CompiledFormula formula;
+
+        private PendingFormula(int row, int col, CompiledFormula formula) {
+            this.row = row;
+            this.col = col;
+            this.formula = formula;
+        }
+    }
+
+    private class SheetReader {
+        private final List<String> sharedStrings;
+        private final Map<String, SharedFormula> sharedFormulas;
+        private final List<PendingFormula> formulas;
+        private final int startRow;
+        private final int startCol;
+        private long rows;
+        private long cells;
+        private long skippedRows;
+
+        private int row;
+        private int col;
+        private String type;
+        private String value;
+        private String formula;
+        private int targetRow;
+        private int targetCol;
+
+        private SheetReader(List<String> sharedStrings, int startRow, int startCol) {
+            this.sharedStrings = sharedStrings;
+            this.sharedFormulas = new HashMap<>();
+            this.formulas = new ArrayList<>();
+            this.startRow = startRow;
+            this.startCol = startCol;
+        }
+
+        private void read(InputStream in) throws XMLStreamException {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            int currentRow = -1;
+            boolean rowInGrid = false;
+
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case "row":
+                            String r = xml.getAttributeValue(null, "r");
+                            currentRow = r != null ? Integer.parseInt(r) - 1 : currentRow + 1;
+                            rowInGrid = startRow + currentRow < spreadsheet.getRows();
+                            if (rowInGrid) rows++;
+                            else skippedRows++;
+                            col = -1;
+                            break;
+                        case "c":
+                            startCell(xml.getAttributeValue(null, "r"), xml.getAttributeValue(null, "t"), currentRow);
+                            break;
+                        case "f":
+                            readFormula(xml);
+                            break;
+                        case "v":
+                            value = xml.getElementText();
+                            break;
+                        case "t":
+                            // متن inline داخل <is>
+                            value = value == null ? xml.getElementText() : value + xml.getElementText();
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("c")) {
+                    if (rowInGrid && col >= 0 && startCol + col < spreadsheet.getCols()) {
+                        writeCell();
+                    }
+                }
+            }
+            xml.close();
+
+            // فرمول‌ها بعد از همه‌ی مقادیر ثابت ثبت می‌شوند تا محاسبه‌ی اولیه‌شان روی داده‌ی کامل باشد
+            for (PendingFormula pending : formulas) {
+                spreadsheet.setCompiledFormula(pending.row, pending.col, pending.formula);
+            }
+        }
+
+        private void startCell(String reference, String cellType, int currentRow) {
+            row = currentRow;
+            col = reference != null ? columnOf(reference) : col + 1;
+            type = cellType != null ? cellType : "n";
+            value = null;
+            formula = null;
+        }
+
+        private void readFormula(XMLStreamReader xml) throws XMLStreamException {
+            String formulaType = xml.getAttributeValue(null, "t");
+            String sharedIndex = xml.getAttributeValue(null, "si");
+            String text = xml.getElementText();
+
+            if ("shared".equals(formulaType) && sharedIndex != null) {
+                if (!text.isEmpty()) {
+                    sharedFormulas.put(sharedIndex, new SharedFormula(text, row, col));
+                    formula = text;
+                } else {
+                    SharedFormula master = sharedFormulas.get(sharedIndex);
+                    formula = master == null ? null
+                            : XlsxFormulaTranslator.shiftReferences(master.formula, row - master.row, col - master.col);
+                }
+            } else if (!text.isEmpty()) {
+                formula = text;
+            }
+        }
+
+        // row و col مختصات خود شیت‌اند و فرمول‌های مشترک نسبت به همان جابه‌جا می‌شوند؛ نوشتن در خانه‌ی مقصد است
+        private void writeCell() {
+            cells++;
+            targetRow = startRow + row;
+            targetCol = startCol + col;
+
+            if (formula != null) {
+                String shifted = startRow == 0 && startCol == 0 ? formula
+                        : XlsxFormulaTranslator.shiftReferences(formula, startRow, startCol);
+                CompiledFormula compiled = compile(XlsxFormulaTranslator.toProject(shifted));
+                if (compiled != null) {
+                    formulas.add(new PendingFormula(targetRow, targetCol, compiled));
+                    return;
+                }
+                untranslatedFormulas++;
+            }
+
+            if (value == null || value.isEmpty()) {
+                load(spreadsheet.loadEmpty(targetRow, targetCol), "");
+                return;
+            }
+
+            switch (type) {
+                case "s":
+                    int index = parseIndex(value);
+                    String shared = index >= 0 && index < sharedStrings.size() ? sharedStrings.get(index) : "";
+                    load(spreadsheet.loadText(targetRow, targetCol, shared), shared);
+                    break;
+                case "b":
+                    String bool = "1".equals(value) ? "TRUE" : "FALSE";
+                    load(spreadsheet.loadText(targetRow, targetCol, bool), bool);
+                    break;
+                case "str":
+                case "inlineStr":
+                case "e":
+                    String text = dictionary.intern(value);
+                    load(spreadsheet.loadText(targetRow, targetCol, text), text);
+                    break;
+                default:
+                    try {
+                        load(spreadsheet.loadNumber(targetRow, targetCol, Double.parseDouble(value), value), value);
+                    } catch (NumberFormatException e) {
+                        String fallback = dictionary.intern(value);
+                        load(spreadsheet.loadText(targetRow, targetCol, fallback), fallback);
+                    }
+            }
+        }
+
+        // سلولی که قبلاً فرمول بوده از مسیر عادی نوشته می‌شود تا یال‌های گراف پاک شوند
+        private void load(boolean loaded, String content) {
+            if (!loaded) {
+                spreadsheet.setCellContent(targetRow, targetCol, content);
+            }
+        }
+
+        private CompiledFormula compile(String translated) {
+            if (translated == null) {
+                return null;
+            }
+            try {
+                return Calculate.compile(translated);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        private int columnOf(String reference) {
+            int column = 0;
+            int i = 0;
+            while (i < reference.length() && Character.isLetter(reference.charAt(i))) {
+                column = column * 26 + (Character.toUpperCase(reference.charAt(i)) - 'A' + 1);
+                i++;
+            }
+            return column - 1;
+        }
+
+        private int parseIndex(String text) {
+            int result = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') return -1;
+                result = result * 10 + (c - '0');
+            }
+            return result;
+        }
+    }
+}
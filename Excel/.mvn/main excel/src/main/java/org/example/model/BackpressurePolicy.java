@@ -0,0 +1,11 @@
+package org.example.model;
+
+// رفتار صف پرِ یک اشتراک تغییرها وقتی نسخه‌ی تازه‌ای منتشر می‌شود
+public enum BackpressurePolicy {
+    // رویداد تازه دور ریخته و شمرده می‌شود
+    DROP,
+    // نخ نویسنده تا خالی شدن جا (یا بسته شدن اشتراک) منتظر می‌ماند
+    BLOCK,
+    // رویداد تازه با آخرین رویداد صف ادغام می‌شود: برای هر سلول مقدار قدیم اولی و مقدار جدید آخری
+    COALESCE_LATEST
+}
@@ -2,6 +2,7 @@ package org.example.model;
 
 
 import org.example.utils.MathHelper;
+import org.example.utils.NumberParser;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -14,6 +15,17 @@ public class Cell {
     private Set<String> dependencies; // سلول‌هایی که این سلول به آنها وابسته است
     private ErrorType errorType;
     private String errorMessage;
+    private CompiledFormula compiledFormula;
+    // سلول پرشده با FILL به جای متن و شکل کامپایل‌شده‌ی خودش به قالب مشترک و مختصات خودش اشاره می‌کند
+    private FormulaTemplate formulaTemplate;
+    private int anchorRow;
+    private int anchorCol;
+    // متن نمایشی محاسبه‌شده؛ هر تغییری در مقدار، نوع، خطا یا متن خام آن را باطل می‌کند
+    private String displayValue;
+    // در حالت محاسبه‌ی تنبل سلول کهنه به جدول صاحبش اشاره می‌کند؛ اولین خواندن مقدار یا خطا
+    // سلول (و مقدم‌های کهنه‌اش) را همان‌جا محاسبه می‌کند
+    private Spreadsheet staleOwner;
+    private int staleIndex;
 
     public Cell() {
         this.rawContent = "";
@@ -31,10 +43,15 @@ public class Cell {
     }
 
     public String getRawContent() {
+        if (formulaTemplate != null) {
+            return "=" + formulaTemplate.render(anchorRow, anchorCol);
+        }
         return rawContent;
     }
 
     public void setRawContent(String rawContent) {
+        this.formulaTemplate = null;
+        this.displayValue = null;
         if (rawContent != null) {
             this.rawContent = rawContent;
         } else {
@@ -43,11 +60,13 @@ public class Cell {
     }
 
     public Object getComputedValue() {
+        resolve();
         return computedValue;
     }
 
     public void setComputedValue(Object computedValue) {
         this.computedValue = computedValue;
+        this.displayValue = null;
     }
 
     public CellType getCellType() {
@@ -56,9 +75,44 @@ public class Cell {
 
     public void setCellType(CellType cellType) {
         this.cellType = cellType;
+        this.displayValue = null;
+    }
+
+    public CompiledFormula getCompiledFormula() {
+        return compiledFormula;
+    }
+
+    public void setCompiledFormula(CompiledFormula compiledFormula) {
+        this.compiledFormula = compiledFormula;
+    }
+
+    public FormulaTemplate getFormulaTemplate() {
+        return formulaTemplate;
+    }
+
+    public int getAnchorRow() {
+        return anchorRow;
+    }
+
+    public int getAnchorCol() {
+        return anchorCol;
+    }
+
+    public void setFormulaTemplate(FormulaTemplate template, int row, int col) {
+        this.rawContent = "";
+        this.cellType = CellType.FORMULA;
+        this.compiledFormula = null;
+        this.dependencies.clear();
+        this.formulaTemplate = template;
+        this.displayValue = null;
+        this.anchorRow = row;
+        this.anchorCol = col;
     }
 
     public Set<String> getDependencies() {
+        if (formulaTemplate != null) {
+            return formulaTemplate.references(anchorRow, anchorCol);
+        }
         return new HashSet<>(dependencies);
     }
 
@@ -71,17 +125,20 @@ public class Cell {
     }
 
     public ErrorType getErrorType() {
+        resolve();
         return errorType;
     }
 
     public void setErrorType(ErrorType errorType) {
         this.errorType = errorType != null ? errorType : ErrorType.NO_ERROR;
+        this.displayValue = null;
         if (this.errorType == ErrorType.NO_ERROR) {
             this.errorMessage = "";
         }
     }
 
     public String getErrorMessage() {
+        resolve();
         return errorMessage;
     }
 
@@ -90,20 +147,44 @@ public class Cell {
     }
 
     public boolean hasError() {
+        resolve();
         return errorType != ErrorType.NO_ERROR;
     }
 
     public void clearError() {
         this.errorType = ErrorType.NO_ERROR;
+        this.displayValue = null;
         this.errorMessage = "";
     }
 
+    // سلول کهنه را محاسبه نمی‌کند؛ سلول کهنه همیشه فرمول دارد و خالی نیست
     public boolean isEmpty() {
         return (rawContent == null || rawContent.isEmpty()) &&
-                !hasError() &&
+                formulaTemplate == null &&
+                errorType == ErrorType.NO_ERROR &&
                 computedValue == null;
     }
 
+    public boolean isStale() {
+        return staleOwner != null;
+    }
+
+    void markStale(Spreadsheet owner, int index) {
+        this.staleOwner = owner;
+        this.staleIndex = index;
+    }
+
+    void clearStale() {
+        this.staleOwner = null;
+    }
+
+    private void resolve() {
+        Spreadsheet owner = staleOwner;
+        if (owner != null) {
+            owner.resolveStale(staleIndex);
+        }
+    }
+
     public double getNumericValue() {
         if (hasError()) {
             throw new IllegalStateException("Cell has error: " + errorMessage);
@@ -112,11 +193,11 @@ public class Cell {
         if (computedValue instanceof Number) {
             return ((Number) computedValue).doubleValue();
         } else if (computedValue instanceof String) {
-            try {
-                return Double.parseDouble((String) computedValue);
-            } catch (NumberFormatException e) {
+            double value = NumberParser.parse((String) computedValue);
+            if (Double.isNaN(value)) {
                 throw new IllegalStateException("Cell does not contain a numeric value");
             }
+            return value;
         } else {
             throw new IllegalStateException("Cell does not contain a numeric value");
         }
@@ -140,7 +221,18 @@ public class Cell {
         return Objects.hash(rawContent, computedValue, cellType, errorType, dependencies);
     }
 
+    // رندر دوباره‌ی جدول فقط رشته‌ی ذخیره‌شده را برمی‌گرداند و چیزی نمی‌سازد
     public String getDisplayValue() {
+        resolve();
+        String cached = displayValue;
+        if (cached == null) {
+            cached = formatDisplayValue();
+            displayValue = cached;
+        }
+        return cached;
+    }
+
+    private String formatDisplayValue() {
         if (hasError()) {
             return "#ERR!";
         }
@@ -2,32 +2,34 @@ package org.example.model;
 
 import org.example.utils.CellConverter;
 
+import java.util.Arrays;
+
+// سطرها با اولین دسترسی ساخته می‌شوند؛ جدول میلیون‌سطری فقط برای سطرهای استفاده‌شده Cell می‌سازد
 public class CellArray {
     private final Cell[][] grid;
     private final int rows;
     private final int cols;
 
     public CellArray(int rows, int cols) {
-        if (rows <= 0 || cols <= 0 || rows > 26 || cols > 26) {
+        if (rows <= 0 || cols <= 0 || rows > CellConverter.MAX_ROWS || cols > CellConverter.MAX_COLUMNS) {
             throw new IllegalArgumentException("Invalid grid dimensions: " + rows + "x" + cols);
         }
         this.rows = rows;
         this.cols = cols;
-        this.grid = new Cell[rows][cols];
-        initializeGrid();
+        this.grid = new Cell[rows][];
     }
 
-    private void initializeGrid() {
-        for (int i = 0; i < rows; i++) {
+    public Cell getCell(int row, int col) {
+        validateCoordinates(row, col);
+        Cell[] line = grid[row];
+        if (line == null) {
+            line = new Cell[cols];
             for (int j = 0; j < cols; j++) {
-                grid[i][j] = new Cell();
+                line[j] = new Cell();
             }
+            grid[row] = line;
         }
-    }
-
-    public Cell getCell(int row, int col) {
-        validateCoordinates(row, col);
-        return grid[row][col];
+        return line[col];
     }
 
     public Cell getCell(String cellReference) {
@@ -35,6 +37,17 @@ public class CellArray {
         return getCell(coordinates[0], coordinates[1]);
     }
 
+    // خواندن بدون ساختن سطر؛ برای سطری که هنوز ساخته نشده null برمی‌گرداند
+    public Cell peekCell(int row, int col) {
+        validateCoordinates(row, col);
+        Cell[] line = grid[row];
+        return line == null ? null : line[col];
+    }
+
+    public boolean hasRow(int row) {
+        return row >= 0 && row < rows && grid[row] != null;
+    }
+
     public boolean isValidCoordinate(int row, int col) {
         return row >= 0 && row < rows && col >= 0 && col < cols;
     }
@@ -58,10 +71,6 @@ public class CellArray {
     }
 
     public void clear() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                grid[i][j] = new Cell();
-            }
-        }
+        Arrays.fill(grid, null);
     }
 }
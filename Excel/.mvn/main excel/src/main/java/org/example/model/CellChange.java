@@ -0,0 +1,81 @@
+package org.example.model;
+
+import org.example.utils.CellConverter;
+
+import java.util.Objects;
+
+// تغییر مقدار محاسبه‌شده یا خطای یک سلول بین دو نسخه‌ی پشت سر هم؛ تغییرناپذیر است
+public final class CellChange {
+    private final int row;
+    private final int col;
+    private final Object oldValue;
+    private final Object newValue;
+    private final ErrorType oldError;
+    private final ErrorType newError;
+
+    CellChange(int row, int col, Object oldValue, Object newValue, ErrorType oldError, ErrorType newError) {
+        this.row = row;
+        this.col = col;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.oldError = oldError;
+        this.newError = newError;
+    }
+
+    // null اگر مقدار و خطا در دو نسخه یکی باشد؛ نسخه‌ی null یعنی سلول خالی
+    static CellChange between(int row, int col, CellVersion before, CellVersion after) {
+        Object oldValue = before != null ? before.getComputedValue() : null;
+        Object newValue = after != null ? after.getComputedValue() : null;
+        ErrorType oldError = before != null ? before.getErrorType() : ErrorType.NO_ERROR;
+        ErrorType newError = after != null ? after.getErrorType() : ErrorType.NO_ERROR;
+        if (oldError == newError && Objects.equals(oldValue, newValue)) {
+            return null;
+        }
+        return new CellChange(row, col, oldValue, newValue, oldError, newError);
+    }
+
+    // تغییر ادغام‌شده از قدیم this تا جدید later؛ null اگر در مجموع چیزی عوض نشده باشد
+    CellChange followedBy(CellChange later) {
+        if (oldError == later.newError && Objects.equals(oldValue, later.newValue)) {
+            return null;
+        }
+        return new CellChange(row, col, oldValue, later.newValue, oldError, later.newError);
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public String getAddress() {
+        return CellConverter.toCellReference(row, col);
+    }
+
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    public ErrorType getOldError() {
+        return oldError;
+    }
+
+    public ErrorType getNewError() {
+        return newError;
+    }
+
+    public boolean hasError() {
+        return newError != ErrorType.NO_ERROR;
+    }
+
+    @Override
+    public String toString() {
+        return getAddress() + ": " + oldValue + " -> " + newValue + (hasError() ? " (" + newError + ")" : "");
+    }
+}
@@ -2,24 +2,53 @@ package org.example.model;
 
 
 import java.io.*;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
 
-public class CellState implements Serializable {
+public class CellState {
+    // حالت سلول خالی؛ تاریخچه برای سلول‌های خالی به جای حالت جدا null نگه می‌دارد
+    static final CellState EMPTY = new CellState(new Cell());
+
     private final String rawContent;
     private final Object computedValue;
     private final CellType cellType;
     private final Set<String> dependencies;
     private final ErrorType errorType;
     private final String errorMessage;
+    private final CompiledFormula compiledFormula;
+    // سلول پرشده با FILL فقط قالب مشترک و مختصاتش را نگه می‌دارد
+    private final FormulaTemplate formulaTemplate;
+    private final int anchorRow;
+    private final int anchorCol;
+    // سلول کهنه بدون محاسبه ذخیره می‌شود؛ بعد از بازگرداندن دوباره کهنه علامت می‌خورد
+    private final boolean stale;
 
     public CellState(Cell cell) {
-        this.rawContent = cell.getRawContent();
-        this.computedValue = deepCopyValue(cell.getComputedValue());
+        this.stale = cell.isStale();
+        this.formulaTemplate = cell.getFormulaTemplate();
+        this.anchorRow = cell.getAnchorRow();
+        this.anchorCol = cell.getAnchorCol();
+        this.rawContent = formulaTemplate != null ? "" : cell.getRawContent();
+        this.computedValue = stale ? null : deepCopyValue(cell.getComputedValue());
         this.cellType = cell.getCellType();
-        this.dependencies = new HashSet<>(cell.getDependencies());
-        this.errorType = cell.getErrorType();
-        this.errorMessage = cell.getErrorMessage();
+        this.compiledFormula = cell.getCompiledFormula();
+        this.dependencies = formulaTemplate != null || cellType == CellType.EMPTY
+                ? Collections.emptySet() : cell.getDependencies();
+        this.errorType = stale ? ErrorType.NO_ERROR : cell.getErrorType();
+        this.errorMessage = stale ? "" : cell.getErrorMessage();
+    }
+
+    // null برای سلول خالی
+    static CellState of(Cell cell) {
+        return cell.isEmpty() && !cell.isStale() ? null : new CellState(cell);
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    Set<String> getDependencies() {
+        return dependencies;
     }
 
     private Object deepCopyValue(Object value) {
@@ -44,11 +73,16 @@ public class CellState implements Serializable {
     }
 
     public void applyToCell(Cell cell) {
-        cell.setRawContent(this.rawContent);
+        if (formulaTemplate != null) {
+            cell.setFormulaTemplate(formulaTemplate, anchorRow, anchorCol);
+        } else {
+            cell.setRawContent(this.rawContent);
+            cell.setCellType(this.cellType);
+            cell.setCompiledFormula(this.compiledFormula);
+            cell.setDependencies(this.dependencies);
+        }
         cell.setComputedValue(this.computedValue);
-        cell.setCellType(this.cellType);
-        cell.setDependencies(this.dependencies);
         cell.setErrorType(this.errorType);
         cell.setErrorMessage(this.errorMessage);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package org.example.model;
+
+// حالت تغییرناپذیر یک سلول در یک نسخه‌ی جدول؛ بعد از انتشار از هر نخی بدون قفل خوانده می‌شود.
+// سلول پرشده با FILL متن فرمولش را تا وقت خواندن از روی قالب مشترک (که آن هم تغییرناپذیر است) نمی‌سازد
+public final class CellVersion {
+    private final CellType cellType;
+    private final String rawContent;
+    private final FormulaTemplate template;
+    private final int anchorRow;
+    private final int anchorCol;
+    private final Object computedValue;
+    private final ErrorType errorType;
+    private final String errorMessage;
+    private final String displayValue;
+    private final boolean stale;
+
+    private CellVersion(CellType cellType, String rawContent, FormulaTemplate template, int anchorRow, int anchorCol,
+                        Object computedValue, ErrorType errorType, String errorMessage, String displayValue,
+                        boolean stale) {
+        this.cellType = cellType;
+        this.rawContent = rawContent;
+        this.template = template;
+        this.anchorRow = anchorRow;
+        this.anchorCol = anchorCol;
+        this.computedValue = computedValue;
+        this.errorType = errorType;
+        this.errorMessage = errorMessage;
+        this.displayValue = displayValue;
+        this.stale = stale;
+    }
+
+    // null یعنی سلول خالی. سلول کهنه (حالت محاسبه‌ی تنبل) محاسبه نمی‌شود: آخرین مقدار منتشرشده‌اش
+    // با علامت کهنه می‌ماند تا بعد از محاسبه در نسخه‌ی بعدی بیاید
+    static CellVersion of(Cell cell, CellVersion previous) {
+        if (cell == null || cell.isEmpty()) {
+            return null;
+        }
+        if (cell.isStale()) {
+            if (previous == null) {
+                return new CellVersion(cell.getCellType(), cell.getFormulaTemplate() == null ? cell.getRawContent() : null,
+                        cell.getFormulaTemplate(), cell.getAnchorRow(), cell.getAnchorCol(),
+                        null, ErrorType.NO_ERROR, "", "", true);
+            }
+            return previous.stale ? previous : previous.asStale();
+        }
+        FormulaTemplate template = cell.getFormulaTemplate();
+        return new CellVersion(cell.getCellType(), template == null ? cell.getRawContent() : null, template,
+                cell.getAnchorRow(), cell.getAnchorCol(), cell.getComputedValue(), cell.getErrorType(),
+                cell.getErrorMessage(), cell.getDisplayValue(), false);
+    }
+
+    // آیا دو حالت (null یعنی خالی) متن، نوع و علامت خطای یکسانی نشان می‌دهند
+    static boolean sameDisplay(CellVersion a, CellVersion b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            CellVersion present = a != null ? a : b;
+            return present.cellType == CellType.EMPTY && !present.hasError() && present.displayValue.isEmpty();
+        }
+        return a.cellType == b.cellType && a.hasError() == b.hasError() && a.displayValue.equals(b.displayValue);
+    }
+
+    private CellVersion asStale() {
+        return new CellVersion(cellType, rawContent, template, anchorRow, anchorCol, computedValue, errorType,
+                errorMessage, displayValue, true);
+    }
+
+    public CellType getCellType() {
+        return cellType;
+    }
+
+    public String getRawContent() {
+        return template != null ? "=" + template.render(anchorRow, anchorCol) : rawContent;
+    }
+
+    public Object getComputedValue() {
+        return computedValue;
+    }
+
+    public boolean hasError() {
+        return errorType != ErrorType.NO_ERROR;
+    }
+
+    public ErrorType getErrorType() {
+        return errorType;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public String getDisplayValue() {
+        return displayValue;
+    }
+
+    // فقط در حالت محاسبه‌ی تنبل: مقدار مال پیش از آخرین تغییر مقدم‌هاست
+    public boolean isStale() {
+        return stale;
+    }
+}
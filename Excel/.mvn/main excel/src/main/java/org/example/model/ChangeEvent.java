@@ -0,0 +1,26 @@
+package org.example.model;
+
+import java.util.List;
+
+// تغییرهای محدوده‌ی یک اشتراک در یک دوره‌ی انتشار؛ رویداد ادغام‌شده شماره‌ی آخرین دوره‌اش را دارد
+public final class ChangeEvent {
+    private final long epoch;
+    private final List<CellChange> changes;
+
+    ChangeEvent(long epoch, List<CellChange> changes) {
+        this.epoch = epoch;
+        this.changes = List.copyOf(changes);
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public List<CellChange> getChanges() {
+        return changes;
+    }
+
+    public int size() {
+        return changes.size();
+    }
+}
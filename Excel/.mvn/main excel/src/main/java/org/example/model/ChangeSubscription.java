@@ -0,0 +1,233 @@
+package org.example.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// اشتراک تغییرهای یک محدوده: بعد از هر انتشار نسخه، تفاوت مقدارهای محدوده بین نسخه‌ی قبلی و جدید
+// به صورت یک رویداد در صف محدود اشتراک می‌نشیند و مصرف‌کننده از نخ خودش برمی‌دارد. سلول‌هایی که فقط
+// دست خورده‌اند ولی مقدار و خطایشان عوض نشده فرستاده نمی‌شوند
+public final class ChangeSubscription implements AutoCloseable {
+    private final Spreadsheet spreadsheet;
+    private final int firstRow;
+    private final int firstCol;
+    private final int lastRow;
+    private final int lastCol;
+    private final int capacity;
+    private final BackpressurePolicy policy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<ChangeEvent> queue;
+    private long dropped;
+    private volatile boolean closed;
+
+    ChangeSubscription(Spreadsheet spreadsheet, int firstRow, int firstCol, int lastRow, int lastCol,
+                       int capacity, BackpressurePolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Subscription capacity must be positive: " + capacity);
+        }
+        this.spreadsheet = spreadsheet;
+        this.firstRow = firstRow;
+        this.firstCol = firstCol;
+        this.lastRow = lastRow;
+        this.lastCol = lastCol;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.queue = new ArrayDeque<>(Math.min(capacity, 64));
+    }
+
+    // رویداد بعدی یا null اگر صف خالی است
+    public ChangeEvent poll() {
+        lock.lock();
+        try {
+            return takeFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // null اگر تا پایان مهلت رویدادی نرسد یا اشتراک بسته شود
+    public ChangeEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (queue.isEmpty() && !closed) {
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            return takeFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // منتظر رویداد بعدی؛ بعد از بسته شدن اشتراک و خالی شدن صف null برمی‌گرداند
+    public ChangeEvent take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queue.isEmpty() && !closed) {
+                notEmpty.await();
+            }
+            return takeFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // رویدادهایی که با سیاست DROP (یا قطع انتظار BLOCK) دور ریخته شده‌اند
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // رویدادهای مانده در صف هنوز خوانده می‌شوند؛ نویسنده‌ی منتظر آزاد می‌شود
+    @Override
+    public void close() {
+        closed = true;
+        spreadsheet.unsubscribe(this);
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // روی نخ نویسنده بعد از انتشار next؛ touched سلول‌های دست‌خورده است و all یعنی همه‌ی جدول
+    void deliver(SheetVersion previous, SheetVersion next, BitSet touched, boolean all) {
+        if (closed) {
+            return;
+        }
+        List<CellChange> changes = new ArrayList<>();
+        if (all) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                if (previous.isBlankPage(row) && next.isBlankPage(row)) {
+                    row = next.nextPageRow(row) - 1;
+                    continue;
+                }
+                for (int col = firstCol; col <= lastCol; col++) {
+                    addChange(changes, row, col, previous, next);
+                }
+            }
+        } else {
+            int cols = next.getCols();
+            int end = lastRow * cols + lastCol;
+            for (int i = touched.nextSetBit(firstRow * cols + firstCol); i >= 0 && i <= end; i = touched.nextSetBit(i + 1)) {
+                int col = i % cols;
+                if (col >= firstCol && col <= lastCol) {
+                    addChange(changes, i / cols, col, previous, next);
+                }
+            }
+        }
+        if (!changes.isEmpty()) {
+            offer(new ChangeEvent(next.getEpoch(), changes));
+        }
+    }
+
+    private static void addChange(List<CellChange> changes, int row, int col, SheetVersion previous, SheetVersion next) {
+        CellChange change = CellChange.between(row, col, previous.getCell(row, col), next.getCell(row, col));
+        if (change != null) {
+            changes.add(change);
+        }
+    }
+
+    private void offer(ChangeEvent event) {
+        lock.lock();
+        try {
+            if (queue.size() >= capacity) {
+                switch (policy) {
+                    case DROP -> {
+                        dropped++;
+                        return;
+                    }
+                    case COALESCE_LATEST -> {
+                        event = merge(queue.pollLast(), event);
+                        if (event == null) {
+                            return;
+                        }
+                    }
+                    case BLOCK -> {
+                        while (queue.size() >= capacity && !closed) {
+                            try {
+                                notFull.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                dropped++;
+                                return;
+                            }
+                        }
+                        if (closed) {
+                            return;
+                        }
+                    }
+                }
+            }
+            queue.addLast(event);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // null اگر همه‌ی تغییرها همدیگر را خنثی کرده باشند
+    private static ChangeEvent merge(ChangeEvent earlier, ChangeEvent later) {
+        Map<Long, CellChange> merged = new LinkedHashMap<>();
+        for (CellChange change : earlier.getChanges()) {
+            merged.put(key(change), change);
+        }
+        for (CellChange change : later.getChanges()) {
+            CellChange first = merged.get(key(change));
+            CellChange combined = first == null ? change : first.followedBy(change);
+            if (combined == null) {
+                merged.remove(key(change));
+            } else {
+                merged.put(key(change), combined);
+            }
+        }
+        return merged.isEmpty() ? null : new ChangeEvent(later.getEpoch(), new ArrayList<>(merged.values()));
+    }
+
+    private static long key(CellChange change) {
+        return ((long) change.getRow() << 32) | change.getCol();
+    }
+
+    private ChangeEvent takeFirst() {
+        ChangeEvent event = queue.pollFirst();
+        if (event != null) {
+            notFull.signal();
+        }
+        return event;
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// شکل کامپایل‌شده‌ی فرمول: توکن‌های پسوندی و سلول‌های مورد ارجاع، تا هر بار محاسبه دوباره تجزیه نشود
+public class CompiledFormula {
+    private final String formula;
+    private final List<FormulaToken> postfix;
+    private final Set<String> references;
+
+    public CompiledFormula(String formula, List<FormulaToken> postfix, Set<String> references) {
+        this.formula = formula;
+        this.postfix = List.copyOf(postfix);
+        this.references = Collections.unmodifiableSet(new HashSet<>(references));
+    }
+
+    public String getFormula() {
+        return formula;
+    }
+
+    public List<FormulaToken> getPostfix() {
+        return postfix;
+    }
+
+    public Set<String> getReferences() {
+        return references;
+    }
+
+    public boolean matches(String formula) {
+        return this.formula.equals(formula);
+    }
+}
@@ -0,0 +1,221 @@
+package org.example.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// گراف وابستگی روی اندیس‌های صحیح سلول (row * cols + col)
+// برای هر سلول هم وابسته‌ها (یال خروجی) و هم مقدم‌ها (یال ورودی) نگه داشته می‌شوند
+// تا تغییر فرمول فقط یال‌های ورودی همان سلول را عوض کند
+public class DependencyGraph {
+    private static final int[] NONE = new int[0];
+    // گره‌ها در صفحه‌های ۱۰۲۴تایی و فقط برای سلول‌هایی که یال یا پیمایش دارند ساخته می‌شوند؛
+    // جدول میلیون‌سطری فقط جدول صفحه‌ها را از پیش می‌گیرد
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private Node[][] pages;
+
+    // علامت‌های پیمایش با شماره‌ی دور؛ بین پیمایش‌ها پاک کردن لازم نیست
+    private int epoch;
+    private final IntDeque path = new IntDeque();
+    private final IntDeque edges = new IntDeque();
+
+    private static final class Node {
+        int[] dependents;
+        int dependentCount;
+        int[] precedents;
+        int seen;
+        int finished;
+        int cyclic;
+    }
+
+    public DependencyGraph(int size) {
+        pages = new Node[Math.max(1, (size + PAGE_SIZE - 1) >>> PAGE_BITS)][];
+    }
+
+    // جایگزینی مقدم‌های یک سلول؛ یال‌هایی که از این سلول به وابسته‌هایش می‌روند دست نمی‌خورند
+    public void setPrecedents(int cell, int[] newPrecedents) {
+        clearPrecedents(cell);
+        int[] copy = newPrecedents.clone();
+        for (int precedent : copy) {
+            addDependent(node(precedent), cell);
+        }
+        node(cell).precedents = copy;
+    }
+
+    public void clearPrecedents(int cell) {
+        Node node = peek(cell);
+        if (node == null || node.precedents == null) {
+            return;
+        }
+        for (int precedent : node.precedents) {
+            removeDependent(node(precedent), cell);
+        }
+        node.precedents = null;
+    }
+
+    public int[] getPrecedents(int cell) {
+        Node node = peek(cell);
+        return node != null && node.precedents != null ? node.precedents.clone() : NONE;
+    }
+
+    public int[] getDependents(int cell) {
+        Node node = peek(cell);
+        return node != null && node.dependents != null
+                ? Arrays.copyOf(node.dependents, node.dependentCount) : NONE;
+    }
+
+    // شماره‌ی دور ادامه پیدا می‌کند؛ گره‌های تازه با علامت صفر ساخته می‌شوند
+    public void clear() {
+        Arrays.fill(pages, null);
+    }
+
+    // ترتیب محاسبه‌ی همه‌ی سلول‌هایی که از start قابل دسترسی‌اند (خود start اول)، با یک پیمایش عمقی
+    public IntDeque orderFrom(int start) {
+        IntDeque order = new IntDeque();
+        beginTraversal();
+        visit(start, order, null);
+        return order;
+    }
+
+    // ترتیب محاسبه‌ی همه‌ی سلول‌های داده‌شده و وابسته‌هایشان در یک پیمایش
+    public IntDeque orderFrom(IntDeque starts) {
+        return orderFrom(starts, null);
+    }
+
+    // مثل orderFrom ولی پیمایش وارد سلول‌های skip نمی‌شود (نه خودشان در ترتیب می‌آیند و نه وابسته‌هایشان از راه آن‌ها)
+    public IntDeque orderFrom(IntDeque starts, BitSet skip) {
+        IntDeque order = new IntDeque(Math.max(starts.size(), 1));
+        beginTraversal();
+        for (int i = 0; i < starts.size(); i++) {
+            int start = starts.get(i);
+            Node node = peek(start);
+            if (node == null || node.seen != epoch) {
+                visit(start, order, skip);
+            }
+        }
+        return order;
+    }
+
+    // آیا سلول در آخرین پیمایش روی یک دور دیده شده است
+    public boolean isOnCycle(int cell) {
+        Node node = peek(cell);
+        return node != null && node.cyclic == epoch;
+    }
+
+    // پیمایش عمقی غیربازگشتی؛ ترتیب معکوس پایان‌ها ترتیب توپولوژیک است
+    // و یال برگشتی به سلولی که هنوز روی مسیر است همه‌ی سلول‌های بین آن دو را دوری علامت می‌زند
+    private void visit(int start, IntDeque order, BitSet skip) {
+        path.clear();
+        edges.clear();
+        node(start).seen = epoch;
+        path.addLast(start);
+        edges.addLast(0);
+
+        while (!path.isEmpty()) {
+            int current = path.peekLast();
+            int next = edges.peekLast();
+            Node node = node(current);
+
+            if (next < node.dependentCount) {
+                edges.setLast(next + 1);
+                int dependent = node.dependents[next];
+                if (skip != null && skip.get(dependent)) {
+                    continue;
+                }
+                Node dependentNode = node(dependent);
+                if (dependentNode.seen != epoch) {
+                    dependentNode.seen = epoch;
+                    path.addLast(dependent);
+                    edges.addLast(0);
+                } else if (dependentNode.finished != epoch) {
+                    markCycle(dependent);
+                }
+            } else {
+                path.pollLast();
+                edges.pollLast();
+                node.finished = epoch;
+                order.addFirst(current);
+            }
+        }
+    }
+
+    private void markCycle(int entry) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            int cell = path.get(i);
+            node(cell).cyclic = epoch;
+            if (cell == entry) {
+                break;
+            }
+        }
+    }
+
+    private void beginTraversal() {
+        epoch++;
+        if (epoch == Integer.MAX_VALUE) {
+            for (Node[] page : pages) {
+                if (page == null) continue;
+                for (Node node : page) {
+                    if (node != null) {
+                        node.seen = 0;
+                        node.finished = 0;
+                        node.cyclic = 0;
+                    }
+                }
+            }
+            epoch = 1;
+        }
+    }
+
+    private static void addDependent(Node node, int cell) {
+        int[] list = node.dependents;
+        int count = node.dependentCount;
+        if (list == null) {
+            list = new int[4];
+        } else if (count == list.length) {
+            list = Arrays.copyOf(list, count * 2);
+        }
+        list[count] = cell;
+        node.dependents = list;
+        node.dependentCount = count + 1;
+    }
+
+    // حذف با جابه‌جایی آخرین عنصر؛ ترتیب وابسته‌ها مهم نیست
+    private static void removeDependent(Node node, int cell) {
+        int[] list = node.dependents;
+        int count = node.dependentCount;
+        for (int i = 0; i < count; i++) {
+            if (list[i] == cell) {
+                list[i] = list[count - 1];
+                node.dependentCount = count - 1;
+                return;
+            }
+        }
+    }
+
+    private Node peek(int cell) {
+        int page = cell >>> PAGE_BITS;
+        if (page >= pages.length || pages[page] == null) {
+            return null;
+        }
+        return pages[page][cell & (PAGE_SIZE - 1)];
+    }
+
+    private Node node(int cell) {
+        int page = cell >>> PAGE_BITS;
+        if (page >= pages.length) {
+            pages = Arrays.copyOf(pages, Math.max(page + 1, pages.length * 2));
+        }
+        Node[] nodes = pages[page];
+        if (nodes == null) {
+            nodes = new Node[PAGE_SIZE];
+            pages[page] = nodes;
+        }
+        Node node = nodes[cell & (PAGE_SIZE - 1)];
+        if (node == null) {
+            node = new Node();
+            nodes[cell & (PAGE_SIZE - 1)] = node;
+        }
+        return node;
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.model;
+
+// مقدار خطا که مثل عدد در محاسبه جریان پیدا می‌کند؛ هر نوع فقط یک نمونه دارد و استثنایی ساخته نمی‌شود
+public enum ErrorValue {
+    DIV_ZERO("#DIV/0!", ErrorType.DIVISION_BY_ZERO, "Division by zero"),
+    REF("#REF!", ErrorType.INVALID_REFERENCE, "Reference to a cell outside the sheet"),
+    VALUE("#VALUE!", ErrorType.VALUE_ERROR, "Operand is not a number"),
+    CIRC("#CIRC!", ErrorType.CIRCULAR_DEPENDENCY, "Circular reference");
+
+    private final String code;
+    private final ErrorType type;
+    private final String message;
+
+    ErrorValue(String code, ErrorType type, String message) {
+        this.code = code;
+        this.type = type;
+        this.message = message;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public ErrorType getType() {
+        return type;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    // خطای سلول مقدم به مقدار خطای متناظر تبدیل می‌شود تا به وابسته‌ها برسد
+    public static ErrorValue of(ErrorType type) {
+        switch (type) {
+            case DIVISION_BY_ZERO:
+                return DIV_ZERO;
+            case INVALID_REFERENCE:
+                return REF;
+            case CIRCULAR_DEPENDENCY:
+            case SELF_REFERENCE:
+                return CIRC;
+            default:
+                return VALUE;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// فرمول کامپایل‌شده به شکل نسبی (R1C1): ارجاع‌ها فاصله از سلول صاحب فرمول هستند.
+// همه‌ی سلول‌هایی که با FILL از یک فرمول پر می‌شوند یک نمونه‌ی مشترک دارند و هر سلول فقط
+// مختصات خودش را به عنوان لنگر نگه می‌دارد؛ متن فرمول و وابستگی‌ها در صورت نیاز ساخته می‌شوند
+public final class FormulaTemplate {
+    private final String key;
+    private final List<FormulaToken> infix;
+    private final List<FormulaToken> postfix;
+    private final int[] referenceRows;
+    private final int[] referenceCols;
+    private final int minRow;
+    private final int maxRow;
+    private final int minCol;
+    private final int maxCol;
+
+    // همه‌ی ورودی‌ها نسبی هستند (خروجی FormulaToken.relativeTo)
+    public FormulaTemplate(List<FormulaToken> infix, List<FormulaToken> postfix,
+                           int[] referenceRows, int[] referenceCols) {
+        this.infix = List.copyOf(infix);
+        this.postfix = List.copyOf(postfix);
+        this.referenceRows = referenceRows.clone();
+        this.referenceCols = referenceCols.clone();
+
+        StringBuilder text = new StringBuilder();
+        for (FormulaToken token : infix) {
+            if (text.length() > 0) text.append(' ');
+            text.append(token.getText());
+        }
+        this.key = text.toString();
+
+        int lowRow = 0, highRow = 0, lowCol = 0, highCol = 0;
+        for (int i = 0; i < referenceRows.length; i++) {
+            lowRow = Math.min(lowRow, referenceRows[i]);
+            highRow = Math.max(highRow, referenceRows[i]);
+            lowCol = Math.min(lowCol, referenceCols[i]);
+            highCol = Math.max(highCol, referenceCols[i]);
+        }
+        this.minRow = lowRow;
+        this.maxRow = highRow;
+        this.minCol = lowCol;
+        this.maxCol = highCol;
+    }
+
+    // شکل R1C1 فرمول؛ کلید یکتاسازی قالب‌ها
+    public String getKey() {
+        return key;
+    }
+
+    public List<FormulaToken> getPostfix() {
+        return postfix;
+    }
+
+    // آیا همه‌ی ارجاع‌ها برای سلول (row, col) داخل جدول می‌افتند
+    public boolean fits(int row, int col, int rows, int cols) {
+        return row + minRow >= 0 && row + maxRow < rows && col + minCol >= 0 && col + maxCol < cols;
+    }
+
+    // متن فرمول (بدون =) برای سلول (row, col)
+    public String render(int row, int col) {
+        StringBuilder formula = new StringBuilder();
+        for (FormulaToken token : infix) {
+            if (token.getType() == FormulaToken.Type.UNARY_OPERATOR) {
+                formula.append(token.getOperator());
+            } else {
+                formula.append(token.absoluteAt(row, col).getText());
+            }
+        }
+        return formula.toString();
+    }
+
+    public Set<String> references(int row, int col) {
+        Set<String> references = new HashSet<>();
+        for (int i = 0; i < referenceRows.length; i++) {
+            references.add(FormulaToken.cell(row + referenceRows[i], col + referenceCols[i]).getText());
+        }
+        return references;
+    }
+
+    // اندیس سلول‌های مقدم در گراف وابستگی (row * cols + col)
+    public int[] precedents(int row, int col, int cols) {
+        int[] indexes = new int[referenceRows.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = (row + referenceRows[i]) * cols + col + referenceCols[i];
+        }
+        return indexes;
+    }
+
+    // نسخه‌ی مطلق برای جاهایی که CompiledFormula لازم دارند (مثل ذخیره‌ی فایل)
+    public CompiledFormula instantiate(int row, int col) {
+        List<FormulaToken> absolute = new ArrayList<>(postfix.size());
+        for (FormulaToken token : postfix) {
+            absolute.add(token.absoluteAt(row, col));
+        }
+        return new CompiledFormula(render(row, col), absolute, references(row, col));
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
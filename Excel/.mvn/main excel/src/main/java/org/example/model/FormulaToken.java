@@ -0,0 +1,160 @@
+package org.example.model;
+
+// توکن نوع‌دار فرمول؛ عدد مقدار تجزیه‌شده، سلول و محدوده مختصات، و تابع شناسه‌ی خود را همراه دارند
+public final class FormulaToken {
+    public enum Type {
+        NUMBER, TEXT, CELL, RANGE, FUNCTION,
+        BINARY_OPERATOR, UNARY_OPERATOR, POSTFIX_OPERATOR,
+        LEFT_PAREN, RIGHT_PAREN, COMMA
+    }
+
+    public enum Function { SUM, AVG, MAX, MIN, COUNT }
+
+    private final Type type;
+    private final String text;
+    private final double number;
+    private final char operator;
+    private final Function function;
+    private final int row;
+    private final int col;
+    private final int lastRow;
+    private final int lastCol;
+
+    private FormulaToken(Type type, String text, double number, char operator, Function function,
+                         int row, int col, int lastRow, int lastCol) {
+        this.type = type;
+        this.text = text;
+        this.number = number;
+        this.operator = operator;
+        this.function = function;
+        this.row = row;
+        this.col = col;
+        this.lastRow = lastRow;
+        this.lastCol = lastCol;
+    }
+
+    public static FormulaToken number(String text, double value) {
+        return new FormulaToken(Type.NUMBER, text, value, '\0', null, -1, -1, -1, -1);
+    }
+
+    // text همراه با کوتیشن‌ها نگه داشته می‌شود و value متن داخل آن‌هاست
+    public static FormulaToken text(String text) {
+        return new FormulaToken(Type.TEXT, text, Double.NaN, '\0', null, -1, -1, -1, -1);
+    }
+
+    public static FormulaToken cell(int row, int col) {
+        return new FormulaToken(Type.CELL, reference(row, col), Double.NaN, '\0', null,
+                row, col, row, col);
+    }
+
+    public static FormulaToken range(int firstRow, int firstCol, int lastRow, int lastCol) {
+        return new FormulaToken(Type.RANGE, rangeText(firstRow, firstCol, lastRow, lastCol), Double.NaN, '\0', null,
+                firstRow, firstCol, lastRow, lastCol);
+    }
+
+    public static FormulaToken function(Function function, int firstRow, int firstCol, int lastRow, int lastCol) {
+        return new FormulaToken(Type.FUNCTION, function + "(" + rangeText(firstRow, firstCol, lastRow, lastCol) + ")",
+                Double.NaN, '\0', function, firstRow, firstCol, lastRow, lastCol);
+    }
+
+    public static FormulaToken operator(Type type, char operator) {
+        String text = type == Type.UNARY_OPERATOR ? "U" + operator : String.valueOf(operator);
+        return new FormulaToken(type, text, Double.NaN, operator, null, -1, -1, -1, -1);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public double getNumber() {
+        return number;
+    }
+
+    public String getTextValue() {
+        return text.substring(1, text.length() - 1);
+    }
+
+    public char getOperator() {
+        return operator;
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public int getLastRow() {
+        return lastRow;
+    }
+
+    public int getLastCol() {
+        return lastCol;
+    }
+
+    // همان ارجاع با مختصات نسبی به سلول لنگر؛ متن به شکل R[dr]C[dc] است تا فرمول‌های هم‌شکل کلید یکسان داشته باشند
+    public FormulaToken relativeTo(int anchorRow, int anchorCol) {
+        if (type != Type.CELL && type != Type.RANGE && type != Type.FUNCTION) {
+            return this;
+        }
+        int firstRow = row - anchorRow;
+        int firstCol = col - anchorCol;
+        int endRow = lastRow - anchorRow;
+        int endCol = lastCol - anchorCol;
+        String reference = relativeReference(firstRow, firstCol);
+        if (type != Type.CELL) {
+            reference += ":" + relativeReference(endRow, endCol);
+        }
+        if (type == Type.FUNCTION) {
+            reference = function + "(" + reference + ")";
+        }
+        return new FormulaToken(type, reference, number, operator, function, firstRow, firstCol, endRow, endCol);
+    }
+
+    // برعکس relativeTo: ارجاع نسبی برای سلول (row, col) مطلق می‌شود
+    public FormulaToken absoluteAt(int row, int col) {
+        switch (type) {
+            case CELL:
+                return cell(this.row + row, this.col + col);
+            case RANGE:
+                return range(this.row + row, this.col + col, lastRow + row, lastCol + col);
+            case FUNCTION:
+                return function(function, this.row + row, this.col + col, lastRow + row, lastCol + col);
+            default:
+                return this;
+        }
+    }
+
+    public boolean isOperand() {
+        return type == Type.NUMBER || type == Type.TEXT || type == Type.CELL
+                || type == Type.RANGE || type == Type.FUNCTION;
+    }
+
+    private static String rangeText(int firstRow, int firstCol, int lastRow, int lastCol) {
+        return reference(firstRow, firstCol) + ":" + reference(lastRow, lastCol);
+    }
+
+    private static String relativeReference(int rowOffset, int colOffset) {
+        return "R[" + rowOffset + "]C[" + colOffset + "]";
+    }
+
+    // بدون بررسی اندازه‌ی جدول؛ ارجاع بیرون از جدول هنگام ثبت وابستگی‌ها خطا می‌گیرد
+    private static String reference(int row, int col) {
+        return (char) ('A' + col) + Integer.toString(row + 1);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
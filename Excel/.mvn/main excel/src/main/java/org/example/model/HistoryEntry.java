@@ -0,0 +1,62 @@
+package org.example.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// یک نقطه‌ی Undo: حالت هر سلولی که عملیات (یا محاسبه‌ی وابسته‌ها پس از آن) عوض کرده، پیش از اولین تغییرش.
+// اندازه‌ی آن به تعداد سلول‌های عوض‌شده بستگی دارد نه به اندازه‌ی جدول
+final class HistoryEntry {
+    private final IntDeque indexes = new IntDeque();
+    // null یعنی سلول پیش از تغییر خالی بوده
+    private final List<CellState> states = new ArrayList<>();
+    // فقط تا وقتی عملیات باز است؛ هر سلول یک بار ثبت می‌شود
+    private BitSet recorded = new BitSet();
+
+    void record(int index, Cell cell) {
+        if (recorded.get(index)) {
+            return;
+        }
+        recorded.set(index);
+        indexes.addLast(index);
+        states.add(CellState.of(cell));
+    }
+
+    int size() {
+        return indexes.size();
+    }
+
+    void seal() {
+        recorded = null;
+    }
+
+    // حالت فعلی همان سلول‌ها؛ برای جهت مخالف (Redo بعد از Undo و برعکس)
+    HistoryEntry capture(Spreadsheet spreadsheet) {
+        HistoryEntry current = new HistoryEntry();
+        current.recorded = null;
+        int cols = spreadsheet.getCols();
+        for (int i = 0; i < indexes.size(); i++) {
+            int index = indexes.get(i);
+            current.indexes.addLast(index);
+            current.states.add(CellState.of(spreadsheet.peekCell(index / cols, index % cols)));
+        }
+        return current;
+    }
+
+    void restore(Spreadsheet spreadsheet) {
+        for (int i = indexes.size() - 1; i >= 0; i--) {
+            spreadsheet.applyCellState(indexes.get(i), states.get(i));
+        }
+    }
+
+    // برگرداندن سلول‌هایی که بعد از size ثبت شده‌اند و باز کردن دوباره‌ی ثبت از همان‌جا
+    void truncate(int size, Spreadsheet spreadsheet) {
+        while (indexes.size() > size) {
+            spreadsheet.applyCellState(indexes.pollLast(), states.remove(states.size() - 1));
+        }
+        recorded = new BitSet();
+        for (int i = 0; i < indexes.size(); i++) {
+            recorded.set(indexes.get(i));
+        }
+    }
+}
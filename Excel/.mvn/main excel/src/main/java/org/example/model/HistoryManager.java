@@ -1,11 +1,17 @@
 package org.example.model;
-import org.example.utils.CellConverter;
 
+// تاریخچه‌ی Undo/Redo به صورت تفاوت‌ها: هر عملیات فقط حالت قبلی سلول‌هایی را که عوض کرده نگه می‌دارد.
+// Undo همان سلول‌ها را برمی‌گرداند و حالت فعلی‌شان را برای Redo نگه می‌دارد؛ چون مقدار وابسته‌ها هم ثبت
+// شده، چیزی دوباره محاسبه نمی‌شود
 public class HistoryManager {
-    private final Stack<SpreadsheetState> undoStack;
-    private final Stack<SpreadsheetState> redoStack;
+    private Stack<HistoryEntry> undoStack;
+    private Stack<HistoryEntry> redoStack;
     private final int maxHistorySize;
     private boolean isRecording;
+    // عملیاتی که تغییرهای سلول‌ها در آن ثبت می‌شود؛ بعد از Undo و Redo تا عملیات بعدی null است
+    private HistoryEntry open;
+    // هنگام بازگرداندن چیزی ثبت نمی‌شود
+    private boolean applying;
 
     public HistoryManager() {
         this(50);
@@ -18,34 +24,37 @@ public class HistoryManager {
         this.isRecording = true;
     }
 
-    public void saveState(Spreadsheet spreadsheet) {
+    // شروع یک نقطه‌ی Undo تازه؛ تغییرهای بعدی تا نقطه‌ی بعدی در آن ثبت می‌شوند
+    public void saveState() {
         if (!isRecording) return;
 
         if (!redoStack.isEmpty()) {
             redoStack.clear();
         }
-        SpreadsheetState state = createState(spreadsheet);
         if (undoStack.isFull()) {
             removeOldestState();
         }
-        undoStack.push(state);
+        seal();
+        open = new HistoryEntry();
+        undoStack.push(open);
     }
 
-    private SpreadsheetState createState(Spreadsheet spreadsheet) {
-        SpreadsheetState state = new SpreadsheetState(spreadsheet.getRows(), spreadsheet.getCols());
+    // پیش از هر تغییر سلول صدا زده می‌شود؛ فقط اولین تغییر هر سلول در هر عملیات هزینه دارد
+    void record(int index, Cell cell) {
+        if (open != null && !applying) {
+            open.record(index, cell);
+        }
+    }
 
-        for (int row = 0; row < spreadsheet.getRows(); row++) {
-            for (int col = 0; col < spreadsheet.getCols(); col++) {
-                String cellRef = CellConverter.toCellReference(row, col);
-                Cell cell = spreadsheet.getCell(cellRef);
-                state.saveCellState(cellRef, cell);
-            }
+    private void seal() {
+        if (open != null) {
+            open.seal();
+            open = null;
         }
-        return state;
     }
 
     private void removeOldestState() {
-        Stack<SpreadsheetState> tempStack = new Stack<>(maxHistorySize);
+        Stack<HistoryEntry> tempStack = new Stack<>(maxHistorySize);
         while (undoStack.size() > 1) {
             tempStack.push(undoStack.pop());
         }
@@ -56,65 +65,97 @@ public class HistoryManager {
     }
 
     public boolean undo(Spreadsheet spreadsheet) {
-        if (undoStack.isEmpty() || undoStack.size() < 2) {
+        if (undoStack.isEmpty()) {
             return false;
         }
+        seal();
+        HistoryEntry entry = undoStack.pop();
+        redoStack.push(entry.capture(spreadsheet));
+        apply(spreadsheet, entry);
+        return true;
+    }
 
-        try {
-            isRecording = false;
-
-            SpreadsheetState currentState = createState(spreadsheet);
-            redoStack.push(currentState);
-
-            SpreadsheetState previousState = undoStack.pop();
-            applyState(spreadsheet, previousState);
-
-            return true;
-
-        } finally {
-            isRecording = true;
+    // برگرداندن آخرین نقطه بدون ثبت در redo؛ برای لغو تراکنش
+    public boolean restoreLatest(Spreadsheet spreadsheet) {
+        if (undoStack.isEmpty()) {
+            return false;
         }
+        seal();
+        apply(spreadsheet, undoStack.pop());
+        return true;
     }
 
     public boolean redo(Spreadsheet spreadsheet) {
         if (redoStack.isEmpty()) {
             return false;
         }
+        seal();
+        HistoryEntry entry = redoStack.pop();
+        undoStack.push(entry.capture(spreadsheet));
+        apply(spreadsheet, entry);
+        return true;
+    }
 
+    private void apply(Spreadsheet spreadsheet, HistoryEntry entry) {
+        applying = true;
         try {
-            isRecording = false;
-
-            SpreadsheetState currentState = createState(spreadsheet);
-            undoStack.push(currentState);
-
-            SpreadsheetState nextState = redoStack.pop();
-            applyState(spreadsheet, nextState);
-
-            return true;
-
+            entry.restore(spreadsheet);
+            spreadsheet.restored();
         } finally {
-            isRecording = true;
+            applying = false;
+        }
+    }
+
+    // نقطه‌ی بازگشت برای لغو دستوری که وسط اجرا متوقف شده: هر دو پشته و جای ثبت در عملیات باز
+    public static final class Checkpoint {
+        private final Stack<HistoryEntry> undoStack;
+        private final Stack<HistoryEntry> redoStack;
+        private final boolean recording;
+        private final HistoryEntry open;
+        private final int openSize;
+
+        private Checkpoint(Stack<HistoryEntry> undoStack, Stack<HistoryEntry> redoStack, boolean recording,
+                           HistoryEntry open, int openSize) {
+            this.undoStack = undoStack;
+            this.redoStack = redoStack;
+            this.recording = recording;
+            this.open = open;
+            this.openSize = openSize;
         }
     }
 
-    private void applyState(Spreadsheet spreadsheet, SpreadsheetState state) {
-        for (int row = 0; row < spreadsheet.getRows(); row++) {
-            for (int col = 0; col < spreadsheet.getCols(); col++) {
-                String cellRef = CellConverter.toCellReference(row, col);
-                var cellState = state.getCellState(cellRef);
+    public Checkpoint checkpoint() {
+        return new Checkpoint(undoStack.copy(), redoStack.copy(), isRecording, open, open == null ? 0 : open.size());
+    }
 
-                if (cellState != null) {
-                    Cell cell = spreadsheet.getCell(cellRef);
-                    cellState.applyToCell(cell);
-                }
+    // نقطه‌های ساخته‌شده بعد از checkpoint از آخر به اول برمی‌گردند، بعد بخشی از عملیات باز که بعد از
+    // checkpoint ثبت شده؛ مقدارهای ذخیره‌شده کامل‌اند، پس دوباره محاسبه نمی‌شوند
+    public void restore(Spreadsheet spreadsheet, Checkpoint checkpoint) {
+        HistoryEntry top = checkpoint.undoStack.isEmpty() ? null : checkpoint.undoStack.peek();
+        applying = true;
+        try {
+            while (!undoStack.isEmpty() && undoStack.peek() != top) {
+                undoStack.pop().restore(spreadsheet);
             }
+            if (checkpoint.open != null) {
+                checkpoint.open.truncate(checkpoint.openSize, spreadsheet);
+            }
+            spreadsheet.restored();
+        } finally {
+            applying = false;
         }
+        undoStack = checkpoint.undoStack;
+        redoStack = checkpoint.redoStack;
+        isRecording = checkpoint.recording;
+        open = checkpoint.open;
+    }
 
-        spreadsheet.recalculateAll();
+    public void setRecording(boolean recording) {
+        this.isRecording = recording;
     }
 
     public boolean canUndo() {
-        return undoStack.size() >= 2;
+        return !undoStack.isEmpty();
     }
 
     public boolean canRedo() {
@@ -0,0 +1,105 @@
+package org.example.model;
+
+import java.util.NoSuchElementException;
+
+// صف دوطرفه‌ی حلقوی روی int[] که با پر شدن دو برابر می‌شود؛ برای پیمایش گراف وابستگی بدون boxing
+public class IntDeque {
+    private static final int DEFAULT_CAPACITY = 16;
+    private int[] elements;
+    private int head;
+    private int size;
+
+    public IntDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntDeque(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.elements = new int[capacity];
+    }
+
+    public void addLast(int value) {
+        if (size == elements.length) grow();
+        elements[(head + size) % elements.length] = value;
+        size++;
+    }
+
+    public void addFirst(int value) {
+        if (size == elements.length) grow();
+        head = (head - 1 + elements.length) % elements.length;
+        elements[head] = value;
+        size++;
+    }
+
+    public int pollFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        int value = elements[head];
+        head = (head + 1) % elements.length;
+        size--;
+        return value;
+    }
+
+    public int pollLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        size--;
+        return elements[(head + size) % elements.length];
+    }
+
+    public int peekLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        return elements[(head + size - 1) % elements.length];
+    }
+
+    public void setLast(int value) {
+        if (size == 0) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        elements[(head + size - 1) % elements.length] = value;
+    }
+
+    // index از ابتدای صف شمرده می‌شود
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return elements[(head + index) % elements.length];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = elements[(head + i) % elements.length];
+        }
+        return result;
+    }
+
+    private void grow() {
+        int[] larger = new int[elements.length * 2];
+        for (int i = 0; i < size; i++) {
+            larger[i] = elements[(head + i) % elements.length];
+        }
+        elements = larger;
+        head = 0;
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.model;
+
+// گزارش پیشرفت و درخواست لغو برای محاسبه‌های طولانی؛ از نخی که محاسبه را اجرا می‌کند صدا زده می‌شود
+public interface ProgressMonitor {
+    void progress(int done, int total);
+
+    boolean isCancelled();
+}
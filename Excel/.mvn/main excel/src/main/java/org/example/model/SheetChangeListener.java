@@ -0,0 +1,8 @@
+package org.example.model;
+
+// شنونده‌ی تغییرهای نمایشی جدول؛ بعد از هر انتشار نسخه (پایان عملیات یا commit تراکنش) یک بار صدا زده می‌شود.
+// cells اندیس سلول‌هایی است (row * cols + col) که متن یا نوع نمایشی‌شان نسبت به نسخه‌ی قبلی واقعاً عوض شده،
+// به ترتیب صعودی؛ مقدارها از خود version خوانده می‌شوند، پس شنونده‌ی روی نخ دیگر سلول زنده را نمی‌خواند
+public interface SheetChangeListener {
+    void cellsChanged(SheetVersion version, int[] cells);
+}
@@ -0,0 +1,77 @@
+package org.example.model;
+
+// نمای فقط‌خواندنی یک محدوده روی یک نسخه‌ی ثابت جدول، برای خروجی گرفتن هم‌زمان با ویرایش؛
+// چیزی کپی نمی‌شود و خواندن از هر نخی بدون قفل است
+public class SheetSnapshot {
+    private final SheetVersion version;
+    private final int firstRow;
+    private final int firstCol;
+    private final int rows;
+    private final int cols;
+
+    public SheetSnapshot(Spreadsheet spreadsheet, int firstRow, int firstCol, int lastRow, int lastCol) {
+        this(spreadsheet.currentVersion(), firstRow, firstCol, lastRow, lastCol);
+    }
+
+    public SheetSnapshot(SheetVersion version, int firstRow, int firstCol, int lastRow, int lastCol) {
+        if (firstRow < 0 || firstCol < 0 || lastRow >= version.getRows() || lastCol >= version.getCols()
+                || firstRow > lastRow || firstCol > lastCol) {
+            throw new IllegalArgumentException("Invalid snapshot range: (" + firstRow + ", " + firstCol + ") - ("
+                    + lastRow + ", " + lastCol + ")");
+        }
+        this.version = version;
+        this.firstRow = firstRow;
+        this.firstCol = firstCol;
+        this.rows = lastRow - firstRow + 1;
+        this.cols = lastCol - firstCol + 1;
+    }
+
+    public SheetVersion getVersion() {
+        return version;
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public int getFirstCol() {
+        return firstCol;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public Object getValue(int row, int col) {
+        CellVersion cell = cellAt(row, col);
+        return cell == null || cell.hasError() ? null : cell.getComputedValue();
+    }
+
+    public boolean hasError(int row, int col) {
+        CellVersion cell = cellAt(row, col);
+        return cell != null && cell.hasError();
+    }
+
+    // متن فرمول (با = در ابتدا) یا null اگر سلول فرمول نباشد
+    public String getFormula(int row, int col) {
+        CellVersion cell = cellAt(row, col);
+        return cell != null && cell.getCellType() == CellType.FORMULA ? cell.getRawContent() : null;
+    }
+
+    public ErrorType getErrorType(int row, int col) {
+        CellVersion cell = cellAt(row, col);
+        return cell != null ? cell.getErrorType() : ErrorType.NO_ERROR;
+    }
+
+    // row و col نسبت به گوشه‌ی محدوده‌اند
+    private CellVersion cellAt(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("(" + row + ", " + col + ") outside snapshot of " + rows + "x" + cols);
+        }
+        return version.getCell(firstRow + row, firstCol + col);
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.model;
+
+import java.util.BitSet;
+
+// نسخه‌ی تغییرناپذیر جدول در پایان یک عملیات کامل (یک دوره). نویسنده بعد از هر عملیات فقط صفحه‌های
+// دست‌خورده را کپی می‌کند و نسخه‌ی تازه را یکجا منتشر می‌کند؛ صفحه‌های دست‌نخورده بین نسخه‌ها مشترک‌اند.
+// خواننده نسخه را نگه می‌دارد (pin) و بدون قفل و بدون دیدن تغییرهای بعدی یا نیمه‌کاره از آن می‌خواند؛
+// نسخه‌ای که دیگر کسی نگهش ندارد را GC جمع می‌کند
+public final class SheetVersion {
+    private static final int PAGE_BITS = 6;
+    private static final int PAGE_ROWS = 1 << PAGE_BITS;
+
+    private final long epoch;
+    private final int rows;
+    private final int cols;
+    // هر صفحه PAGE_ROWS سطر کامل است؛ صفحه‌ی null یعنی همه‌ی سلول‌هایش خالی‌اند
+    private final CellVersion[][] pages;
+
+    private SheetVersion(long epoch, int rows, int cols, CellVersion[][] pages) {
+        this.epoch = epoch;
+        this.rows = rows;
+        this.cols = cols;
+        this.pages = pages;
+    }
+
+    static SheetVersion empty(int rows, int cols) {
+        return new SheetVersion(0, rows, cols, new CellVersion[(rows + PAGE_ROWS - 1) >>> PAGE_BITS][]);
+    }
+
+    // نسخه‌ی بعدی با حالت فعلی سلول‌های changed (اندیس row * cols + col)؛ فقط روی نخ نویسنده
+    SheetVersion with(BitSet changed, Spreadsheet sheet) {
+        CellVersion[][] next = pages.clone();
+        BitSet copied = new BitSet();
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            int row = i / cols;
+            int col = i % cols;
+            int page = row >>> PAGE_BITS;
+            int slot = (row & (PAGE_ROWS - 1)) * cols + col;
+
+            CellVersion[] entries = next[page];
+            CellVersion previous = entries != null ? entries[slot] : null;
+            CellVersion current = CellVersion.of(sheet.peekCell(row, col), previous);
+            if (current == previous) {
+                continue;
+            }
+            if (!copied.get(page)) {
+                entries = entries != null ? entries.clone() : new CellVersion[PAGE_ROWS * cols];
+                next[page] = entries;
+                copied.set(page);
+            }
+            entries[slot] = current;
+        }
+        return new SheetVersion(epoch + 1, rows, cols, next);
+    }
+
+    // نسخه‌ی بعدی که از نو از روی همه‌ی سطرهای ساخته‌شده ساخته می‌شود (بعد از Undo یا clear)
+    SheetVersion rebuilt(Spreadsheet sheet) {
+        CellVersion[][] next = new CellVersion[pages.length][];
+        for (int row = 0; row < rows; row++) {
+            if (!sheet.hasRow(row)) continue;
+            int page = row >>> PAGE_BITS;
+            CellVersion[] old = pages[page];
+            for (int col = 0; col < cols; col++) {
+                int slot = (row & (PAGE_ROWS - 1)) * cols + col;
+                CellVersion current = CellVersion.of(sheet.peekCell(row, col), old != null ? old[slot] : null);
+                if (current == null) continue;
+                if (next[page] == null) {
+                    next[page] = new CellVersion[PAGE_ROWS * cols];
+                }
+                next[page][slot] = current;
+            }
+        }
+        return new SheetVersion(epoch + 1, rows, cols, next);
+    }
+
+    // شماره‌ی دوره؛ با هر انتشار یکی زیاد می‌شود
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    // null یعنی سلول در این نسخه خالی است
+    public CellVersion getCell(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("Invalid cell coordinates: (" + row + ", " + col + "). "
+                    + "Grid size: " + rows + "x" + cols);
+        }
+        CellVersion[] entries = pages[row >>> PAGE_BITS];
+        return entries == null ? null : entries[(row & (PAGE_ROWS - 1)) * cols + col];
+    }
+
+    // آیا سطرهای صفحه‌ی شامل row همه خالی‌اند؛ پیمایش‌های روی کل جدول با آن از صفحه‌های خالی می‌پرند
+    public boolean isBlankPage(int row) {
+        return pages[row >>> PAGE_BITS] == null;
+    }
+
+    public int nextPageRow(int row) {
+        return ((row >>> PAGE_BITS) + 1) << PAGE_BITS;
+    }
+}
@@ -3,51 +3,126 @@ package org.example.model;
 
 import org.example.controller.Calculate;
 import org.example.controller.FormulaEvaluator;
-import org.example.exceptions.CircularDependencyException;
 import org.example.exceptions.InvalidReferenceException;
 import org.example.utils.CellConverter;
+import org.example.utils.Log;
 import org.example.utils.Validationformula;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Spreadsheet {
     private final CellArray grid;
-    private final Map<String, Set<String>> dependencyGraph;
+    private final DependencyGraph dependencyGraph;
     private final int rows;
     private final int cols;
     private final HistoryManager historyManager;
+    private final FormulaEvaluator evaluator = new FormulaEvaluator(this);
+    // قالب‌های نسبی یکتا بر اساس شکل R1C1؛ فرمول‌های هم‌شکل یک نمونه‌ی مشترک دارند. کلید همان رشته‌ی
+    // کلید خود قالب است، پس قالبی که دیگر هیچ سلول یا نقطه‌ی Undo به آن اشاره نمی‌کند با مدخلش جمع می‌شود
+    private final Map<String, WeakReference<FormulaTemplate>> templates = new WeakHashMap<>();
+
+    // ناظر دستوری که با runMonitored اجرا می‌شود؛ بیرون از آن null است
+    private static final int PROGRESS_INTERVAL = 1024;
+    private volatile ProgressMonitor monitor;
+    private boolean cancelled;
+
+    // تراکنش باز: تغییرها فقط ثبت می‌شوند و محاسبه تا commit عقب می‌افتد
+    private boolean batchActive;
+    private IntDeque batchCells = new IntDeque();
+    private BitSet batchMarks = new BitSet();
+    private final Object stageLock = new Object();
+
+    // سلول‌هایی که از آخرین انتشار دست خورده‌اند؛ شنونده‌ها فقط اندیس‌ها را می‌گیرند و از خود نسخه می‌خوانند
+    private final List<SheetChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final BitSet touched = new BitSet();
+    private boolean allTouched;
+    // اشتراک‌های تغییر محدوده‌ها؛ بعد از هر انتشار نسخه تفاوت‌ها به صفشان می‌رسد
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    // آخرین نسخه‌ی کامل جدول برای خواننده‌های نخ‌های دیگر؛ فقط نخ نویسنده جایگزینش می‌کند
+    private volatile SheetVersion version;
+
+    // حالت محاسبه‌ی تنبل: تغییر فقط وابسته‌ها را کهنه علامت می‌زند؛ سطرهای دیدنی پیش از اعلان محاسبه
+    // می‌شوند و بقیه هنگام خواندن یا در گذر پس‌زمینه‌ی evaluateStale
+    private volatile boolean lazyEvaluation;
+    private final BitSet staleCells = new BitSet();
+    // اولین و آخرین سطر دیدنی؛ از نخ رابط کاربری نوشته می‌شود، پس یکجا جایگزین می‌شود
+    private volatile int[] viewport = {0, -1};
 
     public Spreadsheet(int rows, int cols) {
         this.rows = rows;
         this.cols = cols;
         this.grid = new CellArray(rows, cols);
-        this.dependencyGraph = new HashMap<>();
+        this.dependencyGraph = new DependencyGraph(rows * cols);
         this.historyManager = new HistoryManager();
-        initializeDependencyGraph();
-        historyManager.saveState(this);
+        this.version = SheetVersion.empty(rows, cols);
     }
 
-    private void initializeDependencyGraph() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                String cellRef = toCellReference(i, j);
-                dependencyGraph.put(cellRef, new HashSet<>());
-            }
+    // نسخه‌ی منتشرشده‌ی فعلی؛ خواننده هر چقدر لازم دارد نگهش می‌دارد و بدون قفل از آن می‌خواند.
+    // تغییرهای عملیات در حال اجرا و تراکنش باز در آن دیده نمی‌شوند
+    public SheetVersion currentVersion() {
+        return version;
+    }
+
+    // شنونده‌ی جدید از currentVersion شروع می‌کند؛ تغییرهای قبلی دوباره فرستاده نمی‌شوند
+    public void addChangeListener(SheetChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(SheetChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    // اشتراک تغییرهای محدوده از انتشار بعدی به بعد؛ capacity سقف رویدادهای خوانده‌نشده است
+    public ChangeSubscription subscribe(int firstRow, int firstCol, int lastRow, int lastCol, int capacity,
+                                        BackpressurePolicy policy) {
+        if (!isValidCoordinate(firstRow, firstCol) || !isValidCoordinate(lastRow, lastCol)
+                || firstRow > lastRow || firstCol > lastCol) {
+            throw new IllegalArgumentException("Invalid subscription range: (" + firstRow + ", " + firstCol + ") - ("
+                    + lastRow + ", " + lastCol + ")");
+        }
+        ChangeSubscription subscription = new ChangeSubscription(this, firstRow, firstCol, lastRow, lastCol,
+                capacity, policy);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    // محدوده به شکل A1:C20 یا یک سلول
+    public ChangeSubscription subscribe(String range, int capacity, BackpressurePolicy policy) {
+        String[] parts = range.toUpperCase().split(":");
+        String first = parts[0].trim();
+        String last = parts.length == 2 ? parts[1].trim() : first;
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Invalid subscription range: " + range);
         }
+        validateCellReference(first);
+        validateCellReference(last);
+        int[] start = CellConverter.fromCellReference(first);
+        int[] end = CellConverter.fromCellReference(last);
+        return subscribe(Math.min(start[0], end[0]), Math.min(start[1], end[1]),
+                Math.max(start[0], end[0]), Math.max(start[1], end[1]), capacity, policy);
+    }
+
+    void unsubscribe(ChangeSubscription subscription) {
+        subscriptions.remove(subscription);
     }
 
     public boolean undo() {
+        requireNoBatch("undo");
         boolean result = historyManager.undo(this);
         if (result) {
-            System.out.println("Undo performed successfully");
+            Log.info("Undo performed successfully");
         }
         return result;
     }
 
     public boolean redo() {
+        requireNoBatch("redo");
         boolean result = historyManager.redo(this);
         if (result) {
-            System.out.println("Redo performed successfully");
+            Log.info("Redo performed successfully");
         }
         return result;
     }
@@ -64,32 +139,46 @@ public class Spreadsheet {
         return grid.getCell(row, col);
     }
 
+    // خواندن مستقیم از حافظه‌ی جدول بدون ساختن سطر؛ null یعنی سلول هرگز نوشته نشده و خالی است
+    public Cell peekCell(int row, int col) {
+        return grid.peekCell(row, col);
+    }
+
+    // آیا سطر تا حالا ساخته شده؛ حلقه‌های روی کل جدول سطرهای ساخته‌نشده را رد می‌کنند
+    public boolean hasRow(int row) {
+        return grid.hasRow(row);
+    }
+
     public Cell getCell(String cellReference) {
         validateCellReference(cellReference);
         return grid.getCell(cellReference);
     }
 
     public void setCellContent(String cellReference, String content) {
-        historyManager.saveState(this);
         validateCellReference(cellReference);
         int[] coordinates = CellConverter.fromCellReference(cellReference);
         setCellContent(coordinates[0], coordinates[1], content);
     }
 
     public void setCellContent(int row, int col, String content) {
-        historyManager.saveState(this);
+        historyManager.saveState();
         validateCoordinates(row, col);
         Cell cell = grid.getCell(row, col);
         String cellRef = toCellReference(row, col);
+        int index = indexOf(row, col);
+        historyManager.record(index, cell);
+        clearStale(index, cell);
 
-        removeDependencies(cellRef);
+        dependencyGraph.clearPrecedents(index);
         cell.clearDependencies();
         cell.clearError();
+        cell.setCompiledFormula(null);
 
         if (content == null || content.trim().isEmpty()) {
             cell.setRawContent("");
             cell.setCellType(CellType.EMPTY);
             cell.setComputedValue(null);
+            recalculateFrom(index);
             return;
         }
 
@@ -98,152 +187,532 @@ public class Spreadsheet {
 
         try {
             if (Validationformula.isFormula(trimmedContent)) {
-                System.out.println("  -> Processing as FORMULA: " + trimmedContent);
+                Log.debug("{} -> Processing as FORMULA: {}", cellRef, trimmedContent);
                 cell.setCellType(CellType.FORMULA);
                 String formula = Validationformula.extractFormula(trimmedContent);
-                processFormula(cell, formula, cellRef);
+                processFormula(cell, formula, cellRef, index);
 
             } else if (Validationformula.isTextContent(trimmedContent)) {
-                System.out.println("  -> Processing as TEXT");
+                Log.debug("{} -> Processing as TEXT", cellRef);
                 String textValue = Validationformula.extractTextContent(trimmedContent);
                 cell.setCellType(CellType.TEXT);
                 cell.setComputedValue(textValue);
 
-            } else if (Validationformula.isNumberContent(trimmedContent)) {
-                System.out.println("  -> Processing as NUMBER");
-                double numericValue = Double.parseDouble(trimmedContent);
-                cell.setCellType(CellType.NUMBER);
-                cell.setComputedValue(numericValue);
-
             } else {
-                System.out.println("  -> Processing as PLAIN TEXT");
-                cell.setCellType(CellType.TEXT);
-                cell.setComputedValue(trimmedContent);
+                double numericValue = Validationformula.parseNumberContent(trimmedContent);
+                if (!Double.isNaN(numericValue)) {
+                    Log.debug("{} -> Processing as NUMBER", cellRef);
+                    cell.setCellType(CellType.NUMBER);
+                    cell.setComputedValue(numericValue);
+                } else {
+                    Log.debug("{} -> Processing as PLAIN TEXT", cellRef);
+                    cell.setCellType(CellType.TEXT);
+                    cell.setComputedValue(trimmedContent);
+                }
             }
         } catch (Exception e) {
-            System.out.println("  -> ERROR: " + e.getMessage());
+            Log.debug("{} -> ERROR: {}", cellRef, e.getMessage());
             cell.setCellType(CellType.ERROR);
             cell.setErrorType(ErrorType.INVALID_FORMULA);
             cell.setErrorMessage(e.getMessage());
-            propagateError(cellRef);
         }
+        recalculateFrom(index);
+    }
+
+    // فرمولی که بیرون از جدول (مثلاً هنگام ورود فایل) کامپایل شده، بدون تجزیه‌ی دوباره ثبت می‌شود
+    public void setCompiledFormula(int row, int col, CompiledFormula compiled) {
+        historyManager.saveState();
+        validateCoordinates(row, col);
+        Cell cell = grid.getCell(row, col);
+        String cellRef = toCellReference(row, col);
+        int index = indexOf(row, col);
+        historyManager.record(index, cell);
+        clearStale(index, cell);
+
+        dependencyGraph.clearPrecedents(index);
+        cell.clearDependencies();
+        cell.clearError();
+        cell.setRawContent("=" + compiled.getFormula());
+        cell.setCellType(CellType.FORMULA);
+        cell.setCompiledFormula(compiled);
+        processFormula(cell, compiled.getFormula(), cellRef, index);
+        recalculateFrom(index);
+    }
+
+    // سلول به قالب مشترک اشاره می‌کند؛ متن، تجزیه و مجموعه‌ی وابستگی‌های جداگانه ساخته نمی‌شود
+    public void setFormulaTemplate(int row, int col, FormulaTemplate template) {
+        historyManager.saveState();
+        validateCoordinates(row, col);
+        if (!template.fits(row, col, rows, cols)) {
+            throw new InvalidReferenceException(template.render(row, col));
+        }
+        Cell cell = grid.getCell(row, col);
+        int index = indexOf(row, col);
+        historyManager.record(index, cell);
+        clearStale(index, cell);
+
+        dependencyGraph.clearPrecedents(index);
+        cell.clearError();
+        cell.setFormulaTemplate(template, row, col);
+        dependencyGraph.setPrecedents(index, template.precedents(row, col, cols));
+        recalculateFrom(index);
+    }
+
+    // قالب نسبی فرمول سلول (row, col)، از مخزن قالب‌ها تا فرمول‌های هم‌شکل یک نمونه داشته باشند
+    public FormulaTemplate templateFor(int row, int col) {
+        Cell cell = getCell(row, col);
+        if (cell.getFormulaTemplate() != null) {
+            return cell.getFormulaTemplate();
+        }
+        if (cell.getCellType() != CellType.FORMULA) {
+            throw new IllegalArgumentException("Cell " + toCellReference(row, col) + " does not contain a formula");
+        }
+        FormulaTemplate template = Calculate.compileTemplate(Validationformula.extractFormula(cell.getRawContent()), row, col);
+        WeakReference<FormulaTemplate> known = templates.get(template.getKey());
+        FormulaTemplate existing = known != null ? known.get() : null;
+        if (existing != null) {
+            return existing;
+        }
+        templates.remove(template.getKey());
+        templates.put(template.getKey(), new WeakReference<>(template));
+        return template;
+    }
+
+    // فقط قالب‌هایی که هنوز جایی استفاده می‌شوند
+    public int getTemplateCount() {
+        int count = 0;
+        for (WeakReference<FormulaTemplate> reference : templates.values()) {
+            if (reference.get() != null) {
+                count++;
+            }
+        }
+        return count;
     }
 
-    private void processFormula(Cell cell, String formula, String currentCellRef) {
+    // فقط وابستگی‌ها ثبت می‌شوند؛ محاسبه‌ی خود سلول و وابسته‌هایش در recalculateFrom به ترتیب انجام می‌شود
+    private void processFormula(Cell cell, String formula, String currentCellRef, int index) {
         try {
             Validationformula.validateFormula(formula);
 
             // استخراج وابستگی‌ها از فرمول (شامل سلول‌ها در توابع تجمعی)، تمام رفرنس ها استخراج و ذخیره میشن
-            Set<String> dependencies = Calculate.extractCellReferences(formula);
+            CompiledFormula compiled = FormulaEvaluator.compiledFormulaFor(cell, formula);
+            Set<String> dependencies = compiled.getReferences();
             cell.setDependencies(dependencies);
 
-            // اضافه کردن وابستگی‌ها به گراف
+            // اضافه کردن وابستگی‌ها به گراف؛ دور (و ارجاع به خود) هنگام پیمایش محاسبه شناسایی می‌شود
             for (String dependency : dependencies) {
                 validateCellReference(dependency);
-                if (dependency.equals(currentCellRef)) {
-                    throw new CircularDependencyException(currentCellRef);
-                }
-                addDependency(dependency, currentCellRef);
-            }
-
-            // بررسی وابستگی دورانی
-            if (hasCircularDependency(currentCellRef)) {
-                throw new CircularDependencyException("Circular dependency detected involving " + currentCellRef);
             }
-
-            // محاسبه مقدار فرمول
-            calculateFormulaValue(cell, formula, currentCellRef);
+            dependencyGraph.setPrecedents(index, indexesOf(dependencies));
 
         } catch (Exception e) {
+            Log.debug("{} -> ERROR: {}", currentCellRef, e.getMessage());
             cell.setErrorType(ErrorType.INVALID_FORMULA);
             cell.setErrorMessage(e.getMessage());
-            propagateError(currentCellRef);
         }
     }
 
-    private void calculateFormulaValue(Cell cell, String formula, String currentCellRef) {
-        try {
-            FormulaEvaluator evaluator = new FormulaEvaluator(this);
-            Object result = evaluator.evaluateFormula(formula, currentCellRef);
-            cell.setComputedValue(result);
-            cell.clearError();
-        } catch (Exception e) {
-            cell.setErrorType(ErrorType.INVALID_FORMULA);
-            cell.setErrorMessage(e.getMessage());
+    // داخل تراکنش سلول فقط علامت می‌خورد؛ بیرون از آن همان لحظه محاسبه می‌شود
+    private void recalculateFrom(int index) {
+        touched.set(index);
+        if (batchActive) {
+            stage(index);
+            return;
         }
+        BitSet changed = new BitSet();
+        changed.set(index);
+        IntDeque starts = new IntDeque(1);
+        starts.addLast(index);
+        recalculate(starts, changed);
+        publishChanges();
     }
 
-    private void addDependency(String fromCell, String toCell) {
-        dependencyGraph.computeIfAbsent(fromCell, k -> new HashSet<>()).add(toCell);
+    // یک پیمایش از سلول‌های تغییرکرده: خودشان و همه‌ی وابسته‌ها به ترتیب توپولوژیک محاسبه می‌شوند
+    // و خطای هر سلول از راه مقدار خطای مقدم‌ها به وابسته‌ها می‌رسد؛ سلول‌های روی دور #CIRC! می‌گیرند.
+    // سلول تغییرکرده‌ای که هنگام ثبت خطا گرفته (مثلاً فرمول نامعتبر) دوباره محاسبه نمی‌شود
+    private void recalculate(IntDeque starts, BitSet changed) {
+        if (lazyEvaluation) {
+            markStale(starts, changed);
+            return;
+        }
+        IntDeque order = dependencyGraph.orderFrom(starts);
+        int total = order.size();
+        while (!order.isEmpty()) {
+            checkProgress(total - order.size(), total);
+            int current = order.pollFirst();
+            Cell cell = cellAt(current);
+            touched.set(current);
+            if (dependencyGraph.isOnCycle(current)) {
+                historyManager.record(current, cell);
+                FormulaEvaluator.applyResult(cell, ErrorValue.CIRC);
+            } else if (!changed.get(current) || !cell.hasError()) {
+                evaluateCell(current / cols, current % cols);
+            }
+        }
     }
 
-    private void removeDependencies(String cellReference) {
-        for (Set<String> dependents : dependencyGraph.values()) {
-            dependents.remove(cellReference);
+    // نسخه‌ی تازه از سلول‌های دست‌خورده ساخته و منتشر می‌شود و تفاوت نمایشی‌اش با نسخه‌ی قبلی به شنونده‌ها
+    // می‌رسد؛ داخل تراکنش چیزی منتشر نمی‌شود تا همه‌ی تغییرها در commit یک نسخه شوند
+    private void publishChanges() {
+        if (batchActive) {
+            return;
         }
-        dependencyGraph.remove(cellReference);
+        if (!staleCells.isEmpty()) {
+            evaluateVisible();
+        }
+        if (!allTouched && touched.isEmpty()) {
+            return;
+        }
+        SheetVersion previous = version;
+        version = allTouched ? version.rebuilt(this) : version.with(touched, this);
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.deliver(previous, version, touched, allTouched);
+        }
+        if (!changeListeners.isEmpty()) {
+            notifyListeners(previous, version);
+        }
+        allTouched = false;
+        touched.clear();
     }
 
-    public boolean hasCircularDependency(String startCell) {
-        Set<String> visited = new HashSet<>();
-        Set<String> recursionStack = new HashSet<>();
-        return checkCircularDependency(startCell, visited, recursionStack);
+    private void notifyListeners(SheetVersion previous, SheetVersion next) {
+        IntDeque changed = new IntDeque();
+        if (allTouched) {
+            for (int row = 0; row < rows; row++) {
+                if (previous.isBlankPage(row) && next.isBlankPage(row)) {
+                    row = next.nextPageRow(row) - 1;
+                    continue;
+                }
+                for (int col = 0; col < cols; col++) {
+                    if (!CellVersion.sameDisplay(previous.getCell(row, col), next.getCell(row, col))) {
+                        changed.addLast(indexOf(row, col));
+                    }
+                }
+            }
+        } else {
+            for (int i = touched.nextSetBit(0); i >= 0; i = touched.nextSetBit(i + 1)) {
+                if (!CellVersion.sameDisplay(previous.getCell(i / cols, i % cols), next.getCell(i / cols, i % cols))) {
+                    changed.addLast(i);
+                }
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        int[] cells = changed.toArray();
+        for (SheetChangeListener listener : changeListeners) {
+            listener.cellsChanged(next, cells);
+        }
     }
 
-    private boolean checkCircularDependency(String cell, Set<String> visited, Set<String> recursionStack) {
-        if (recursionStack.contains(cell)) {
-            return true;
+    // بعد از جایگزینی همه‌ی سلول‌ها (مثلاً clear) همه با حالت منتشرشده مقایسه می‌شوند
+    private void touchAll() {
+        allTouched = true;
+    }
+
+    // هر PROGRESS_INTERVAL سلول یک بار پیشرفت گزارش و درخواست لغو بررسی می‌شود؛ بعد از لغو ناظر
+    // برداشته می‌شود تا برگشت‌های داخلی (مثل rollback در bulkUpdate) تا آخر اجرا شوند
+    private void checkProgress(int done, int total) {
+        ProgressMonitor current = monitor;
+        if (current == null || done % PROGRESS_INTERVAL != 0) {
+            return;
         }
-        if (visited.contains(cell)) {
-            return false;
+        if (current.isCancelled()) {
+            monitor = null;
+            cancelled = true;
+            throw new CancellationException("Recalculation cancelled");
         }
+        current.progress(done, total);
+    }
 
-        visited.add(cell);
-        recursionStack.add(cell);
+    // اجرای یک عملیات کامل (مثلاً یک دستور) با گزارش پیشرفت و امکان لغو. اگر محاسبه لغو شود، جدول،
+    // تاریخچه و تراکنش باز به حالت پیش از عملیات برمی‌گردند و false برگردانده می‌شود
+    public boolean runMonitored(ProgressMonitor progressMonitor, Runnable operation) {
+        HistoryManager.Checkpoint checkpoint = historyManager.checkpoint();
+        boolean wasBatch = batchActive;
+        IntDeque oldBatchCells = batchCells;
+        BitSet oldBatchMarks = batchMarks;
 
-        Set<String> dependents = dependencyGraph.getOrDefault(cell, new HashSet<>());
-        for (String dependent : dependents) {
-            if (checkCircularDependency(dependent, visited, recursionStack)) {
-                return true;
-            }
+        cancelled = false;
+        monitor = progressMonitor;
+        try {
+            operation.run();
+        } catch (CancellationException e) {
+            cancelled = true;
+        } finally {
+            monitor = null;
+        }
+        if (!cancelled) {
+            return true;
         }
 
-        recursionStack.remove(cell);
+        cancelled = false;
+        batchActive = wasBatch;
+        batchCells = oldBatchCells;
+        batchMarks = oldBatchMarks;
+        historyManager.restore(this, checkpoint);
+        Log.info("Operation cancelled; sheet restored");
         return false;
     }
 
-    //اگر سلولی ارور گرفت، همه سلول هایی که به این سلول وابسته هستند باید ارور بگیرند
-    private void propagateError(String errorCellRef) {
-        Set<String> visited = new HashSet<>();
-        Queue<String> queue = new Queue<>();
-        queue.enqueue(errorCellRef);
+    public boolean isLazyEvaluation() {
+        return lazyEvaluation;
+    }
 
-        while (!queue.isEmpty()) {
-            String currentRef = queue.dequeue();
-            if (visited.contains(currentRef)) {
+    // خاموش کردن حالت تنبل همه‌ی سلول‌های کهنه را همان لحظه محاسبه می‌کند
+    public void setLazyEvaluation(boolean lazy) {
+        lazyEvaluation = lazy;
+        if (!lazy) {
+            evaluateStale(Integer.MAX_VALUE);
+        }
+    }
+
+    public int getStaleCount() {
+        return staleCells.cardinality();
+    }
+
+    // سطرهای دیدنی (مثلاً پنجره‌ی جدول یا محدوده‌ی SHOW)؛ در حالت تنبل پیش از هر اعلان محاسبه می‌شوند
+    public void setViewport(int firstRow, int lastRow) {
+        viewport = new int[] {Math.max(0, firstRow), Math.min(rows - 1, lastRow)};
+    }
+
+    // {اولین سطر، آخرین سطر}؛ اگر آخری از اولی کوچک‌تر باشد هیچ سطری دیدنی نیست
+    public int[] getViewport() {
+        return viewport.clone();
+    }
+
+    // گذر کم‌اولویت: اول سطرهای دیدنی، بعد حداکثر limit سلول کهنه‌ی دیگر محاسبه و اعلان می‌شوند؛
+    // true یعنی هنوز سلول کهنه مانده و گذر بعدی لازم است
+    public boolean evaluateStale(int limit) {
+        if (batchActive) {
+            return !staleCells.isEmpty();
+        }
+        evaluateVisible();
+        int evaluated = 0;
+        for (int i = staleCells.nextSetBit(0); i >= 0 && evaluated < limit; i = staleCells.nextSetBit(i + 1)) {
+            resolveStale(i);
+            evaluated++;
+        }
+        publishChanges();
+        return !staleCells.isEmpty();
+    }
+
+    private void evaluateVisible() {
+        int[] shown = viewport;
+        int end = (shown[1] + 1) * cols;
+        for (int i = staleCells.nextSetBit(shown[0] * cols); i >= 0 && i < end; i = staleCells.nextSetBit(i + 1)) {
+            resolveStale(i);
+        }
+    }
+
+    // یک پیمایش از سلول‌های تغییرکرده که به جای محاسبه، وابسته‌های فرمولی را کهنه علامت می‌زند؛ سلول‌های
+    // روی دور همان لحظه #CIRC! می‌گیرند. وقتی فقط مقدار ثابت عوض شده و شکل گراف دست نخورده، پیمایش وارد
+    // سلول‌های از قبل کهنه نمی‌شود چون وابسته‌های سلول کهنه همه کهنه‌اند
+    private void markStale(IntDeque starts, BitSet changed) {
+        boolean structural = changed == null;
+        for (int i = 0; i < starts.size() && !structural; i++) {
+            structural = cellAt(starts.get(i)).getCellType() == CellType.FORMULA;
+        }
+        IntDeque order = dependencyGraph.orderFrom(starts, structural ? null : staleCells);
+        int total = order.size();
+        while (!order.isEmpty()) {
+            checkProgress(total - order.size(), total);
+            int current = order.pollFirst();
+            Cell cell = cellAt(current);
+            touched.set(current);
+            if (dependencyGraph.isOnCycle(current)) {
+                historyManager.record(current, cell);
+                clearStale(current, cell);
+                FormulaEvaluator.applyResult(cell, ErrorValue.CIRC);
+            } else if (cell.getCellType() == CellType.FORMULA
+                    && (changed == null || !changed.get(current) || !cell.hasError())) {
+                historyManager.record(current, cell);
+                staleCells.set(current);
+                cell.markStale(this, current);
+            }
+        }
+    }
+
+    // محاسبه‌ی یک سلول کهنه بعد از مقدم‌های کهنه‌اش با پیمایش پس‌ترتیب غیربازگشتی (زنجیره‌ی طولانی
+    // پشته را پر نمی‌کند). علامت هر سلول پیش از محاسبه برداشته می‌شود تا خواندن‌های داخل ارزیابی
+    // دوباره به اینجا برنگردند
+    void resolveStale(int index) {
+        if (!staleCells.get(index)) {
+            Cell cell = cellAt(index);
+            cell.clearStale();
+            return;
+        }
+        IntDeque stack = new IntDeque();
+        stack.addLast(index);
+        while (!stack.isEmpty()) {
+            int current = stack.pollLast();
+            if (current < 0) {
+                int cell = ~current;
+                evaluateCell(cell / cols, cell % cols);
+                touched.set(cell);
                 continue;
             }
-            visited.add(currentRef);
+            if (!staleCells.get(current)) {
+                continue;
+            }
+            clearStale(current, cellAt(current));
+            stack.addLast(~current);
+            for (int precedent : dependencyGraph.getPrecedents(current)) {
+                if (staleCells.get(precedent)) {
+                    stack.addLast(precedent);
+                }
+            }
+        }
+    }
+
+    // بازگرداندن حالت ذخیره‌شده‌ی یک سلول از تاریخچه (null یعنی خالی)؛ مقدار ذخیره‌شده همان مقدار آن لحظه
+    // است، پس سلول محاسبه نمی‌شود و سلول کهنه دوباره کهنه علامت می‌خورد
+    void applyCellState(int index, CellState state) {
+        Cell cell = cellAt(index);
+        clearStale(index, cell);
+        dependencyGraph.clearPrecedents(index);
+        CellState applied = state != null ? state : CellState.EMPTY;
+        applied.applyToCell(cell);
+        if (cell.getCellType() == CellType.FORMULA) {
+            FormulaTemplate template = cell.getFormulaTemplate();
+            dependencyGraph.setPrecedents(index, template != null
+                    ? template.precedents(index / cols, index % cols, cols)
+                    : indexesOf(applied.getDependencies()));
+        }
+        if (applied.isStale()) {
+            staleCells.set(index);
+            cell.markStale(this, index);
+        }
+        touched.set(index);
+    }
 
-            Cell currentCell = getCell(currentRef);
-            if (!currentCell.hasError()) {
-                currentCell.setErrorType(ErrorType.VALUE_ERROR);
-                currentCell.setErrorMessage("Dependent on erroneous cell");
+    // بعد از بازگرداندن از تاریخچه؛ بیرون از حالت تنبل سلول کهنه‌ی بازگشته همان لحظه محاسبه می‌شود
+    void restored() {
+        if (!lazyEvaluation) {
+            for (int i = staleCells.nextSetBit(0); i >= 0; i = staleCells.nextSetBit(i + 1)) {
+                resolveStale(i);
             }
+        }
+        publishChanges();
+    }
 
-            Set<String> dependents = dependencyGraph.getOrDefault(currentRef, new HashSet<>());
-            for (String dependent : dependents) {
-                if (!visited.contains(dependent)) {
-                    queue.enqueue(dependent);
-                }
+    private void clearStale(int index, Cell cell) {
+        if (staleCells.get(index)) {
+            historyManager.record(index, cell);
+            staleCells.clear(index);
+            cell.clearStale();
+        }
+    }
+
+    private void stage(int index) {
+        if (!batchMarks.get(index)) {
+            batchMarks.set(index);
+            batchCells.addLast(index);
+        }
+    }
+
+    // شروع تراکنش: یک نقطه‌ی Undo ثبت می‌شود و تا commit یا rollback حالت دیگری ذخیره نمی‌شود
+    public void beginBatch() {
+        if (batchActive) {
+            throw new IllegalStateException("A batch is already open");
+        }
+        historyManager.saveState();
+        historyManager.setRecording(false);
+        batchActive = true;
+    }
+
+    // اجتماع سلول‌های تغییرکرده و وابسته‌هایشان با یک پیمایش محاسبه می‌شود
+    public void commit() {
+        commit(true);
+    }
+
+    // برگشت به حالت پیش از beginBatch بدون ثبت در تاریخچه
+    public void rollback() {
+        requireBatch();
+        endBatch();
+        historyManager.restoreLatest(this);
+    }
+
+    public boolean isBatchActive() {
+        return batchActive;
+    }
+
+    private void commit(boolean recalculate) {
+        requireBatch();
+        IntDeque changed = batchCells;
+        BitSet marks = batchMarks;
+        endBatch();
+        if (recalculate && !changed.isEmpty()) {
+            recalculate(changed, marks);
+        }
+        publishChanges();
+    }
+
+    private void endBatch() {
+        batchActive = false;
+        batchCells = new IntDeque();
+        batchMarks = new BitSet();
+        historyManager.setRecording(true);
+    }
+
+    private void requireBatch() {
+        if (!batchActive) {
+            throw new IllegalStateException("No batch is open");
+        }
+    }
+
+    private void requireNoBatch(String action) {
+        if (batchActive) {
+            throw new IllegalStateException("Cannot " + action + " while a batch is open");
+        }
+    }
+
+    private void calculateFormulaValue(Cell cell, String formula, String currentCellRef) {
+        try {
+            FormulaEvaluator.applyResult(cell, evaluator.evaluate(FormulaEvaluator.compiledFormulaFor(cell, formula), currentCellRef));
+        } catch (Exception e) {
+            cell.setErrorType(ErrorType.INVALID_FORMULA);
+            cell.setErrorMessage(e.getMessage());
+        }
+    }
+
+    // ارجاع‌های بیرون از جدول نادیده گرفته می‌شوند؛ ارزیابی برایشان #REF! می‌دهد
+    private int[] indexesOf(Set<String> references) {
+        IntDeque indexes = new IntDeque(Math.max(references.size(), 1));
+        for (String reference : references) {
+            if (isValidCellReference(reference)) {
+                int[] coordinates = CellConverter.fromCellReference(reference);
+                indexes.addLast(indexOf(coordinates[0], coordinates[1]));
             }
         }
+        return indexes.toArray();
+    }
+
+    private int indexOf(int row, int col) {
+        return row * cols + col;
+    }
+
+    private Cell cellAt(int index) {
+        return grid.getCell(index / cols, index % cols);
+    }
+
+    public boolean hasCircularDependency(String startCell) {
+        validateCellReference(startCell);
+        int[] coordinates = CellConverter.fromCellReference(startCell);
+        int index = indexOf(coordinates[0], coordinates[1]);
+        dependencyGraph.orderFrom(index);
+        return dependencyGraph.isOnCycle(index);
     }
 
     //چه سلول‌هایی وقتی این سلول تغییر کنن باید آپدیت شن؟
     public Set<String> getDependents(String cellReference) {
         validateCellReference(cellReference);
-        return new HashSet<>(dependencyGraph.getOrDefault(cellReference, new HashSet<>()));
+        int[] coordinates = CellConverter.fromCellReference(cellReference);
+        Set<String> dependents = new HashSet<>();
+        for (int dependent : dependencyGraph.getDependents(indexOf(coordinates[0], coordinates[1]))) {
+            dependents.add(toCellReference(dependent / cols, dependent % cols));
+        }
+        return dependents;
     }
 
     //این سلول از چه سلول‌هایی استفاده کرده (فرمولش)؟
@@ -253,23 +722,213 @@ public class Spreadsheet {
         return cell.getDependencies();
     }
 
-    //محاسبه دوباره سلول ها
+    //محاسبه دوباره سلول ها، به ترتیب توپولوژیک تا هر سلول فقط یک بار و بعد از مقدم‌هایش محاسبه شود
     public void recalculateAll() {
+        if (lazyEvaluation) {
+            markStale(formulaCells(), null);
+            publishChanges();
+            return;
+        }
+        IntDeque order = dependencyGraph.orderFrom(formulaCells());
+        int total = order.size();
+        while (!order.isEmpty()) {
+            checkProgress(total - order.size(), total);
+            int current = order.pollFirst();
+            touched.set(current);
+            if (dependencyGraph.isOnCycle(current)) {
+                historyManager.record(current, cellAt(current));
+                FormulaEvaluator.applyResult(cellAt(current), ErrorValue.CIRC);
+            } else {
+                evaluateCell(current / cols, current % cols);
+            }
+        }
+        publishChanges();
+    }
+
+    // زنجیره‌ی محاسبه: همه‌ی سلول‌های فرمولی به ترتیب توپولوژیک
+    public List<String> getCalculationChain() {
+        IntDeque order = dependencyGraph.orderFrom(formulaCells());
+        List<String> chain = new ArrayList<>(order.size());
+        while (!order.isEmpty()) {
+            int current = order.pollFirst();
+            chain.add(toCellReference(current / cols, current % cols));
+        }
+        return chain;
+    }
+
+    private IntDeque formulaCells() {
+        IntDeque formulas = new IntDeque();
         for (int i = 0; i < rows; i++) {
+            if (!grid.hasRow(i)) continue;
             for (int j = 0; j < cols; j++) {
-                Cell cell = grid.getCell(i, j);
-                if (cell.getCellType() == CellType.FORMULA) {
-                    String cellRef = toCellReference(i, j);
-                    try {
-                        String formula = Validationformula.extractFormula(cell.getRawContent());
-                        calculateFormulaValue(cell, formula, cellRef);
-                    } catch (Exception e) {
-                        cell.setErrorType(ErrorType.INVALID_FORMULA);
-                        cell.setErrorMessage(e.getMessage());
-                    }
+                if (grid.getCell(i, j).getCellType() == CellType.FORMULA) {
+                    formulas.addLast(indexOf(i, j));
                 }
             }
         }
+        return formulas;
+    }
+
+    // اعمال تغییرات گروهی با یک نقطه‌ی Undo و یک بار محاسبه‌ی دوباره در پایان
+    public void bulkUpdate(Runnable update) {
+        bulkUpdate(update, true);
+    }
+
+    // اگر به‌روزرسانی نیمه‌کاره شکست بخورد، جدول به حالت قبل برمی‌گردد
+    public void bulkUpdate(Runnable update, boolean recalculate) {
+        beginBatch();
+        try {
+            update.run();
+        } catch (RuntimeException | Error e) {
+            rollback();
+            throw e;
+        }
+        commit(recalculate);
+    }
+
+    // بازگرداندن سلول ذخیره‌شده بدون محاسبه؛ مقدار و خطای ذخیره‌شده قابل اعتماد فرض می‌شوند
+    public void restoreCell(int row, int col, CellType type, String rawContent, Object computedValue,
+                            ErrorType errorType, String errorMessage, CompiledFormula compiled) {
+        validateCoordinates(row, col);
+        Cell cell = grid.getCell(row, col);
+        int index = indexOf(row, col);
+        historyManager.record(index, cell);
+        clearStale(index, cell);
+
+        // فقط یال‌های ورودی حذف می‌شوند؛ وابسته‌هایی که قبلاً بازیابی شده‌اند باید بمانند
+        dependencyGraph.clearPrecedents(index);
+        cell.setRawContent(rawContent);
+        cell.setCellType(type);
+        cell.setComputedValue(computedValue);
+        cell.setErrorType(errorType);
+        cell.setErrorMessage(errorMessage);
+        cell.setCompiledFormula(compiled);
+        cell.clearDependencies();
+
+        if (compiled != null) {
+            cell.setDependencies(compiled.getReferences());
+            dependencyGraph.setPrecedents(index, indexesOf(compiled.getReferences()));
+        }
+        touched.set(index);
+        publishChanges();
+    }
+
+    public void recalculateCell(int row, int col) {
+        evaluateCell(row, col);
+        touched.set(indexOf(row, col));
+        publishChanges();
+    }
+
+    private void evaluateCell(int row, int col) {
+        Cell cell = grid.getCell(row, col);
+        clearStale(indexOf(row, col), cell);
+        if (cell.getCellType() != CellType.FORMULA) {
+            return;
+        }
+        historyManager.record(indexOf(row, col), cell);
+        try {
+            if (cell.getFormulaTemplate() != null) {
+                FormulaEvaluator.applyResult(cell, evaluator.evaluate(cell.getFormulaTemplate(), row, col));
+                return;
+            }
+            String formula = Validationformula.extractFormula(cell.getRawContent());
+            calculateFormulaValue(cell, formula, toCellReference(row, col));
+        } catch (Exception e) {
+            cell.setErrorType(ErrorType.INVALID_FORMULA);
+            cell.setErrorMessage(e.getMessage());
+        }
+    }
+
+    // CsvImporter تکه‌های فایل را داخل تراکنش از چند نخ بار می‌کند؛ ثبت در تاریخچه و مجموعه‌های مشترک
+    // تراکنش قفل می‌خواهد. پیش از تغییر سلول صدا زده می‌شود
+    private void beforeLoad(int index, Cell cell) {
+        if (!batchActive) {
+            historyManager.record(index, cell);
+            return;
+        }
+        synchronized (stageLock) {
+            historyManager.record(index, cell);
+            touched.set(index);
+            stage(index);
+        }
+    }
+
+    private void afterLoad(int index) {
+        if (!batchActive) {
+            recalculateFrom(index);
+        }
+    }
+
+    // نوشتن مستقیم مقدار ثابت هنگام ورود داده؛ اگر سلول فرمول دارد false برمی‌گرداند
+    // تا فراخواننده آن را از مسیر setCellContent بفرستد (یال‌های گراف باید حذف شوند)
+    public boolean loadNumber(int row, int col, double value, String raw) {
+        Cell cell = grid.getCell(row, col);
+        if (cell.getCellType() == CellType.FORMULA) return false;
+        beforeLoad(indexOf(row, col), cell);
+        cell.setRawContent(raw);
+        cell.setCellType(CellType.NUMBER);
+        cell.setComputedValue(value);
+        cell.clearError();
+        afterLoad(indexOf(row, col));
+        return true;
+    }
+
+    // کپی مستقیم یک مقدار ثابت (عدد، متن یا خالی) با همان متن خام و مقدار محاسبه‌شده
+    public boolean loadConstant(int row, int col, CellType type, String raw, Object value) {
+        if (type != CellType.NUMBER && type != CellType.TEXT && type != CellType.EMPTY) return false;
+        Cell cell = grid.getCell(row, col);
+        if (cell.getCellType() == CellType.FORMULA) return false;
+        beforeLoad(indexOf(row, col), cell);
+        cell.setRawContent(raw);
+        cell.setCellType(type);
+        cell.setComputedValue(value);
+        cell.clearError();
+        afterLoad(indexOf(row, col));
+        return true;
+    }
+
+    public boolean loadText(int row, int col, String text) {
+        Cell cell = grid.getCell(row, col);
+        if (cell.getCellType() == CellType.FORMULA) return false;
+        beforeLoad(indexOf(row, col), cell);
+        cell.setRawContent(text);
+        cell.setCellType(CellType.TEXT);
+        cell.setComputedValue(text);
+        cell.clearError();
+        afterLoad(indexOf(row, col));
+        return true;
+    }
+
+    public boolean loadEmpty(int row, int col) {
+        Cell cell = grid.getCell(row, col);
+        if (cell.getCellType() == CellType.FORMULA) return false;
+        beforeLoad(indexOf(row, col), cell);
+        cell.setRawContent("");
+        cell.setCellType(CellType.EMPTY);
+        cell.setComputedValue(null);
+        cell.clearError();
+        afterLoad(indexOf(row, col));
+        return true;
+    }
+
+    public SheetSnapshot snapshot() {
+        return snapshot(0, 0, rows - 1, cols - 1);
+    }
+
+    // روی نخ نویسنده: سلول‌های کهنه‌ی محدوده اول محاسبه و منتشر می‌شوند، بعد محدوده روی آخرین نسخه
+    // برگردانده می‌شود. نخ‌های دیگر مستقیم از currentVersion می‌خوانند
+    public SheetSnapshot snapshot(int firstRow, int firstCol, int lastRow, int lastCol) {
+        if (!staleCells.isEmpty() && isValidCoordinate(firstRow, firstCol) && isValidCoordinate(lastRow, lastCol)) {
+            int end = lastRow * cols + lastCol;
+            for (int i = staleCells.nextSetBit(firstRow * cols); i >= 0 && i <= end; i = staleCells.nextSetBit(i + 1)) {
+                int col = i % cols;
+                if (col >= firstCol && col <= lastCol) {
+                    resolveStale(i);
+                }
+            }
+            publishChanges();
+        }
+        return new SheetSnapshot(version, firstRow, firstCol, lastRow, lastCol);
     }
 
     //ایا این سلول در اکسل وجود دارد
@@ -311,9 +970,22 @@ public class Spreadsheet {
     }
 
     public void clear() {
+        historyManager.saveState();
+        for (int row = 0; row < rows; row++) {
+            if (!grid.hasRow(row)) continue;
+            for (int col = 0; col < cols; col++) {
+                Cell cell = grid.peekCell(row, col);
+                if (!cell.isEmpty() || cell.isStale()) {
+                    historyManager.record(indexOf(row, col), cell);
+                }
+            }
+        }
+        staleCells.clear();
         grid.clear();
         dependencyGraph.clear();
-        initializeDependencyGraph();
+        templates.clear();
+        touchAll();
+        publishChanges();
     }
 
     public Map<ErrorType, List<String>> getErrorReport() {
@@ -321,7 +993,7 @@ public class Spreadsheet {
         for (ErrorType type : ErrorType.values()) errorReport.put(type, new ArrayList<>());
 
         for (int row = 0; row < rows; row++)
-            for (int col = 0; col < cols; col++) {
+            for (int col = 0; grid.hasRow(row) && col < cols; col++) {
                 Cell cell = getCell(row, col);
                 if (cell.hasError())
                     errorReport.get(cell.getErrorType()).add(CellConverter.toCellReference(row, col));
@@ -48,6 +48,15 @@ public class Stack<T> {
         return (T) elements[top];
     }
 
+    // کپی کم‌عمق؛ خود عناصر مشترک می‌مانند
+    public Stack<T> copy() {
+        Stack<T> copy = new Stack<>(capacity);
+        System.arraycopy(elements, 0, copy.elements, 0, size);
+        copy.top = top;
+        copy.size = size;
+        return copy;
+    }
+
     public boolean isEmpty() {
         return top == -1;
     }
@@ -1,6 +1,10 @@
 package org.example.utils;
 
 import org.example.controller.Calculate;
+import org.example.exceptions.InvalidReferenceException;
+import org.example.model.Cell;
+import org.example.model.ErrorValue;
+import org.example.model.FormulaToken.Function;
 import org.example.model.Spreadsheet;
 
 import java.util.List;
@@ -65,4 +69,64 @@ public class AggregateFunctions {
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    // اولین خطای داخل محدوده، یا null؛ سلول بیرون از جدول #REF! است
+    public static ErrorValue firstError(Spreadsheet spreadsheet, int firstRow, int firstCol, int lastRow, int lastCol) {
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                if (!spreadsheet.isValidCoordinate(row, col)) {
+                    return ErrorValue.REF;
+                }
+                Cell cell = spreadsheet.getCell(row, col);
+                if (cell.hasError()) {
+                    return ErrorValue.of(cell.getErrorType());
+                }
+            }
+        }
+        return null;
+    }
+
+    // محاسبه روی مختصات توکن، بدون ساختن رشته‌ی محدوده و لیست Double؛
+    // مثل نسخه‌ی رشته‌ای، سلول خالی یا غیرعددی صفر حساب می‌شود و COUNT تعداد همه‌ی سلول‌هاست
+    public static double evaluate(Function function, Spreadsheet spreadsheet,
+                                  int firstRow, int firstCol, int lastRow, int lastCol) {
+        double sum = 0;
+        double compensation = 0;
+        double max = Double.NEGATIVE_INFINITY;
+        double min = Double.POSITIVE_INFINITY;
+        int count = 0;
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                if (!spreadsheet.isValidCoordinate(row, col)) {
+                    throw new InvalidReferenceException("" + (char) ('A' + col) + (row + 1));
+                }
+                Cell cell = spreadsheet.getCell(row, col);
+                Object value = cell.getComputedValue();
+                double number = value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+
+                // جمع با جبران خطا، مثل DoubleStream.sum
+                double adjusted = number - compensation;
+                double total = sum + adjusted;
+                compensation = (total - sum) - adjusted;
+                sum = total;
+                max = Math.max(max, number);
+                min = Math.min(min, number);
+                count++;
+            }
+        }
+
+        switch (function) {
+            case SUM:
+                return sum;
+            case AVG:
+                return count == 0 ? 0 : sum / count;
+            case MAX:
+                return count == 0 ? 0 : max;
+            case MIN:
+                return count == 0 ? 0 : min;
+            default:
+                return count;
+        }
+    }
+}
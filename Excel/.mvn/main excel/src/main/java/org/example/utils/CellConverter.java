@@ -1,6 +1,9 @@
 package org.example.utils;
 
 public class CellConverter {
+    // سقف سطرها مثل اکسل؛ ستون‌ها یک‌حرفی می‌مانند چون دستور زبان فرمول ستون را یک حرف می‌خواند
+    public static final int MAX_ROWS = 1_048_576;
+    public static final int MAX_COLUMNS = 26;
 
     public static String toCellReference(int row, int col) {
         validateCoordinates(row, col);
@@ -9,7 +12,7 @@ public class CellConverter {
     }
 
     private static void validateCoordinates(int row, int col) {
-        if (row < 0 || row >= 26 || col < 0 || col >= 26) {
+        if (row < 0 || row >= MAX_ROWS || col < 0 || col >= MAX_COLUMNS) {
             throw new IllegalArgumentException("Coordinates out of range: (" + row + ", " + col + ")");
         }
     }
@@ -61,7 +64,7 @@ public class CellConverter {
 
 
     private static void validateColumn(int col) {
-        if (col < 0 || col >= 26) {
+        if (col < 0 || col >= MAX_COLUMNS) {
             throw new IllegalArgumentException("Column index out of range: " + col);
         }
     }
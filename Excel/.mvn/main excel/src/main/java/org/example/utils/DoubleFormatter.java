@@ -0,0 +1,103 @@
+package org.example.utils;
+
+import java.nio.charset.StandardCharsets;
+
+// قالب‌بندی اعداد اعشاری با دقت ثابت بدون String.format و بدون ساختن شیء اضافه
+public class DoubleFormatter {
+    // علامت، 19 رقم صحیح، ممیز و MAX_FRACTION_DIGITS رقم کسری
+    public static final int MAX_LENGTH = 40;
+    public static final int MAX_FRACTION_DIGITS = 12;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+            100_000_000L, 1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L
+    };
+    private static final double LONG_LIMIT = 9.0e18;
+
+    // مقدار را در dest از offset می‌نویسد و موقعیت بعد از آخرین بایت را برمی‌گرداند
+    public static int format(double value, int fractionDigits, byte[] dest, int offset) {
+        checkFractionDigits(fractionDigits);
+
+        if (Double.isNaN(value)) {
+            return writeAscii("NaN", dest, offset);
+        }
+        if (Double.isInfinite(value)) {
+            return writeAscii(value > 0 ? "Infinity" : "-Infinity", dest, offset);
+        }
+
+        boolean negative = value < 0;
+        double magnitude = Math.abs(value);
+        if (magnitude >= LONG_LIMIT) {
+            // بخش صحیح در long جا نمی‌شود؛ اینجا نمایش عادی جاوا کافی است
+            return writeAscii(Double.toString(value), dest, offset);
+        }
+
+        // بخش صحیح و کسری جدا گرد می‌شوند تا ضرب در 10^digits از حد long بیرون نزند؛
+        // تفریق بخش صحیح از یک double دقیق است
+        long integerPart = (long) magnitude;
+        long scale = POWERS_OF_TEN[fractionDigits];
+        long fraction = Math.round((magnitude - integerPart) * scale);
+        if (fraction == scale) {
+            integerPart++;
+            fraction = 0;
+        }
+
+        int pos = offset;
+        if (negative && (integerPart != 0 || fraction != 0)) {
+            dest[pos++] = '-';
+        }
+        pos = writeLong(integerPart, dest, pos);
+
+        if (fraction != 0) {
+            int digits = fractionDigits;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            dest[pos++] = '.';
+            int end = pos + digits;
+            for (int i = end - 1; i >= pos; i--) {
+                dest[i] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            pos = end;
+        }
+        return pos;
+    }
+
+    public static String toString(double value, int fractionDigits) {
+        byte[] digits = new byte[MAX_LENGTH];
+        int length = format(value, fractionDigits, digits, 0);
+        return new String(digits, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int writeLong(long value, byte[] dest, int offset) {
+        if (value == 0) {
+            dest[offset] = '0';
+            return offset + 1;
+        }
+        int length = 0;
+        for (long v = value; v > 0; v /= 10) {
+            length++;
+        }
+        int end = offset + length;
+        for (int i = end - 1; i >= offset; i--) {
+            dest[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    private static int writeAscii(String text, byte[] dest, int offset) {
+        for (int i = 0; i < text.length(); i++) {
+            dest[offset + i] = (byte) text.charAt(i);
+        }
+        return offset + text.length();
+    }
+
+    private static void checkFractionDigits(int fractionDigits) {
+        if (fractionDigits < 0 || fractionDigits > MAX_FRACTION_DIGITS) {
+            throw new IllegalArgumentException("Fraction digits must be between 0 and " + MAX_FRACTION_DIGITS);
+        }
+    }
+}
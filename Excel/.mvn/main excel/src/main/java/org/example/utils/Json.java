@@ -0,0 +1,185 @@
+package org.example.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// فقط همان قدر JSON که حالت سرویس لازم دارد: نوشتن مقدارهای ساده و خواندن یک شیء تخت
+public class Json {
+
+    public static String quote(String text) {
+        StringBuilder out = new StringBuilder(text.length() + 2);
+        appendQuoted(out, text);
+        return out.toString();
+    }
+
+    public static void appendQuoted(StringBuilder out, String text) {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    // عدد متناهی به شکل عدد، بقیه‌ی مقدارها به شکل رشته؛ NaN و بی‌نهایت و null می‌شوند null
+    public static void appendValue(StringBuilder out, Object value) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Double number) {
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                out.append("null");
+            } else {
+                out.append(number.doubleValue());
+            }
+        } else if (value instanceof Boolean) {
+            out.append(value);
+        } else {
+            appendQuoted(out, value.toString());
+        }
+    }
+
+    // شیء تخت {"A1": "5", "B1": 2.5, "C1": null}؛ مقدار عددی و بولی همان متن خودش می‌شود و null رشته‌ی خالی
+    public static Map<String, String> parseFlatObject(String json) {
+        Reader reader = new Reader(json);
+        Map<String, String> result = new LinkedHashMap<>();
+        reader.expect('{');
+        if (reader.peek() == '}') {
+            reader.next();
+            reader.end();
+            return result;
+        }
+        while (true) {
+            String key = reader.string();
+            reader.expect(':');
+            result.put(key, reader.scalar());
+            char separator = reader.next();
+            if (separator == '}') {
+                break;
+            }
+            if (separator != ',') {
+                throw reader.error("Expected ',' or '}'");
+            }
+        }
+        reader.end();
+        return result;
+    }
+
+    private static class Reader {
+        private final String text;
+        private int position;
+
+        private Reader(String text) {
+            this.text = text;
+        }
+
+        private char peek() {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            return text.charAt(position);
+        }
+
+        private char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        private void end() {
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error("Unexpected trailing content");
+            }
+        }
+
+        private String scalar() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            int start = position;
+            while (position < text.length() && ",}] \t\r\n".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.equals("null")) {
+                return "";
+            }
+            if (literal.equals("true") || literal.equals("false") || !Double.isNaN(NumberParser.parse(literal))) {
+                return literal;
+            }
+            throw error("Unsupported value '" + literal + "'");
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (true) {
+                if (position >= text.length()) {
+                    throw error("Unterminated string");
+                }
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return out.toString();
+                }
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    throw error("Unterminated escape");
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw error("Invalid unicode escape");
+                        }
+                        try {
+                            out.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        position += 4;
+                    }
+                    default -> out.append(escaped);
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at " + position + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.example.utils;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// لاگ سطح‌بندی‌شده؛ اگر سطح غیرفعال باشد فقط یک مقایسه‌ی عدد انجام می‌شود (بدون تخصیص حافظه و قفل).
+// پیام‌ها با الگوی {} در رشته‌ی پس‌زمینه ساخته و بافرشده نوشته می‌شوند.
+// سطح پیش‌فرض INFO است و با -Dexcel.log.level=DEBUG|INFO|WARN|ERROR|OFF تغییر می‌کند.
+public final class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final int BATCH_SIZE = 256;
+
+    private static volatile int threshold = initialLevel().ordinal();
+    private static volatile PrintStream output = System.err;
+
+    private static final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final Object writerLock = new Object();
+    private static final AtomicLong pending = new AtomicLong();
+    private static volatile Thread writer;
+
+    private Log() {
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level.ordinal();
+    }
+
+    public static Level getLevel() {
+        return Level.values()[threshold];
+    }
+
+    public static void setOutput(PrintStream stream) {
+        output = stream;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public static boolean isDebugEnabled() {
+        return Level.DEBUG.ordinal() >= threshold;
+    }
+
+    // پیام‌هایی که به خاطر پر بودن صف نوشته نشدند
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public static void debug(String message) {
+        if (Level.DEBUG.ordinal() >= threshold) enqueue(Level.DEBUG, message, null, null, null, null);
+    }
+
+    public static void debug(String pattern, Object arg) {
+        if (Level.DEBUG.ordinal() >= threshold) enqueue(Level.DEBUG, pattern, arg, null, null, null);
+    }
+
+    public static void debug(String pattern, Object arg1, Object arg2) {
+        if (Level.DEBUG.ordinal() >= threshold) enqueue(Level.DEBUG, pattern, arg1, arg2, null, null);
+    }
+
+    public static void debug(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (Level.DEBUG.ordinal() >= threshold) enqueue(Level.DEBUG, pattern, arg1, arg2, arg3, null);
+    }
+
+    public static void debug(Supplier<String> message) {
+        if (Level.DEBUG.ordinal() >= threshold) enqueue(Level.DEBUG, null, null, null, null, message);
+    }
+
+    public static void info(String message) {
+        if (Level.INFO.ordinal() >= threshold) enqueue(Level.INFO, message, null, null, null, null);
+    }
+
+    public static void info(String pattern, Object arg) {
+        if (Level.INFO.ordinal() >= threshold) enqueue(Level.INFO, pattern, arg, null, null, null);
+    }
+
+    public static void info(String pattern, Object arg1, Object arg2) {
+        if (Level.INFO.ordinal() >= threshold) enqueue(Level.INFO, pattern, arg1, arg2, null, null);
+    }
+
+    public static void warn(String message) {
+        if (Level.WARN.ordinal() >= threshold) enqueue(Level.WARN, message, null, null, null, null);
+    }
+
+    public static void warn(String pattern, Object arg) {
+        if (Level.WARN.ordinal() >= threshold) enqueue(Level.WARN, pattern, arg, null, null, null);
+    }
+
+    public static void warn(String pattern, Object arg1, Object arg2) {
+        if (Level.WARN.ordinal() >= threshold) enqueue(Level.WARN, pattern, arg1, arg2, null, null);
+    }
+
+    public static void error(String message) {
+        if (Level.ERROR.ordinal() >= threshold) enqueue(Level.ERROR, message, null, null, null, null);
+    }
+
+    public static void error(String pattern, Object arg) {
+        if (Level.ERROR.ordinal() >= threshold) enqueue(Level.ERROR, pattern, arg, null, null, null);
+    }
+
+    public static void error(String pattern, Object arg1, Object arg2) {
+        if (Level.ERROR.ordinal() >= threshold) enqueue(Level.ERROR, pattern, arg1, arg2, null, null);
+    }
+
+    // منتظر می‌ماند تا همه‌ی پیام‌های صف نوشته شوند
+    public static void flush() {
+        if (writer == null) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (pending.get() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        synchronized (writerLock) {
+            output.flush();
+        }
+    }
+
+    private static void enqueue(Level level, String pattern, Object arg1, Object arg2, Object arg3,
+                                Supplier<String> supplier) {
+        ensureWriter();
+        pending.incrementAndGet();
+        if (!queue.offer(new Entry(level, pattern, arg1, arg2, arg3, supplier))) {
+            pending.decrementAndGet();
+            dropped.incrementAndGet();
+        }
+    }
+
+    private static void ensureWriter() {
+        if (writer != null) {
+            return;
+        }
+        synchronized (writerLock) {
+            if (writer == null) {
+                Thread thread = new Thread(Log::drain, "log-writer");
+                thread.setDaemon(true);
+                thread.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+                writer = thread;
+            }
+        }
+    }
+
+    private static void drain() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder text = new StringBuilder(4096);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+
+            text.setLength(0);
+            for (Entry entry : batch) {
+                entry.appendTo(text);
+                text.append(System.lineSeparator());
+            }
+            int written = batch.size();
+            batch.clear();
+
+            synchronized (writerLock) {
+                PrintStream stream = output;
+                stream.print(text);
+                stream.flush();
+            }
+            pending.addAndGet(-written);
+        }
+    }
+
+    private static Level initialLevel() {
+        String configured = System.getProperty("excel.log.level");
+        if (configured != null) {
+            try {
+                return Level.valueOf(configured.trim().toUpperCase());
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        return Level.INFO;
+    }
+
+    private static final class Entry {
+        private final Level level;
+        private final String pattern;
+        private final Object arg1;
+        private final Object arg2;
+        private final Object arg3;
+        private final Supplier<String> supplier;
+
+        private Entry(Level level, String pattern, Object arg1, Object arg2, Object arg3, Supplier<String> supplier) {
+            this.level = level;
+            this.pattern = pattern;
+            this.arg1 = arg1;
+            this.arg2 = arg2;
+            this.arg3 = arg3;
+            this.supplier = supplier;
+        }
+
+        // جایگزینی {} ها با آرگومان‌ها به ترتیب
+        private void appendTo(StringBuilder text) {
+            text.append('[').append(level).append("] ");
+            if (supplier != null) {
+                text.append(supplier.get());
+                return;
+            }
+
+            int argIndex = 0;
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                if (c == '{' && i + 1 < pattern.length() && pattern.charAt(i + 1) == '}' && argIndex < 3) {
+                    text.append(argIndex == 0 ? arg1 : argIndex == 1 ? arg2 : arg3);
+                    argIndex++;
+                    i += 2;
+                } else {
+                    text.append(c);
+                    i++;
+                }
+            }
+        }
+    }
+}
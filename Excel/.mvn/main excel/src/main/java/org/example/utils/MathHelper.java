@@ -98,12 +98,7 @@ public class MathHelper {
         if (token == null || token.isEmpty()) {
             return false;
         }
-        try {
-            Double.parseDouble(token);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+        return !Double.isNaN(NumberParser.parse(token));
     }
 
     public static double parseNumber(String token) {
@@ -115,18 +110,7 @@ public class MathHelper {
     }
 
     public static String formatNumber(double value) {
-        if (Double.isNaN(value) || Double.isInfinite(value)) {
-            return String.valueOf(value);
-        }
-
-        if (value == Math.floor(value) && !Double.isInfinite(value)) {
-            return String.valueOf((int) value);
-        } else {
-            String formatted = String.format("%.2f", value);
-            if (formatted.contains(".")) {
-                formatted = formatted.replaceAll("0*$", "").replaceAll("\\.$", "");
-            }
-            return formatted;
-        }
+        // دو رقم اعشار بدون صفرهای انتهایی؛ بدون String.format و عبارت منظم
+        return DoubleFormatter.toString(value, 2);
     }
 }
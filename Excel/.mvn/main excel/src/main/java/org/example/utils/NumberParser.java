@@ -0,0 +1,182 @@
+package org.example.utils;
+
+import java.nio.ByteBuffer;
+
+// تبدیل عدد از بایت‌های خام بدون ساختن رشته و بدون پرتاب استثنا
+public class NumberParser {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    // اگر محتوا عدد معتبر نباشد NaN برمی‌گرداند
+    public static double parse(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        if (i >= end) return Double.NaN;
+
+        boolean negative = false;
+        byte first = buffer.get(i);
+        if (first == '+' || first == '-') {
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int droppedDigits = 0;
+        int fractionDigits = 0;
+        boolean sawDigit = false;
+
+        while (i < end && isDigit(buffer.get(i))) {
+            sawDigit = true;
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (buffer.get(i) - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                droppedDigits++;
+            }
+            i++;
+        }
+
+        if (i < end && buffer.get(i) == '.') {
+            i++;
+            while (i < end && isDigit(buffer.get(i))) {
+                sawDigit = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (buffer.get(i) - '0');
+                    if (mantissa != 0) digits++;
+                    fractionDigits++;
+                }
+                i++;
+            }
+        }
+
+        if (!sawDigit) return Double.NaN;
+
+        int exponent = 0;
+        if (i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer.get(i) == '+' || buffer.get(i) == '-')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            if (i >= end || !isDigit(buffer.get(i))) return Double.NaN;
+            while (i < end && isDigit(buffer.get(i))) {
+                if (exponent < 10000) {
+                    exponent = exponent * 10 + (buffer.get(i) - '0');
+                }
+                i++;
+            }
+            if (negativeExponent) exponent = -exponent;
+        }
+
+        if (i != end) return Double.NaN;
+
+        int scale = exponent + droppedDigits - fractionDigits;
+        double value;
+        if (digits <= MAX_EXACT_DIGITS && scale >= -22 && scale <= 22) {
+            // مسیر سریع: مانتیس و توان ده هر دو دقیقاً قابل نمایش هستند
+            value = scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+        } else {
+            value = parseSlow(buffer, start, end);
+            return value;
+        }
+        return negative ? -value : value;
+    }
+
+    public static double parse(String text) {
+        String trimmed = text.trim();
+        return parse(trimmed.toCharArray(), 0, trimmed.length());
+    }
+
+    // همان قواعد برای متن فرمول‌ها
+    public static double parse(char[] chars, int start, int end) {
+        int i = start;
+        if (i >= end) return Double.NaN;
+
+        boolean negative = false;
+        char first = chars[i];
+        if (first == '+' || first == '-') {
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int droppedDigits = 0;
+        int fractionDigits = 0;
+        boolean sawDigit = false;
+
+        while (i < end && isDigit(chars[i])) {
+            sawDigit = true;
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (chars[i] - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                droppedDigits++;
+            }
+            i++;
+        }
+
+        if (i < end && chars[i] == '.') {
+            i++;
+            while (i < end && isDigit(chars[i])) {
+                sawDigit = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (chars[i] - '0');
+                    if (mantissa != 0) digits++;
+                    fractionDigits++;
+                }
+                i++;
+            }
+        }
+
+        if (!sawDigit) return Double.NaN;
+
+        int exponent = 0;
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (chars[i] == '+' || chars[i] == '-')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            if (i >= end || !isDigit(chars[i])) return Double.NaN;
+            while (i < end && isDigit(chars[i])) {
+                if (exponent < 10000) {
+                    exponent = exponent * 10 + (chars[i] - '0');
+                }
+                i++;
+            }
+            if (negativeExponent) exponent = -exponent;
+        }
+
+        if (i != end) return Double.NaN;
+
+        int scale = exponent + droppedDigits - fractionDigits;
+        if (digits <= MAX_EXACT_DIGITS && scale >= -22 && scale <= 22) {
+            double value = scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(chars, start, end - start));
+    }
+
+    // محتوا قبلاً اعتبارسنجی شده، پس اینجا استثنایی رخ نمی‌دهد
+    private static double parseSlow(ByteBuffer buffer, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = (char) buffer.get(i);
+        }
+        return Double.parseDouble(new String(chars));
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// دیکشنری متن‌ها تا مقادیر تکراری فقط یک بار در حافظه نگه داشته شوند. هر ورود یا بازکردن دیکشنری خودش را
+// دارد و با تمام شدن آن آزاد می‌شود؛ متن‌ها فقط تا وقتی سلولی به آن‌ها اشاره می‌کند می‌مانند
+public class TextDictionary {
+    private final ConcurrentHashMap<String, String> entries;
+
+    public TextDictionary() {
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    public String intern(String text) {
+        if (text == null) {
+            return null;
+        }
+        String existing = entries.putIfAbsent(text, text);
+        return existing != null ? existing : text;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+}
@@ -95,15 +95,15 @@ public class Validationformula {
     }
 
     public static boolean isNumberContent(String content) {
+        return !Double.isNaN(parseNumberContent(content));
+    }
+
+    // مقدار عددی محتوای سلول یا NaN اگر عدد نباشد؛ ورود دستی و فیدها هر دو از همین تشخیص استفاده می‌کنند
+    public static double parseNumberContent(String content) {
         if (content == null || content.isEmpty()) {
-            return false;
-        }
-        try {
-            Double.parseDouble(content);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+            return Double.NaN;
         }
+        return NumberParser.parse(content);
     }
 
     public static boolean isValidRange(String range) {
@@ -1,62 +1,90 @@
 package org.example.view;
 
+import org.example.controller.CsvExporter;
+import org.example.controller.CsvImporter;
 import org.example.controller.FillManager;
-import org.example.controller.DependencyManager;
+import org.example.controller.ExportStats;
+import org.example.controller.ImportStats;
+import org.example.controller.WorkbookStore;
+import org.example.controller.XlsxExporter;
+import org.example.controller.XlsxImporter;
 import org.example.model.Spreadsheet;
+import org.example.utils.CellConverter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 public class Command {
     private Spreadsheet spreadsheet;
     private final SpreadsheetView view;
-    private final DependencyManager dependencyManager;
     private final FillManager autoFillManager;
+    private final CommandParser parser = new CommandParser();
+    private boolean autoDisplay = true;
 
     public Command(Spreadsheet spreadsheet) {
         this.spreadsheet = spreadsheet;
         this.view = new SpreadsheetView(spreadsheet);
-        this.dependencyManager = new DependencyManager(spreadsheet);
         this.autoFillManager = new FillManager(spreadsheet);
     }
 
     public boolean processCommand(String command) {
         if (command == null) return true;
-        String trimmed = command.trim();
-        String upperTrimmed = trimmed.toUpperCase();
-
-        // پذیرش ورودی حتی اگر با فضای خالی شروع شده باشد
-        if (trimmed.matches("(?i)^\\s*[A-Za-z]+\\d+\\s*=.*")) {
-            processSet(trimmed);
-            return true;
-        }
+        ParsedCommand parsed = parser.parse(command);
 
-        if (upperTrimmed.startsWith("CLEAR")) {
-            processClearCommand(trimmed);
-            return true;
-        } else if (upperTrimmed.startsWith("FILL")) {
-            processFillCommand(trimmed);
-            return true;
-        } else if (upperTrimmed.startsWith("DETAIL")) {
-            processDetailCommand(trimmed);
-            return true;
-        }
-
-        switch (upperTrimmed) {
-            case "QUIT":
+        switch (parsed.getKind()) {
+            case ASSIGN:
+                processSet(parsed);
+                break;
+            case CLEAR:
+                processClearCommand(parsed.getArgument());
+                break;
+            case FILL:
+                processFillCommand(parsed.getArgument());
+                break;
+            case FILLDOWN:
+                processFillDownCommand(parsed.getArgument());
+                break;
+            case DETAIL:
+                processDetailCommand(parsed.getArgument());
+                break;
+            case IMPORT:
+                processImportCommand(parsed.getArgument());
+                break;
+            case EXPORT:
+                processExportCommand(parsed.getArgument());
+                break;
+            case SAVE:
+                processSaveCommand(parsed.getArgument());
+                break;
+            case LOAD:
+                processLoadCommand(parsed.getArgument());
+                break;
+            case QUIT:
                 System.out.println("Goodbye!");
                 return false;
-            case "HELP":
+            case HELP:
                 displayHelp();
                 break;
-            case "SHOW":
-                view.displaySpreadsheet();
+            case SHOW:
+                processShowCommand(parsed.getArgument());
                 break;
-            case "STATS":
+            case LAZY:
+                processLazyCommand(parsed.getArgument());
+                break;
+            case STATS:
                 System.out.println(view.displayGridStatistics());
                 break;
-            case "ERRORS":
+            case ERRORS:
                 view.displayErrors();
                 break;
-            case "RECALC":
+            case RECALC:
                 processRecalcCommand();
                 break;
+            case BEGIN:
+            case COMMIT:
+            case ROLLBACK:
+                processBatchCommand(parsed.getKind());
+                break;
             default:
                 System.out.println("Unknown command. Type 'HELP' for available commands.");
         }
@@ -66,15 +94,8 @@ public class Command {
 
 
 
-    private void processSet(String command) {
-        int firstEquals = command.indexOf('=');
-        if (firstEquals == -1) {
-            System.out.println("Invalid assignment format.");
-            return;
-        }
-
-        String cellRef = command.substring(0, firstEquals).trim().toUpperCase();
-        String value = command.substring(firstEquals + 1).trim();
+    private void processSet(ParsedCommand command) {
+        String cellRef = command.getTarget();
 
         if (!spreadsheet.isValidCellReference(cellRef)) {
             System.out.println("Invalid cell reference: " + cellRef);
@@ -82,226 +103,221 @@ public class Command {
         }
 
         try {
-            if (value.isEmpty()) {
-                spreadsheet.setCellContent(cellRef, "");
-            } else {
-                spreadsheet.setCellContent(cellRef, preprocessValue(value));
-            }
+            spreadsheet.setCellContent(cellRef, command.getArgument());
 
-            dependencyManager.recalculateDependencies(cellRef);
             System.out.println("Cell " + cellRef + " set successfully.");
-            view.displaySpreadsheet();
+            refreshView();
 
         } catch (Exception e) {
             System.out.println("Error setting cell " + cellRef + ": " + e.getMessage());
-            view.displaySpreadsheet();
+            refreshView();
         }
     }
 
 
+    private void displayHelp() {
+        System.out.println("\n=== AVAILABLE COMMANDS ===");
+        System.out.println("<cell>=<value>         - Set cell content (e.g., A1=5, B1=\"Hello\", C1=A1+B1)");
+        System.out.println("FILL (<src>, <range>)     - AutoFill from source cell to target range (e.g., FILL (A1, A1:C1))");
+        System.out.println("FILL (<block>, <range>)   - Tile a block, or extend numeric series (e.g., FILL (A1:A2, A1:A20))");
+        System.out.println("FILLDOWN <cell|block>   - Fill down to the last row of the adjacent column's data");
+        System.out.println("IMPORT <file> [<cell>]  - Import a CSV/TSV/XLSX file starting at the given cell (default A1)");
+        System.out.println("EXPORT <file> [<range>] - Export the sheet or a range to CSV/TSV/XLSX");
+        System.out.println("SAVE <file>            - Save the workbook with its computed values");
+        System.out.println("LOAD <file>            - Load a saved workbook without recalculating unchanged cells");
+        System.out.println("SHOW [<range>]         - Display the spreadsheet, or only a range (e.g., SHOW A1:C20)");
+        System.out.println("LAZY [ON|OFF]          - Evaluate formulas on demand, visible cells first");
+        System.out.println("DETAIL <cell>          - Show detailed information about a cell");
+        System.out.println("STATS                  - Display grid statistics");
+        System.out.println("ERRORS                 - Show error report");
+        System.out.println("RECALC                 - Recalculate all formulas");
+        System.out.println("BEGIN / COMMIT         - Stage edits and recalculate them once on commit");
+        System.out.println("ROLLBACK               - Discard all edits since BEGIN");
+        System.out.println("CLEAR [cell|all]       - Clear specific cell or entire spreadsheet");
+        System.out.println("Ctrl+z                   - Undo last action");
+        System.out.println("REDO                   - Redo last undone action");
+        System.out.println("HISTORY                - Show undo/redo history info");
+        System.out.println("CLEARHISTORY           - Clear all history");
+        System.out.println("HELP                   - Show this help message");
+        System.out.println("EXIT/QUIT              - Exit the program");
+    }
 
-    private String preprocessValue(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            return value;
+    private void processFillDownCommand(String argument) {
+        String source = argument.trim().toUpperCase();
+        try {
+            autoFillManager.fillDown(source);
+            System.out.println("Fill down completed successfully.");
+            refreshView();
+        } catch (Exception e) {
+            System.out.println("Error in fill down: " + e.getMessage());
         }
+    }
 
-        String trimmed = value.trim();
-
-        if (trimmed.startsWith("=")) {
-            return trimmed;
+    private void processFillCommand(String fillArgs) {
+        if (fillArgs.startsWith("(") && fillArgs.endsWith(")")) {
+            fillArgs = fillArgs.substring(1, fillArgs.length() - 1); // حذف پرانتزها
         }
 
-        if ((trimmed.startsWith("\"") && trimmed.endsWith("\"")) ||
-                (trimmed.startsWith("”") && trimmed.endsWith("”"))) {
-            return trimmed;
-        }
+        // جدا کردن با کاما
+        String[] parts = fillArgs.split("\\s*,\\s*");
 
-        if (shouldBeTreatedAsFormula(trimmed)) {
-            return "=" + trimmed;
+        if (parts.length != 2) {
+            System.out.println("Invalid FILL command format. Use: FILL(<source>, <range>)");
+            return;
         }
 
-        if (containsAggregateFunction(trimmed)) {
-            return "=" + trimmed;
-        }
+        String sourceCell = parts[0].trim().toUpperCase();
+        String targetRange = parts[1].trim().toUpperCase();
 
-        if (trimmed.contains("!")) {
-            return "=" + trimmed;
-        }
+        try {
+            autoFillManager.autoFill(sourceCell, targetRange);
 
-        if (trimmed.matches("^[+\\-].*") && !trimmed.matches("^[+-]?\\d+(\\.\\d+)?$")) {
-            return "=" + trimmed;
-        }
+            System.out.println("AutoFill completed successfully.");
+            refreshView();
 
-        if (looksLikeFormula(trimmed)) {
-            return "=" + trimmed;
+        } catch (Exception e) {
+            System.out.println("Error in AutoFill: " + e.getMessage());
         }
-        try {
-            Double.parseDouble(trimmed);
-            return trimmed;
-        } catch (NumberFormatException e) { }
-
-        return trimmed;
     }
 
-    private boolean shouldBeTreatedAsFormula(String value){
-        // اگر با عملگر ریاضی شروع می‌شود (مثل +1, -5)
-        if (value.matches("^[+\\-].*") && !value.matches("^[+-]?\\d+(\\.\\d+)?$")) {
-            return true;
-        }
 
-        // اگر حاوی عملگرهای ریاضی است
-        if (value.matches(".*[+\\-*/^].*")) {
-            return true;
-        }
 
-        // اگر حاوی تابع تجمعی است
-        if (containsAggregateFunction(value)) {
-            return true;
+    private void processImportCommand(String importArgs) {
+        if (importArgs.isEmpty()) {
+            System.out.println("Invalid IMPORT command format. Use: IMPORT <file> [<cell>]");
+            return;
         }
 
-        // اگر حاوی ارجاع سلولی است
-        if (value.matches(".*[A-Za-z]\\d+.*")) {
-            return true;
+        // اگر آخرین بخش آدرس سلول باشد، نقطه‌ی شروع ورود داده است
+        int[] anchor = {0, 0};
+        int lastSpace = importArgs.lastIndexOf(' ');
+        if (lastSpace > 0) {
+            String lastPart = importArgs.substring(lastSpace + 1).toUpperCase();
+            if (spreadsheet.isValidCellReference(lastPart)) {
+                anchor = CellConverter.fromCellReference(lastPart);
+                importArgs = importArgs.substring(0, lastSpace).trim();
+            }
         }
 
-        // اگر حاوی فاکتوریل یا ثابت است
-        if (value.contains("!") || value.matches(".*\\b(PI|E|pi|e)\\b.*")) {
-            return true;
+        Path path = Paths.get(importArgs);
+        if (!Files.isRegularFile(path)) {
+            System.out.println("File not found: " + importArgs);
+            return;
         }
 
-        // اگر حاوی محدوده است
-        if (value.matches(".*[A-Za-z]\\d+\\s*:\\s*[A-Za-z]\\d+.*")) {
-            return true;
+        try {
+            ImportStats stats;
+            if (isXlsx(path)) {
+                XlsxImporter importer = new XlsxImporter(spreadsheet);
+                stats = importer.importFile(path, anchor[0], anchor[1]);
+                if (importer.getUntranslatedFormulas() > 0) {
+                    System.out.println(importer.getUntranslatedFormulas()
+                            + " formulas have no equivalent here and were imported as values.");
+                }
+            } else {
+                CsvImporter importer = new CsvImporter(spreadsheet);
+                importer.setDelimiter(CsvImporter.delimiterFor(path));
+                stats = importer.importFile(path, anchor[0], anchor[1]);
+            }
+            System.out.println("Imported " + stats);
+            refreshView();
+        } catch (Exception e) {
+            System.out.println("Error importing " + importArgs + ": " + e.getMessage());
         }
-
-        return false;
-    }
-
-
-
-    private boolean containsAggregateFunction(String value) {
-        if (value == null) return false;
-        String upperValue = value.toUpperCase();
-        return upperValue.matches(".*\\b(SUM|AVG|MAX|MIN|COUNT)\\s*\\(.*");
     }
 
-    private boolean looksLikeFormula(String value) {
-        if (value == null || value.isEmpty()) {
-            return false;
+    private void processExportCommand(String exportArgs) {
+        if (exportArgs.isEmpty()) {
+            System.out.println("Invalid EXPORT command format. Use: EXPORT <file> [<range>]");
+            return;
         }
 
-        if ((value.startsWith("\"") && value.endsWith("\"")) ||
-                (value.startsWith("”") && value.endsWith("”"))) {
-            return false;
+        int[] start = {0, 0};
+        int[] end = {spreadsheet.getRows() - 1, spreadsheet.getCols() - 1};
+        int lastSpace = exportArgs.lastIndexOf(' ');
+        if (lastSpace > 0) {
+            String[] rangeParts = exportArgs.substring(lastSpace + 1).toUpperCase().split(":");
+            if (rangeParts.length == 2 && spreadsheet.isValidCellReference(rangeParts[0])
+                    && spreadsheet.isValidCellReference(rangeParts[1])) {
+                start = CellConverter.fromCellReference(rangeParts[0]);
+                end = CellConverter.fromCellReference(rangeParts[1]);
+                exportArgs = exportArgs.substring(0, lastSpace).trim();
+            }
         }
 
-        // اگر عدد ساده است، فرمول نیست
+        Path path = Paths.get(exportArgs);
         try {
-            Double.parseDouble(value);
-            return false;
-        } catch (NumberFormatException e) {
-            System.out.println(e.getMessage());
+            ExportStats stats;
+            if (isXlsx(path)) {
+                stats = new XlsxExporter(spreadsheet).export(path, start[0], start[1], end[0], end[1]);
+            } else {
+                CsvExporter exporter = new CsvExporter(spreadsheet);
+                exporter.setDelimiter(CsvImporter.delimiterFor(path));
+                stats = exporter.export(path, start[0], start[1], end[0], end[1]);
+            }
+            System.out.println("Exported " + stats);
+        } catch (Exception e) {
+            System.out.println("Error exporting " + exportArgs + ": " + e.getMessage());
         }
-
-        // بررسی کن آیا حاوی عملگرهای ریاضی است
-        String coreValue = value.replaceAll("^[+-]", "");
-        boolean hasOperators = coreValue.matches(".*[+\\-*/^!].*");
-
-        // بررسی کن آیا حاوی ارجاع سلولی است
-        boolean hasCellReferences = value.matches(".*[A-Za-z]\\d+.*");
-
-        // بررسی کن آیا حاوی ثابت‌های PI یا E است
-        boolean hasConstants = value.matches(".*\\b(PI|E|pi|e)\\b.*");
-
-        // بررسی کن آیا حاوی توابع تجمعی است
-        boolean hasAggregateFunctions = containsAggregateFunction(value);
-
-        // بررسی کن آیا حاوی محدوده است (A1:B5)
-        boolean hasRange = value.matches(".*[A-Za-z]\\d+\\s*:\\s*[A-Za-z]\\d+.*");
-
-        boolean looksLikeFormula = hasOperators || hasCellReferences || hasConstants ||
-                hasAggregateFunctions || hasRange;
-
-        System.out.println("DEBUG: looksLikeFormula - value: '" + value +
-                "', hasOperators: " + hasOperators +
-                ", hasCellReferences: " + hasCellReferences +
-                ", hasConstants: " + hasConstants +
-                ", hasAggregateFunctions: " + hasAggregateFunctions +
-                ", hasRange: " + hasRange +
-                ", result: " + looksLikeFormula);
-
-        return looksLikeFormula;
     }
 
+    private void processSaveCommand(String fileName) {
+        if (fileName.isEmpty()) {
+            System.out.println("Invalid SAVE command format. Use: SAVE <file>");
+            return;
+        }
 
-    private void displayHelp() {
-        System.out.println("\n=== AVAILABLE COMMANDS ===");
-        System.out.println("<cell>=<value>         - Set cell content (e.g., A1=5, B1=\"Hello\", C1=A1+B1)");
-        System.out.println("FILL (<src>, <range>)     - AutoFill from source cell to target range (e.g., FILL (A1, A1:C1))");
-        System.out.println("SHOW                   - Display the spreadsheet");
-        System.out.println("DETAIL <cell>          - Show detailed information about a cell");
-        System.out.println("STATS                  - Display grid statistics");
-        System.out.println("ERRORS                 - Show error report");
-        System.out.println("RECALC                 - Recalculate all formulas");
-        System.out.println("CLEAR [cell|all]       - Clear specific cell or entire spreadsheet");
-        System.out.println("Ctrl+z                   - Undo last action");
-        System.out.println("REDO                   - Redo last undone action");
-        System.out.println("HISTORY                - Show undo/redo history info");
-        System.out.println("CLEARHISTORY           - Clear all history");
-        System.out.println("HELP                   - Show this help message");
-        System.out.println("EXIT/QUIT              - Exit the program");
+        try {
+            new WorkbookStore(spreadsheet).save(Paths.get(fileName));
+            System.out.println("Workbook saved to " + fileName);
+        } catch (Exception e) {
+            System.out.println("Error saving " + fileName + ": " + e.getMessage());
+        }
     }
 
-    private void processFillCommand(String command) {
-        // حذف "FILL" با یا بدون فاصله
-        String fillArgs = command.substring(4).trim();
-        if (fillArgs.startsWith("(") && fillArgs.endsWith(")")) {
-            fillArgs = fillArgs.substring(1, fillArgs.length() - 1); // حذف پرانتزها
+    private void processLoadCommand(String fileName) {
+        if (fileName.isEmpty()) {
+            System.out.println("Invalid LOAD command format. Use: LOAD <file>");
+            return;
         }
 
-        // جدا کردن با کاما
-        String[] parts = fillArgs.split("\\s*,\\s*");
-
-        if (parts.length != 2) {
-            System.out.println("Invalid FILL command format. Use: FILL(<source>, <range>)");
+        Path path = Paths.get(fileName);
+        if (!Files.isRegularFile(path)) {
+            System.out.println("File not found: " + fileName);
             return;
         }
 
-        String sourceCell = parts[0].trim().toUpperCase();
-        String targetRange = parts[1].trim().toUpperCase();
-
         try {
-            autoFillManager.autoFill(sourceCell, targetRange);
-            dependencyManager.recalculateDependencies(sourceCell);
-
-            System.out.println("AutoFill completed successfully.");
-            view.displaySpreadsheet();
-
+            WorkbookStore store = new WorkbookStore(spreadsheet);
+            ImportStats stats = store.load(path);
+            System.out.println("Loaded " + stats + " (" + store.getRecalculatedCells() + " cells recalculated)");
+            refreshView();
         } catch (Exception e) {
-            System.out.println("Error in AutoFill: " + e.getMessage());
+            System.out.println("Error loading " + fileName + ": " + e.getMessage());
         }
     }
 
+    private boolean isXlsx(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith(".xlsx");
+    }
 
-
-    private void processDetailCommand(String command) {
-        String cellReference = command.substring(6).trim().toUpperCase();
+    private void processDetailCommand(String argument) {
+        String cellReference = argument.toUpperCase();
         view.displayCellDetails(cellReference);
     }
 
-    private void processClearCommand(String command) {
-        String clearArgs = command.substring(5).trim().toUpperCase();
+    private void processClearCommand(String argument) {
+        String clearArgs = argument.toUpperCase();
 
         if (clearArgs.isEmpty() || clearArgs.equals("ALL")) {
             spreadsheet.clear();
             System.out.println("All cells cleared.");
-            view.displaySpreadsheet();
+            refreshView();
         } else {
             try {
                 spreadsheet.setCellContent(clearArgs, "");
-                dependencyManager.recalculateDependencies(clearArgs);
                 System.out.println("Cell " + clearArgs + " cleared.");
-                view.displaySpreadsheet();
+                refreshView();
             } catch (Exception e) {
                 System.out.println("Error clearing cell " + clearArgs + ": " + e.getMessage());
             }
@@ -312,12 +328,89 @@ public class Command {
         try {
             spreadsheet.recalculateAll();
             System.out.println("All formulas recalculated.");
-            view.displaySpreadsheet();
+            refreshView();
         } catch (Exception e) {
             System.out.println("Error during recalculation: " + e.getMessage());
         }
     }
 
+    // محدوده‌ی SHOW سطرهای دیدنی هم می‌شود تا در حالت تنبل بعد از هر تغییر اول همین‌ها محاسبه شوند
+    private void processShowCommand(String argument) {
+        if (argument.isEmpty()) {
+            view.displaySpreadsheet();
+            return;
+        }
+
+        String[] rangeParts = argument.toUpperCase().split(":");
+        String first = rangeParts[0].trim();
+        String last = rangeParts.length == 2 ? rangeParts[1].trim() : first;
+        if (rangeParts.length > 2 || !spreadsheet.isValidCellReference(first) || !spreadsheet.isValidCellReference(last)) {
+            System.out.println("Invalid SHOW range. Use: SHOW <cell>:<cell> (e.g., SHOW A1:C20)");
+            return;
+        }
+
+        int[] start = CellConverter.fromCellReference(first);
+        int[] end = CellConverter.fromCellReference(last);
+        int firstRow = Math.min(start[0], end[0]);
+        int lastRow = Math.max(start[0], end[0]);
+        spreadsheet.setViewport(firstRow, lastRow);
+        view.displayRange(firstRow, Math.min(start[1], end[1]), lastRow, Math.max(start[1], end[1]));
+    }
+
+    private void processLazyCommand(String argument) {
+        String mode = argument.toUpperCase();
+        if (mode.equals("ON")) {
+            spreadsheet.setLazyEvaluation(true);
+        } else if (mode.equals("OFF")) {
+            spreadsheet.setLazyEvaluation(false);
+            refreshView();
+        } else if (!mode.isEmpty()) {
+            System.out.println("Invalid LAZY command format. Use: LAZY [ON|OFF]");
+            return;
+        }
+        System.out.println("Lazy evaluation is " + (spreadsheet.isLazyEvaluation() ? "ON" : "OFF")
+                + " (" + spreadsheet.getStaleCount() + " stale cells).");
+    }
+
+    private void processBatchCommand(ParsedCommand.Kind kind) {
+        try {
+            if (kind == ParsedCommand.Kind.BEGIN) {
+                spreadsheet.beginBatch();
+                System.out.println("Batch started. Edits will be recalculated on COMMIT.");
+            } else if (kind == ParsedCommand.Kind.COMMIT) {
+                spreadsheet.commit();
+                System.out.println("Batch committed.");
+                refreshView();
+            } else {
+                spreadsheet.rollback();
+                System.out.println("Batch rolled back.");
+                refreshView();
+            }
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // در حالت دسته‌ای جدول فقط با دستور SHOW چاپ می‌شود، نه بعد از هر تغییر
+    public void setAutoDisplay(boolean autoDisplay) {
+        this.autoDisplay = autoDisplay;
+    }
+
+    // در حالت تنبل فقط سطرهای دیدنی چاپ می‌شوند تا چاپ خودکار همه‌ی جدول را محاسبه نکند
+    private void refreshView() {
+        if (!autoDisplay) {
+            return;
+        }
+        if (spreadsheet.isLazyEvaluation()) {
+            int[] shown = spreadsheet.getViewport();
+            if (shown[0] <= shown[1]) {
+                view.displayRange(shown[0], 0, shown[1], spreadsheet.getCols() - 1);
+            }
+            return;
+        }
+        view.displaySpreadsheet();
+    }
+
     public void setSpreadsheet(Spreadsheet spreadsheet) {
         this.spreadsheet = spreadsheet;
     }
@@ -0,0 +1,159 @@
+package org.example.view;
+
+import org.example.view.ParsedCommand.Kind;
+import org.example.view.ParsedCommand.ValueKind;
+
+// تجزیه‌ی دستی و تک‌گذره‌ی خط دستور، بدون عبارت منظم و بدون استثنا برای تشخیص عدد.
+// قواعد تشخیص فرمول دقیقاً همان قواعد قبلی preprocessValue است:
+// عملگر (+ - * / ^ !)، حرف پشت سر هم با رقم، تابع تجمعی با پرانتز، یا کلمه‌ی PI/E
+public class CommandParser {
+    private static final String[] PREFIX_KEYWORDS = {"CLEAR", "FILLDOWN", "FILL", "DETAIL", "IMPORT", "EXPORT", "SAVE", "LOAD",
+            "SHOW", "LAZY"};
+    private static final Kind[] PREFIX_KINDS = {Kind.CLEAR, Kind.FILLDOWN, Kind.FILL, Kind.DETAIL, Kind.IMPORT, Kind.EXPORT, Kind.SAVE, Kind.LOAD,
+            Kind.SHOW, Kind.LAZY};
+    private static final String[] EXACT_KEYWORDS = {"QUIT", "HELP", "STATS", "ERRORS", "RECALC", "BEGIN", "COMMIT", "ROLLBACK"};
+    private static final Kind[] EXACT_KINDS = {Kind.QUIT, Kind.HELP, Kind.STATS, Kind.ERRORS, Kind.RECALC,
+            Kind.BEGIN, Kind.COMMIT, Kind.ROLLBACK};
+    private static final String[] AGGREGATES = {"SUM", "AVG", "MAX", "MIN", "COUNT"};
+
+    public ParsedCommand parse(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty()) {
+            return new ParsedCommand(Kind.EMPTY, "");
+        }
+
+        int equals = assignmentEquals(trimmed);
+        if (equals > 0) {
+            return parseAssignment(trimmed, equals);
+        }
+
+        for (int i = 0; i < PREFIX_KEYWORDS.length; i++) {
+            String keyword = PREFIX_KEYWORDS[i];
+            if (trimmed.regionMatches(true, 0, keyword, 0, keyword.length())) {
+                return new ParsedCommand(PREFIX_KINDS[i], trimmed.substring(keyword.length()).trim());
+            }
+        }
+        for (int i = 0; i < EXACT_KEYWORDS.length; i++) {
+            if (trimmed.equalsIgnoreCase(EXACT_KEYWORDS[i])) {
+                return new ParsedCommand(EXACT_KINDS[i], "");
+            }
+        }
+        return new ParsedCommand(Kind.UNKNOWN, trimmed);
+    }
+
+    // اگر خط به شکل <حروف><ارقام> <فاصله> = باشد، موقعیت = را برمی‌گرداند؛ وگرنه -1
+    private int assignmentEquals(String text) {
+        int n = text.length();
+        int i = 0;
+        while (i < n && isAsciiLetter(text.charAt(i))) i++;
+        if (i == 0) return -1;
+        int digitsStart = i;
+        while (i < n && isDigit(text.charAt(i))) i++;
+        if (i == digitsStart) return -1;
+        while (i < n && isSpace(text.charAt(i))) i++;
+        return i < n && text.charAt(i) == '=' ? i : -1;
+    }
+
+    private ParsedCommand parseAssignment(String text, int equals) {
+        String cellRef = text.substring(0, equals).trim().toUpperCase();
+        String value = text.substring(equals + 1).trim();
+
+        if (value.isEmpty()) {
+            return new ParsedCommand(Kind.ASSIGN, cellRef, "", ValueKind.EMPTY);
+        }
+        if (value.charAt(0) == '=') {
+            return new ParsedCommand(Kind.ASSIGN, cellRef, value, ValueKind.FORMULA);
+        }
+        if ((value.startsWith("\"") && value.endsWith("\"")) || (value.startsWith("”") && value.endsWith("”"))) {
+            return new ParsedCommand(Kind.ASSIGN, cellRef, value, ValueKind.QUOTED);
+        }
+        if (isFormulaLike(value)) {
+            return new ParsedCommand(Kind.ASSIGN, cellRef, "=" + value, ValueKind.FORMULA);
+        }
+        return new ParsedCommand(Kind.ASSIGN, cellRef, value, isPlainNumber(value) ? ValueKind.NUMBER : ValueKind.TEXT);
+    }
+
+    public static boolean isFormulaLike(String value) {
+        int n = value.length();
+        int wordStart = -1;
+
+        for (int i = 0; i <= n; i++) {
+            char c = i < n ? value.charAt(i) : ' ';
+
+            if (c == '+' || c == '-' || c == '*' || c == '/' || c == '^' || c == '!') {
+                return true;
+            }
+            if (i > 0 && isDigit(c) && isAsciiLetter(value.charAt(i - 1))) {
+                return true;
+            }
+
+            if (isWordChar(c)) {
+                if (wordStart < 0) wordStart = i;
+            } else if (wordStart >= 0) {
+                if (isConstant(value, wordStart, i) || isAggregateCall(value, wordStart, i)) {
+                    return true;
+                }
+                wordStart = -1;
+            }
+        }
+        return false;
+    }
+
+    // عدد ساده مثل 12 یا 3.5 یا .5 (علامت و نماد علمی قبلاً به عنوان فرمول شناخته شده‌اند)
+    private static boolean isPlainNumber(String value) {
+        boolean digits = false;
+        boolean dot = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (isDigit(c)) {
+                digits = true;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    private static boolean isConstant(String value, int start, int end) {
+        int length = end - start;
+        if (length == 1) {
+            char c = value.charAt(start);
+            return c == 'E' || c == 'e';
+        }
+        return length == 2 && (value.startsWith("PI", start) || value.startsWith("pi", start));
+    }
+
+    private static boolean isAggregateCall(String value, int start, int end) {
+        boolean aggregate = false;
+        for (String name : AGGREGATES) {
+            if (end - start == name.length() && value.regionMatches(true, start, name, 0, name.length())) {
+                aggregate = true;
+                break;
+            }
+        }
+        if (!aggregate) {
+            return false;
+        }
+        int i = end;
+        while (i < value.length() && isSpace(value.charAt(i))) i++;
+        return i < value.length() && value.charAt(i) == '(';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar(char c) {
+        return isAsciiLetter(c) || isDigit(c) || c == '_';
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
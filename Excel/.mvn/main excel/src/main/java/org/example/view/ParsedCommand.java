@@ -0,0 +1,50 @@
+package org.example.view;
+
+// نتیجه‌ی تجزیه‌ی یک خط دستور؛ برای انتساب، target آدرس سلول و content محتوای نهایی آن است
+public class ParsedCommand {
+    public enum Kind {
+        ASSIGN, CLEAR, FILLDOWN, FILL, DETAIL, IMPORT, EXPORT, SAVE, LOAD, LAZY,
+        QUIT, HELP, SHOW, STATS, ERRORS, RECALC, BEGIN, COMMIT, ROLLBACK, EMPTY, UNKNOWN
+    }
+
+    public enum ValueKind { NONE, EMPTY, FORMULA, QUOTED, NUMBER, TEXT }
+
+    private final Kind kind;
+    private final String target;
+    private final String argument;
+    private final ValueKind valueKind;
+
+    ParsedCommand(Kind kind, String argument) {
+        this(kind, null, argument, ValueKind.NONE);
+    }
+
+    ParsedCommand(Kind kind, String target, String argument, ValueKind valueKind) {
+        this.kind = kind;
+        this.target = target;
+        this.argument = argument;
+        this.valueKind = valueKind;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    // برای انتساب همان محتوایی است که در سلول نوشته می‌شود؛ برای بقیه باقی خط بعد از کلمه‌ی کلیدی
+    public String getArgument() {
+        return argument;
+    }
+
+    public ValueKind getValueKind() {
+        return valueKind;
+    }
+
+    @Override
+    public String toString() {
+        return kind + (target != null ? " " + target : "") + (argument != null ? " [" + argument + "]" : "")
+                + (valueKind != ValueKind.NONE ? " " + valueKind : "");
+    }
+}
@@ -4,37 +4,45 @@ import org.example.model.Cell;
 import org.example.model.ErrorType;
 import org.example.model.Spreadsheet;
 import org.example.utils.CellConverter;
+import org.example.utils.DoubleFormatter;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
 public class SpreadsheetView {
     private final Spreadsheet spreadsheet;
+    private final byte[] numberScratch = new byte[DoubleFormatter.MAX_LENGTH + 8];
 
     public SpreadsheetView(Spreadsheet spreadsheet) {
         this.spreadsheet = spreadsheet;
     }
 
     public void displaySpreadsheet() {
-        displayHeader();
-        displayRows();
+        displayRange(0, 0, spreadsheet.getRows() - 1, spreadsheet.getCols() - 1);
         displayErrors();
     }
 
+    // فقط سلول‌های محدوده خوانده می‌شوند؛ در حالت محاسبه‌ی تنبل بقیه‌ی جدول محاسبه نمی‌شود
+    public void displayRange(int firstRow, int firstCol, int lastRow, int lastCol) {
+        displayHeader(firstCol, lastCol);
+        displayRows(firstRow, firstCol, lastRow, lastCol);
+    }
+
 
-    private void displayHeader() {
+    private void displayHeader(int firstCol, int lastCol) {
         System.out.print("   ");
-        for (int col = 0; col < spreadsheet.getCols(); col++) {
+        for (int col = firstCol; col <= lastCol; col++) {
             System.out.printf("%-12s", CellConverter.getColumnName(col));
         }
         System.out.println();
     }
 
-    private void displayRows() {
-        for (int row = 0; row < spreadsheet.getRows(); row++) {
+    private void displayRows(int firstRow, int firstCol, int lastRow, int lastCol) {
+        for (int row = firstRow; row <= lastRow; row++) {
             System.out.printf("%-3d", row + 1);
 
-            for (int col = 0; col < spreadsheet.getCols(); col++) {
+            for (int col = firstCol; col <= lastCol; col++) {
                 Cell cell = spreadsheet.getCell(row, col);
                 String displayValue = formatCellForDisplay(cell);
                 System.out.printf("%-12s", displayValue);
@@ -84,11 +92,29 @@ public class SpreadsheetView {
         if (value == Math.floor(value))
             return String.valueOf((long) value);
 
-        String formatted = String.format("%.4f", value);
-        if (formatted.length() > 10) {
+        // همان خروجی %.4f (با صفرهای انتهایی) ولی با DoubleFormatter روی بافر ثابت
+        int length = DoubleFormatter.format(value, 4, numberScratch, 0);
+        int dot = indexOf(numberScratch, (byte) '.', length);
+        if (dot < 0 && indexOf(numberScratch, (byte) 'E', length) < 0) {
+            dot = length;
+            numberScratch[length++] = '.';
+        }
+        if (dot >= 0) {
+            while (length - dot - 1 < 4) {
+                numberScratch[length++] = '0';
+            }
+        }
+        if (length > 10) {
             return String.format("%.3E", value);
         }
-        return formatted;
+        return new String(numberScratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int indexOf(byte[] bytes, byte target, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == target) return i;
+        }
+        return -1;
     }
 
     private String truncateText(String text, int maxLength) {
@@ -164,6 +190,10 @@ public class SpreadsheetView {
         int empty = 0, number = 0, text = 0, formula = 0, error = 0;
 
         for (int r = 0; r < spreadsheet.getRows(); r++) {
+            if (!spreadsheet.hasRow(r)) {
+                empty += spreadsheet.getCols();
+                continue;
+            }
             for (int c = 0; c < spreadsheet.getCols(); c++) {
                 switch (spreadsheet.getCell(r, c).getCellType()) {
                     case EMPTY:
@@ -191,7 +221,8 @@ public class SpreadsheetView {
                 "Numbers     : " + number + " (" + percent(number, totalCells) + "%)\n" +
                 "Text        : " + text + " (" + percent(text, totalCells) + "%)\n" +
                 "Formulas    : " + formula + " (" + percent(formula, totalCells) + "%)\n" +
-                "Errors      : " + error + " (" + percent(error, totalCells) + "%)";
+                "Errors      : " + error + " (" + percent(error, totalCells) + "%)" +
+                (spreadsheet.isLazyEvaluation() ? "\nStale       : " + spreadsheet.getStaleCount() + " (lazy evaluation)" : "");
     }
 
     private String percent(int value, int total) {
@@ -0,0 +1,37 @@
+package org.example.controller;
+
+import org.example.model.Cell;
+import org.example.model.Spreadsheet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FeedWriterTest {
+
+    private static final String[] BORDERLINE = {
+            "+5", "-5", " 42 ", "+.5", "5.", ".", "1e3", "1E-2", "+1e+2", "1e", "1e+", "2.5e400",
+            "12345678901234567890", "0.1234567890123456789", "0x10", "1,5", "NaN", "Infinity",
+            "\"7\"", "+", "-", "abc", "=1+2", "   "
+    };
+
+    @Test
+    void classifiesLikeSetCellContent() {
+        Spreadsheet typed = new Spreadsheet(BORDERLINE.length, 1);
+        Spreadsheet fed = new Spreadsheet(BORDERLINE.length, 1);
+        FeedWriter writer = new FeedWriter(fed, Runnable::run);
+
+        for (int row = 0; row < BORDERLINE.length; row++) {
+            typed.setCellContent(row, 0, BORDERLINE[row]);
+            writer.write(row, 0, BORDERLINE[row]).join();
+        }
+
+        for (int row = 0; row < BORDERLINE.length; row++) {
+            Cell expected = typed.getCell(row, 0);
+            Cell actual = fed.getCell(row, 0);
+            String input = "[" + BORDERLINE[row] + "] ";
+            assertEquals(input + expected.getCellType(), input + actual.getCellType());
+            assertEquals(input + expected.getRawContent(), input + actual.getRawContent());
+            assertEquals(input + expected.getComputedValue(), input + actual.getComputedValue());
+        }
+    }
+}
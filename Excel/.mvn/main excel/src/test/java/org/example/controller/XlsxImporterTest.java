@@ -0,0 +1,65 @@
+package org.example.controller;
+
+import org.example.model.Spreadsheet;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class XlsxImporterTest {
+
+    // A1=2, B1=3, C1=A1+B1، و یک فرمول مشترک A1*10 در A2:B2
+    private static final String SHEET = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+            + "<row r=\"1\"><c r=\"A1\"><v>2</v></c><c r=\"B1\"><v>3</v></c>"
+            + "<c r=\"C1\"><f>A1+B1</f><v>5</v></c></row>"
+            + "<row r=\"2\"><c r=\"A2\"><f t=\"shared\" ref=\"A2:B2\" si=\"0\">A1*10</f><v>20</v></c>"
+            + "<c r=\"B2\"><f t=\"shared\" si=\"0\"/><v>30</v></c></row>"
+            + "</sheetData></worksheet>";
+
+    @Test
+    void importsAtSheetOrigin() throws IOException {
+        Spreadsheet spreadsheet = new Spreadsheet(10, 10);
+        importSheet(spreadsheet, 0, 0);
+
+        assertEquals(5.0, spreadsheet.getCell("C1").getComputedValue());
+        assertEquals(20.0, spreadsheet.getCell("A2").getComputedValue());
+        assertEquals(30.0, spreadsheet.getCell("B2").getComputedValue());
+    }
+
+    @Test
+    void shiftsFormulaReferencesWithTheAnchor() throws IOException {
+        Spreadsheet spreadsheet = new Spreadsheet(10, 10);
+        spreadsheet.setCellContent("A1", "100");
+        importSheet(spreadsheet, 1, 1);
+
+        assertEquals(2.0, spreadsheet.getCell("B2").getComputedValue());
+        assertEquals(3.0, spreadsheet.getCell("C2").getComputedValue());
+        assertEquals("=B2+C2", spreadsheet.getCell("D2").getRawContent());
+        assertEquals(5.0, spreadsheet.getCell("D2").getComputedValue());
+        assertEquals(20.0, spreadsheet.getCell("B3").getComputedValue());
+        assertEquals(30.0, spreadsheet.getCell("C3").getComputedValue());
+        assertEquals(100.0, spreadsheet.getCell("A1").getComputedValue());
+    }
+
+    private static void importSheet(Spreadsheet spreadsheet, int startRow, int startCol) throws IOException {
+        Path file = Files.createTempFile("import", ".xlsx");
+        try {
+            try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zip = new ZipOutputStream(out)) {
+                zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+                zip.write(SHEET.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            new XlsxImporter(spreadsheet).importFile(file, startRow, startCol);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DoubleFormatterTest {
+
+    @Test
+    void writesPlainDecimalsUpToLongRange() {
+        assertEquals("1234567890.5", DoubleFormatter.toString(1234567890.5, 10));
+        assertEquals("12345678.25", DoubleFormatter.toString(12345678.25, 12));
+        assertEquals("100000000000000000", DoubleFormatter.toString(1e17, 2));
+        assertEquals("-8990000000000000000", DoubleFormatter.toString(-8.99e18, 12));
+    }
+
+    @Test
+    void fallsBackOnlyBeyondLongRange() {
+        assertEquals("9.5E18", DoubleFormatter.toString(9.5e18, 2));
+        assertEquals("-1.0E300", DoubleFormatter.toString(-1e300, 0));
+    }
+
+    @Test
+    void roundsHalfUpAndCarriesIntoIntegerPart() {
+        assertEquals("0.13", DoubleFormatter.toString(0.125, 2));
+        assertEquals("1", DoubleFormatter.toString(0.999, 2));
+        assertEquals("100", DoubleFormatter.toString(99.9999, 3));
+        assertEquals("-2", DoubleFormatter.toString(-1.5, 0));
+        assertEquals("0", DoubleFormatter.toString(-0.004, 2));
+    }
+
+    @Test
+    void writesNonFiniteValuesLikeJava() {
+        assertEquals("NaN", DoubleFormatter.toString(Double.NaN, 2));
+        assertEquals("Infinity", DoubleFormatter.toString(Double.POSITIVE_INFINITY, 2));
+        assertEquals("-Infinity", DoubleFormatter.toString(Double.NEGATIVE_INFINITY, 2));
+    }
+
+    @Test
+    void fitsLongestOutputInMaxLength() {
+        byte[] dest = new byte[DoubleFormatter.MAX_LENGTH];
+        int length = DoubleFormatter.format(-8_999_999_999_999_999_000.0, DoubleFormatter.MAX_FRACTION_DIGITS, dest, 0);
+        assertEquals(20, length);
+        length = DoubleFormatter.format(-123456789.123456789, DoubleFormatter.MAX_FRACTION_DIGITS, dest, 0);
+        assertEquals("-123456789.123456791043", new String(dest, 0, length, StandardCharsets.ISO_8859_1));
+    }
+}
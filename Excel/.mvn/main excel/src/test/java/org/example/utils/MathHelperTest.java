@@ -0,0 +1,27 @@
+package org.example.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MathHelperTest {
+
+    @Test
+    void formatsFractionsWithTwoDigitsWithoutTrailingZeros() {
+        assertEquals("3.14", MathHelper.formatNumber(3.14159));
+        assertEquals("2.5", MathHelper.formatNumber(2.50));
+        assertEquals("0", MathHelper.formatNumber(0.001));
+        assertEquals("-0.01", MathHelper.formatNumber(-0.005));
+    }
+
+    // مقدارهای بیرون از بازه‌ی int دیگر با (int) بریده نمی‌شوند و تا 9e18 بدون نماد علمی نوشته می‌شوند
+    @Test
+    void formatsLargeMagnitudesAsPlainIntegers() {
+        assertEquals("2147483647", MathHelper.formatNumber(2147483647.0));
+        assertEquals("2147483648", MathHelper.formatNumber(2147483648.0));
+        assertEquals("90000000000000000", MathHelper.formatNumber(9e16));
+        assertEquals("-100000000000000000", MathHelper.formatNumber(-1e17));
+        assertEquals("1234567890123.46", MathHelper.formatNumber(1234567890123.456));
+        assertEquals("1.0E19", MathHelper.formatNumber(1e19));
+    }
+}